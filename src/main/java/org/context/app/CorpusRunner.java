@@ -0,0 +1,65 @@
+package org.context.app;
+
+import org.context.implementation.AbstractConText;
+import org.context.implementation.ConTextEnglish;
+import org.context.implementation.ConTextFrench;
+import org.context.implementation.CorpusProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Analyzes a corpus file as a stream (see {@link CorpusProcessor} for the input and output formats).
+ *
+ * Usage: CorpusRunner (french|english) input output [threads] [-mapped [-checkpoint [seconds]]]
+ * (-mapped: reads the input in place, see {@link CorpusProcessor#processMapped(String, String)};
+ * -checkpoint: saves a checkpoint in output.checkpoint every 10 seconds or the given number of seconds, and
+ * resumes from it if it exists, see {@link CorpusProcessor#process(String, String, String, long)}).
+ * Checkpoints need the mapped reader (a checkpoint is an offset in the input file): -checkpoint without
+ * -mapped is a usage error.
+ */
+public class CorpusRunner {
+
+	public static void main(String[] args) throws Exception
+	{
+		List<String> arguments = new ArrayList<String>();
+		boolean mapped = false;
+		long interval = -1;
+		for (int i=0; i < args.length; i++)
+		{
+			if (args[i].equals("-mapped"))
+				mapped = true;
+			else if (args[i].equals("-checkpoint"))
+				interval = i + 1 < args.length && args[i + 1].matches("\\d+") ? 1000 * Long.parseLong(args[++i]) : 10000;
+			else
+				arguments.add(args[i]);
+		}
+		if (arguments.size() < 3 || (interval >= 0 && !mapped))
+		{
+			System.err.println("Usage: CorpusRunner (french|english) input output [threads] [-mapped [-checkpoint [seconds]]]");
+			if (arguments.size() >= 3)
+				System.err.println("-checkpoint reads the input in place: it needs -mapped");
+			System.exit(1);
+		}
+		AbstractConText context = arguments.get(0).equals("english") ? new ConTextEnglish() : new ConTextFrench();
+		int threads = arguments.size() > 3 ? Integer.parseInt(arguments.get(3)) : Runtime.getRuntime().availableProcessors();
+		CorpusProcessor processor = new CorpusProcessor(context, threads, 1024, 1 << 20);
+		String input = arguments.get(1), output = arguments.get(2);
+
+		long start = System.nanoTime();
+		if (mapped && interval >= 0)
+		{
+			long first = processor.process(input, output, output + ".checkpoint", interval);
+			if (first > 0)
+				System.out.println("resumed at record " + first);
+		}
+		else if (mapped)
+			processor.processMapped(input, output);
+		else
+			processor.process(input, output);
+		long time = System.nanoTime() - start;
+		System.out.println(processor.getRecordCount() + " records, " + processor.getResultCount() + " results in "
+			+ (time / 1000000) + " ms");
+	}
+}
@@ -0,0 +1,87 @@
+package org.context.app;
+
+import org.context.implementation.ConTextEnglish;
+import org.context.implementation.ConTextFrench;
+import org.context.implementation.TriggerTagger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Compiles a trigger lexicon into a snapshot that the engines load without compiling
+ * (new ConTextFrench(TriggerTagger.loadSnapshot(path))), or exports a lexicon as a lexicon file.
+ *
+ * The build runs it with -builtin once the classes are compiled: the snapshots of the built-in lexicons
+ * are written with the classes and packaged with them, and the engines load them instead of compiling
+ * the lexicons (see ConTextFrench.snapshot(boolean)). A site lexicon compiled in src/main/resources is
+ * packaged as well and loaded with TriggerTagger.loadResource(name).
+ *
+ * Usage: LexiconCompiler (french|english|lexicon.tsv|snapshot.ctx) output [-fold] [-tsv]
+ *        LexiconCompiler -builtin classes
+ *   french, english: built-in lexicon
+ *   -fold: accent-insensitive lexicon
+ *   -tsv: write a lexicon file instead of a snapshot
+ *   -builtin: write the snapshots of the built-in lexicons (with and without accents) in the classes directory
+ */
+public class LexiconCompiler {
+
+	public static void main(String[] args) throws Exception
+	{
+		if (args.length < 2)
+		{
+			System.err.println("Usage: LexiconCompiler (french|english|lexicon.tsv|snapshot.ctx) output [-fold] [-tsv]");
+			System.err.println("       LexiconCompiler -builtin classes");
+			System.exit(1);
+		}
+		if (args[0].equals("-builtin"))
+		{
+			for (boolean fold : new boolean[]{false, true})
+			{
+				write(ConTextFrench.triggers(fold), new File(args[1], ConTextFrench.snapshot(fold)));
+				write(ConTextEnglish.triggers(fold), new File(args[1], ConTextEnglish.snapshot(fold)));
+			}
+			return;
+		}
+		boolean fold = false, tsv = false;
+		for (int i=2; i < args.length; i++)
+		{
+			if (args[i].equals("-fold"))
+				fold = true;
+			else if (args[i].equals("-tsv"))
+				tsv = true;
+		}
+
+		TriggerTagger triggers;
+		if (args[0].equals("french"))
+			triggers = ConTextFrench.triggers(fold);
+		else if (args[0].equals("english"))
+			triggers = ConTextEnglish.triggers(fold);
+		else if (args[0].endsWith(".ctx"))
+			triggers = TriggerTagger.loadSnapshot(args[0]);
+		else
+			triggers = TriggerTagger.load(args[0], fold);
+
+		if (tsv)
+		{
+			try (Writer writer = new OutputStreamWriter(new FileOutputStream(args[1]), StandardCharsets.UTF_8))
+			{
+				triggers.writeLexicon(writer);
+			}
+		}
+		else
+			triggers.writeSnapshot(args[1]);
+		System.out.println(triggers.size() + " phrases, version " + triggers.getVersion() + " -> " + args[1]);
+	}
+
+	private static void write(TriggerTagger triggers, File file) throws IOException
+	{
+		file.getParentFile().mkdirs();
+		triggers.writeSnapshot(file.getPath());
+		System.out.println(triggers.size() + " phrases, version " + triggers.getVersion() + " -> " + file);
+	}
+}
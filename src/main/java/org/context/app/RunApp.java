@@ -2,6 +2,7 @@ package org.context.app;
 
 
 import org.context.implementation.ConTextEnglish;
+import org.context.implementation.ContextResult;
 
 import javax.swing.*;
 import javax.swing.border.LineBorder;
@@ -127,25 +128,26 @@ public class RunApp extends JFrame implements ActionListener
     	
     	String context_output = "";
     	
+    	ConTextEnglish myApplication = new ConTextEnglish();
+    	
     	//for each concept
     	//identify the concept within each sentence and analyze its context
         for (String aMp : mp)
             for (String sentence : sentences) {
-                ConTextEnglish myApplication = new ConTextEnglish();
-                java.util.List<String> res = null;
+                ContextResult res = null;
 
                 try {
-                    res = myApplication.applyContext(aMp, sentence);
+                    res = myApplication.getContext(aMp, sentence);
                 } catch (Exception e1) {
                     e1.printStackTrace();
                 }
 
                 if (res != null) {
-                    context_output += "ConTextEnglish for '" + res.get(0) + "':\n" +
-                            "Sentence: '" + res.get(1) + "'\n" +
-                            "Negation: '" + res.get(2) + "'\n" +
-                            "Temporality: '" + res.get(3) + "'\n" +
-                            "Experiencer: '" + res.get(4) + "'\n\n";
+                    context_output += "ConTextEnglish for '" + res.getConcept() + "':\n" +
+                            "Sentence: '" + res.getSentence() + "'\n" +
+                            "Negation: '" + res.getNegation() + "'\n" +
+                            "Temporality: '" + res.getTemporality() + "'\n" +
+                            "Experiencer: '" + res.getExperiencer() + "'\n\n";
                 }
             }
     	
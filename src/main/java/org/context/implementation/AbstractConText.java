@@ -0,0 +1,370 @@
+package org.context.implementation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Context analysis shared by the languages: a language gives its trigger lexicon, its time expressions
+ * and its tokenizer (see {@link ConTextFrench} and {@link ConTextEnglish}). Besides the {@link ConText}
+ * methods, the engines analyze several concepts or mentions of a sentence at once, with typed or packed
+ * results.
+ */
+public abstract class AbstractConText implements ConText {
+
+	private static final int DEFAULT_CONTEXT = ContextResult.pack(NegationContext.Affirmed, TemporalityContext.Recent, ExperiencerContext.Patient);
+
+	//swapped when the lexicon is reloaded (each call uses the lexicon it read first)
+	private final AtomicReference<TriggerTagger> triggerTagger;
+
+	//sentences normalized without accents (accent-insensitive lexicon) and their time expressions
+	private final boolean foldAccents;
+	private final TimeScanner timeScanner;
+	private final Tokenizer tokenizer;
+
+	//analyzed dimensions (all the triggers are tagged: the others change the token windows)
+	private final Set<ContextDimension> dimensions;
+
+
+	/**
+	 * @param triggerTagger Reference to the trigger lexicon (its lexicons must all fold accents or none)
+	 * @param dimensions Dimensions to analyze
+	 * @param timeScanner Time expressions of the language (without accents if the lexicon folds them)
+	 * @param tokenizer Tokenizer of the language
+	 */
+	protected AbstractConText(AtomicReference<TriggerTagger> triggerTagger, Set<ContextDimension> dimensions,
+		TimeScanner timeScanner, Tokenizer tokenizer)
+	{
+		this.triggerTagger = triggerTagger;
+		EnumSet<ContextDimension> copy = EnumSet.noneOf(ContextDimension.class);
+		copy.addAll(dimensions);
+		this.dimensions = Collections.unmodifiableSet(copy);
+		this.foldAccents = triggerTagger.get().isFoldingAccents();
+		this.timeScanner = timeScanner;
+		this.tokenizer = tokenizer;
+	}
+
+	/**
+	 * @return Trigger lexicon of the engine (e.g. to read the prefilter skip rate)
+	 */
+	public TriggerTagger getTriggerTagger()
+	{
+		return triggerTagger.get();
+	}
+
+	/**
+	 * Replaces the trigger lexicon (of all the engines sharing it): the calls in progress finish with the
+	 * previous one
+	 * @param triggers Compiled trigger lexicon, folding accents as the previous one
+	 */
+	public void setTriggerTagger(TriggerTagger triggers)
+	{
+		if (triggers.isFoldingAccents() != foldAccents)
+			throw new IllegalArgumentException("The trigger lexicon must " + (foldAccents ? "" : "not ") + "fold accents");
+		triggerTagger.set(triggers);
+	}
+
+	/**
+	 * Pre-processing on the sentence (replace concepts and negation terms by keywords)
+	 * @param sent
+	 * @return Tagged sentence (concepts and context base terms)
+	 * @throws Exception
+	 */
+	@Override
+	public String preProcessSentence(String sent, String concept) throws Exception
+	{
+		//normalizing the sentence and replacing the concept with [0]
+		String sentenceTagged = ConceptTagger.tag(sent, concept, foldAccents);
+		if (sentenceTagged == null)
+			return null;
+		return tagTriggers(sentenceTagged);
+	}
+
+	/**
+	 * Context analysis on the given sentence.
+	 * @param concept concept in the sentence
+	 * @param sentence Sentence to analyze
+	 */
+	@Override
+	public ArrayList<String> applyContext(String concept, String sentence) throws Exception
+	{
+		if(concept.equals("") || sentence.equals(""))
+			return null;
+
+		ContextResult result = getContext(concept, sentence);
+
+		return result == null ? null : result.toList();
+	}
+
+	/**
+	 * Context analysis on the given sentence, with a typed result.
+	 * @param concept concept in the sentence
+	 * @param sentence Sentence to analyze
+	 * @return Context of the concept, null if it is not in the sentence
+	 */
+	public ContextResult getContext(String concept, String sentence) throws Exception
+	{
+		if(concept.equals("") || sentence.equals(""))
+			return null;
+
+		String tagged = preProcessSentence(sentence, concept);
+
+		if(tagged==null)
+			return null;
+
+		int context = contexts(tagged, 0)[0];
+		return context < 0 ? null : new ContextResult(concept, sentence, context);
+	}
+
+	/**
+	 * Pre-processing on the sentence with several concepts (replace concepts by [0], [1], ... and context terms by keywords)
+	 * @param sent
+	 * @param concepts Concepts, tagged with their index in the list
+	 * @return Tagged sentence (concepts and context base terms), null if no concept was found
+	 * @throws Exception
+	 */
+	public String preProcessSentence(String sent, List<String> concepts) throws Exception
+	{
+		return preProcess(sent, concepts);
+	}
+
+	private String preProcess(CharSequence sent, List<String> concepts)
+	{
+		String sentenceTagged = ConceptTagger.tag(sent, concepts, foldAccents);
+		if (sentenceTagged == null)
+			return null;
+		return tagTriggers(sentenceTagged);
+	}
+	private String tagTriggers(String sentenceTagged)
+	{
+		//replacing context phrases with corresponding tags
+		sentenceTagged = triggerTagger.get().tag(sentenceTagged);
+
+		//time
+		return timeScanner.tag(sentenceTagged);
+	}
+
+	/**
+	 * Context analysis of several concepts of the given sentence (tagging and tokenization are done once).
+	 * Each concept gets the result of its own analysis (applyContext(concept, sentence)), except near the
+	 * other concepts: their tags are padded with spaces as the concept's own tag is, so a trigger phrase
+	 * ending with a space ("no evidence ") is tagged right before any concept, not only before the analyzed one.
+	 * @param concepts concepts in the sentence
+	 * @param sentence Sentence to analyze
+	 * @return Result of each concept (concept, sentence, negation, temporality, experiencer), null if not found
+	 */
+	public List<ArrayList<String>> applyContext(List<String> concepts, String sentence) throws Exception
+	{
+		int[] contexts = contexts(concepts, sentence);
+		List<ArrayList<String>> results = new ArrayList<ArrayList<String>>(concepts.size());
+		for (int i=0; i < concepts.size(); i++)
+			results.add(contexts[i] < 0 ? null : new ContextResult(concepts.get(i), sentence, contexts[i]).toList());
+		return results;
+	}
+
+	/**
+	 * Context analysis of several concepts of the given sentence, given to the sink without creating result objects.
+	 * @param concepts concepts in the sentence
+	 * @param sentence Sentence to analyze
+	 * @param sink Receives the index and the packed context of each concept found
+	 */
+	public void applyContext(List<String> concepts, String sentence, ContextResultSink sink) throws Exception
+	{
+		applyContext(concepts, (CharSequence) sentence, sink);
+	}
+
+	/**
+	 * Context analysis of several concepts of a sentence given as a view (only read during the call)
+	 * @param concepts Concepts to analyze (tagged [0], [1], ... in list order)
+	 * @param sentence Sentence to analyze
+	 * @param sink Receives the index and the packed context of each concept found
+	 */
+	public void applyContext(List<String> concepts, CharSequence sentence, ContextResultSink sink) throws Exception
+	{
+		int[] contexts = contexts(concepts, sentence);
+		for (int i=0; i < contexts.length; i++)
+			if (contexts[i] >= 0)
+				sink.accept(i, -1, -1, contexts[i]);
+	}
+
+	/**
+	 * Context analysis of the concepts of a dictionary found in the given sentence (tagging and tokenization are done once).
+	 * @param dictionary Concept dictionary
+	 * @param sentence Sentence to analyze
+	 * @return Mentions found, in sentence order, with their context
+	 */
+	public List<ConceptMention> applyContext(ConceptDictionary dictionary, String sentence) throws Exception
+	{
+		int[] mentions = dictionary.scan(sentence);
+		int[] contexts = contexts(sentence, mentions);
+		List<ConceptMention> results = new ArrayList<ConceptMention>(contexts.length);
+		for (int i=0; i < contexts.length; i++)
+		{
+			int term = mentions[3*i+2];
+			ConceptMention mention = new ConceptMention(mentions[3*i], mentions[3*i+1], dictionary.getConcept(term), dictionary.getConceptId(term));
+			mention.setResult(new ContextResult(mention.getConcept(), sentence, contexts[i]));
+			results.add(mention);
+		}
+		return results;
+	}
+
+	/**
+	 * Context analysis of the concepts of a dictionary found in the given sentence, given to the sink without creating result objects.
+	 * @param dictionary Concept dictionary
+	 * @param sentence Sentence to analyze
+	 * @param sink Receives the term index, the offsets and the packed context of each mention
+	 */
+	public void applyContext(ConceptDictionary dictionary, String sentence, ContextResultSink sink) throws Exception
+	{
+		int[] mentions = dictionary.scan(sentence);
+		int[] contexts = contexts(sentence, mentions);
+		for (int i=0; i < contexts.length; i++)
+			sink.accept(mentions[3*i+2], mentions[3*i], mentions[3*i+1], contexts[i]);
+	}
+
+	/**
+	 * Context analysis of every occurrence of the concepts in the given sentence (tagging and tokenization are done once).
+	 * @param concepts concepts in the sentence
+	 * @param sentence Sentence to analyze
+	 * @return Mentions found, in sentence order, with their context
+	 */
+	public List<ConceptMention> applyContextToMentions(List<String> concepts, String sentence) throws Exception
+	{
+		int[] mentions = ConceptTagger.findAll(sentence, concepts, foldAccents);
+		int[] contexts = contexts(sentence, mentions);
+		List<ConceptMention> results = new ArrayList<ConceptMention>(contexts.length);
+		for (int i=0; i < contexts.length; i++)
+		{
+			String concept = concepts.get(mentions[3*i+2]);
+			ConceptMention mention = new ConceptMention(mentions[3*i], mentions[3*i+1], concept, concept);
+			mention.setResult(new ContextResult(concept, sentence, contexts[i]));
+			results.add(mention);
+		}
+		return results;
+	}
+
+	/**
+	 * @return Packed context of each concept, -1 if it is not in the sentence
+	 */
+	private int[] contexts(List<String> concepts, CharSequence sentence) throws Exception
+	{
+		String tagged = sentence.length() == 0 ? null : preProcess(sentence, concepts);
+		if (tagged == null)
+		{
+			int[] contexts = new int[concepts.size()];
+			Arrays.fill(contexts, -1);
+			return contexts;
+		}
+		return contexts(tagged, concepts.size());
+	}
+
+	/**
+	 * @param mentions Start, end and concept of each mention
+	 * @return Packed context of each mention
+	 */
+	private int[] contexts(String sentence, int[] mentions)
+	{
+		if (mentions.length == 0)
+			return new int[0];
+
+		//replacing the mentions, then the context phrases with corresponding tags
+		String tagged = tagTriggers(ConceptTagger.tagMentions(sentence, mentions, foldAccents));
+		if (tagged.indexOf('<') == -1)
+		{
+			int[] contexts = new int[mentions.length / 3];
+			Arrays.fill(contexts, DEFAULT_CONTEXT);
+			return contexts;
+		}
+		return contexts(tagged, mentions.length / 3);
+	}
+
+	/**
+	 * @param tagged Tagged sentence
+	 * @param concepts Number of concepts, 0 for the single concept analysis
+	 * @return Packed context of each concept, -1 if it is not in the sentence
+	 */
+	private int[] contexts(String tagged, int concepts)
+	{
+		//no trigger and no time expression: the concept keeps the default context
+		if (concepts == 0 && tagged.indexOf('<') == -1)
+			return new int[]{DEFAULT_CONTEXT};
+
+		//tokenizing the sentence in words
+		int[] tokens = tokenizer.tokenize(tagged);
+
+		if (concepts == 0)
+			return ContextScopes.contexts(ContextScopes.codes(tagged, tokens, true), 1, dimensions);
+		return ContextScopes.contexts(ContextScopes.codes(tagged, tokens, false), concepts, dimensions);
+	}
+
+	/**
+	 * @return Steps of applyContext(concepts, sentence), to run them separately (see {@link ContextPipeline})
+	 */
+	ContextStages stages()
+	{
+		return new ContextStages()
+		{
+			@Override
+			public String tagConcepts(CharSequence sentence, List<String> concepts)
+			{
+				return sentence.length() == 0 ? null : ConceptTagger.tag(sentence, concepts, foldAccents);
+			}
+
+			@Override
+			public String tagTriggers(String sentence)
+			{
+				return AbstractConText.this.tagTriggers(sentence);
+			}
+
+			@Override
+			public int[] classify(String tagged, int concepts)
+			{
+				return contexts(tagged, concepts);
+			}
+		};
+	}
+
+	/**
+	 * Context analysis of the concept of a tokenized sentence (the three dimensions in a single pass)
+	 * @return Packed context, -1 if there is no concept in the sentence
+	 */
+	public int applyContextPacked(String[] words) throws Exception
+	{
+		return ContextScopes.contexts(ContextScopes.codes(words, true), 1, dimensions)[0];
+	}
+
+	/**
+	 * Apply NegEx algorithm to find negation context of the concept found in the sentence
+	 * @return
+	 */
+	@Override
+	public String applyNegEx(String[] words) throws Exception
+	{
+		return ContextScopes.applyNegEx(ContextScopes.codes(words, true), 1)[0].name();
+	}
+
+	/**
+	 * Temporality analysis
+	 * @return
+	 */
+	@Override
+	public String applyTemporality(String[] words) throws Exception
+	{
+		return ContextScopes.applyTemporality(ContextScopes.codes(words, true), 1)[0].name();
+	}
+
+	/**
+	 * Experiencer analysis
+	 * @return
+	 */
+	@Override
+	public String applyExperiencer(String[] words) throws Exception
+	{
+		return ContextScopes.applyExperiencer(ContextScopes.codes(words, true), 1)[0].name();
+	}
+}
@@ -0,0 +1,97 @@
+package org.context.implementation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/**
+ * Bounded multi-producer multi-consumer queue without lock: a ring of slots, each with a sequence number
+ * that tells whether it can be written (sequence == position) or read (sequence == position + 1) at a given
+ * position; producers and consumers reserve positions by compare-and-set on the tail and the head.
+ * Offer and poll never wait: they fail when the queue is full or empty.
+ */
+final class BoundedQueue<E> {
+
+	private final int mask;
+	private final AtomicLongArray sequences;
+	private final AtomicReferenceArray<E> items;
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+
+
+	/**
+	 * @param capacity Maximum number of items (rounded up to a power of two)
+	 */
+	BoundedQueue(int capacity)
+	{
+		int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+		this.mask = size - 1;
+		this.sequences = new AtomicLongArray(size);
+		this.items = new AtomicReferenceArray<E>(size);
+		for (int i=0; i < size; i++)
+			sequences.set(i, i);
+	}
+
+	/**
+	 * @return false if the queue is full
+	 */
+	boolean offer(E item)
+	{
+		while (true)
+		{
+			long position = tail.get();
+			int slot = (int) position & mask;
+			long difference = sequences.get(slot) - position;
+			if (difference == 0)
+			{
+				if (tail.compareAndSet(position, position + 1))
+				{
+					items.lazySet(slot, item);
+					sequences.set(slot, position + 1);
+					return true;
+				}
+			}
+			else if (difference < 0)
+				return false;
+		}
+	}
+
+	/**
+	 * @return Oldest item, null if the queue is empty
+	 */
+	E poll()
+	{
+		while (true)
+		{
+			long position = head.get();
+			int slot = (int) position & mask;
+			long difference = sequences.get(slot) - (position + 1);
+			if (difference == 0)
+			{
+				if (head.compareAndSet(position, position + 1))
+				{
+					E item = items.get(slot);
+					items.lazySet(slot, null);
+					sequences.set(slot, position + mask + 1);
+					return item;
+				}
+			}
+			else if (difference < 0)
+				return null;
+		}
+	}
+
+	/**
+	 * @return Number of items (approximate while the queue is used)
+	 */
+	int size()
+	{
+		return (int) Math.max(0, Math.min(tail.get() - head.get(), mask + 1));
+	}
+
+	int capacity()
+	{
+		return mask + 1;
+	}
+}
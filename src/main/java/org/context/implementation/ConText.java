@@ -4,6 +4,19 @@ import java.util.ArrayList;
 
 public interface ConText {
 
+    public enum NegationContext{
+        Affirmed, Negated, Possible;
+    }
+    public enum TemporalityContext{
+        Recent, Historical, Hypothetical;
+    }
+    public enum ExperiencerContext{
+        Patient, Other;
+    }
+    public enum ContextDimension{
+        Negation, Temporality, Experiencer;
+    }
+
     public String preProcessSentence(String sent, String concept) throws Exception;
     ArrayList<String> applyContext(String concept, String sentence) throws Exception;
 
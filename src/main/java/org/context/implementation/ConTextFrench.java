@@ -1,10 +1,8 @@
 package org.context.implementation;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
@@ -12,18 +10,10 @@ import java.util.regex.Pattern;
  * @author Amine Abdaoui
  * LIRMM, University of Montpellier 2017
  */
-public class ConTextFrench implements ConText {
+public class ConTextFrench extends AbstractConText {
 
-	public enum NegationContext{
-		Affirmed, Negated, Possible;
-	}
-	public enum TemporalityContext{
-		Recent, Historical, Hypothetical;
-	}
-	
-	private static final int MAX_WINDOW = 15;
 	
-	String[] regexes = new String[]{"adéquat pour l'écarter ,post,neg",
+	static final String[] regexes = new String[]{"adéquat pour l'écarter ,post,neg",
 "adéquat pour l'éliminer ,post,neg",
 "suffisant pour l'écarter ,post,neg",
 "suffisant pour l'exclure ,post,neg",
@@ -734,33 +724,11 @@ public class ConTextFrench implements ConText {
 "infirment ,pre,neg",
 "infirmer ,pre,neg"};
 	
-	private Pattern regexPseudo;
-	
-	private Pattern regexNegPre;
-	private Pattern regexNegPost;
-	private Pattern regexPossPre;
-	private Pattern regexPossPost;
-	private Pattern regexNegEnd;
-	
-	private Pattern regexExpPre;
-	private Pattern regexExpEnd;
-	
-	private Pattern regexHypoPre;
-	private Pattern regexHypoEnd;
-	private Pattern regexHypoExpEnd;
+	//compiled at build time, once for the language and shared by all the instances
+	private static final TriggerTagger TRIGGERS = TriggerTagger.builtIn(snapshot(false), regexes, false);
 	
-	private Pattern regexHistPre;
-	private Pattern regexHist1w;
-	private Pattern regexHistEnd;
-	private Pattern regexHistExpEnd;
-	
-	private Pattern regexTime;
-	private Pattern regexTimeFor;
-	private Pattern regexTimeSince;
-	
-	//originally this pattern recognized UMLS concepts, but for this application
-	//it will recognize the input concepts
-	private static final String regExUmlsTag = "\\[\\d+\\]"; 
+	private static final TimeScanner TIME_SCANNER = new FrenchTimeScanner();
+	private static final TimeScanner FOLDED_TIME_SCANNER = new FrenchTimeScanner(true);
 
 	
 	/**
@@ -769,505 +737,75 @@ public class ConTextFrench implements ConText {
 	 */
 	public ConTextFrench()
 	{	
-		
-		String regex_PSEUDO = "";
-		String regex_NEG_PRE = "";
-		String regex_NEG_POST = "";
-		String regex_POSS_PRE = "";
-		String regex_POSS_POST = "";
-		String regex_NEG_END = "";
-		
-		String regex_EXP_PRE = "";
-		String regex_EXP_END = "";
-		
-		String regex_HYPO_PRE = "";
-		String regex_HIST_PRE = "";
-		String regex_HIST_1W = "";
-		
-		String regex_HYPO_END = "";
-		String regex_HIST_END = "";
-		String regex_HIST_EXP_END = "";
-		String regex_HYPO_EXP_END = "";
-		
-		for (int i=0; i < regexes.length; i++)
-		{
-			int attrIndex = regexes[i].indexOf(',');
-			int attrIndex2 = regexes[i].lastIndexOf(',');
-			
-			String phrase = regexes[i].substring(0,attrIndex).replaceAll(" ", "[\\\\s\\\\-]");
-			String position = regexes[i].substring(attrIndex+1, attrIndex2);
-			String contextType = regexes[i].substring(attrIndex2+1);
-			
-			if (position.compareTo("pseudo")==0)
-			{
-				regex_PSEUDO = regex_PSEUDO + "|" + phrase;
-			}
-			else if (position.compareTo("termin")==0)
-			{
-				if (contextType.compareTo("neg")==0)
-					regex_NEG_END = regex_NEG_END + "|[\\s\\.]+" + phrase + "[\\s\\.\\:;\\,]+";
-				else if (contextType.compareTo("hypo")==0)
-					regex_HYPO_END = regex_HYPO_END + "|[\\s\\.]+" + phrase + "[\\s\\.\\:;\\,]+";
-				else if (contextType.compareTo("hist")==0)
-					regex_HIST_END = regex_HIST_END + "|[\\s\\.]+" + phrase + "[\\s\\.\\:;\\,]+";
-				else if (contextType.compareTo("histexp")==0)
-					regex_HIST_EXP_END = regex_HIST_EXP_END + "|[\\s\\.]+" + phrase + "[\\s\\.\\:;\\,]+";
-				else if (contextType.compareTo("hypoexp")==0)
-					regex_HYPO_EXP_END = regex_HYPO_EXP_END + "|[\\s\\.]+" + phrase + "[\\s\\.\\:;\\,]+";
-				else if (contextType.compareTo("exp")==0)
-					regex_EXP_END = regex_EXP_END + "|[\\s\\.]+" + phrase + "[\\s\\.\\:;\\,]+";
-			}
-			else if (position.compareTo("pre")==0)
-			{
-				if (contextType.compareTo("neg")==0)
-					regex_NEG_PRE = regex_NEG_PRE + "|[\\s\\.]+" + phrase + "[\\s\\.\\:;\\,]+";
-				else if (contextType.compareTo("poss")==0)
-					regex_POSS_PRE = regex_POSS_PRE + "|[\\s\\.]+" + phrase + "[\\s\\.\\:;\\,]+";
-				else if (contextType.compareTo("hypo")==0)
-					regex_HYPO_PRE = regex_HYPO_PRE + "|[\\s\\.]+" + phrase + "[\\s\\.\\:;\\,]+";
-				else if (contextType.compareTo("exp")==0)
-					regex_EXP_PRE = regex_EXP_PRE + "|[\\s\\.]+" + phrase + "[\\s\\.\\:;\\,]+";
-				else if (contextType.compareTo("hist")==0)
-					regex_HIST_PRE = regex_HIST_PRE + "|[\\s\\.]+" + phrase + "[\\s\\.\\:;\\,]+";
-				else if (contextType.compareTo("hist")==0)
-					regex_HIST_1W = regex_HIST_1W + "|[\\s\\.]+" + phrase + "[\\s\\.\\:;\\,]+";
-			}
-			else if (position.compareTo("post")==0)
-			{
-				if (contextType.compareTo("neg")==0)
-					regex_NEG_POST = regex_NEG_POST + "|[\\s\\.]+" + phrase + "[\\s\\.\\:;\\,]+";
-				else if (contextType.compareTo("poss")==0)
-					regex_POSS_POST = regex_POSS_POST + "|[\\s\\.]+" + phrase + "[\\s\\.\\:;\\,]+";
-			}
-			
-		}
-		if (regex_PSEUDO.length()>0)
-			regexPseudo = Pattern.compile(regex_PSEUDO.substring(2));
-		
-		//negation context
-		if (regex_NEG_PRE.length()>0)
-			regexNegPre = Pattern.compile(regex_NEG_PRE.substring(1));
-		if (regex_NEG_POST.length()>0)
-			regexNegPost = Pattern.compile(regex_NEG_POST.substring(1));
-		if (regex_NEG_END.length()>0)
-			regexNegEnd = Pattern.compile(regex_NEG_END.substring(1));
-		if (regex_POSS_PRE.length()>0)
-			regexPossPre = Pattern.compile(regex_POSS_PRE.substring(1));
-		if (regex_POSS_POST.length()>0)
-			regexPossPost = Pattern.compile(regex_POSS_POST.substring(1));
-		
-		//temporality context
-		if (regex_HIST_PRE.length()>0)
-			regexHistPre = Pattern.compile(regex_HIST_PRE.substring(1));
-		if (regex_HYPO_PRE.length()>0)
-			regexHypoPre = Pattern.compile(regex_HYPO_PRE.substring(1));
-		if (regex_HIST_1W.length()>0)
-			regexHist1w = Pattern.compile(regex_HIST_1W.substring(1));
-		if (regex_HIST_END.length()>0)
-			regexHistEnd = Pattern.compile(regex_HIST_END.substring(1));
-		if (regex_HYPO_END.length()>0)
-			regexHypoEnd = Pattern.compile(regex_HYPO_END.substring(1));
-		
-		//experiencer and mixed
-		if (regex_EXP_PRE.length()>0)
-			regexExpPre = Pattern.compile(regex_EXP_PRE.substring(1));
-		if (regex_EXP_END.length()>0)
-			regexExpEnd = Pattern.compile(regex_EXP_END.substring(1));
-		if (regex_HYPO_EXP_END.length()>0)
-			regexHypoExpEnd = Pattern.compile(regex_HYPO_EXP_END.substring(1));
-		if (regex_HIST_EXP_END.length()>0)
-			regexHistExpEnd = Pattern.compile(regex_HIST_EXP_END.substring(1));
-		
-		
-		/**********
-		System.out.println("-----------------------------------------------------");
-		System.out.println("NEGEX CONFIG: ");
-		System.out.println("\tMax window: " + MAX_WINDOW + " words");
-		System.out.println("\tPRENEG:   " + regex_NEG_PRE.substring(1));
-		System.out.println("\tPOSTNEG:  " + regex_NEG_POST.substring(1));
-		System.out.println("\tPREPOSS:  " + regex_POSS_PRE.substring(1));
-		//System.out.println("POSTPOSS: " + regex_POSS_POST.substring(1));
-		System.out.println("\tPSEUDO:   " + regex_PSEUDO.substring(1));
-		System.out.println("\tNEGTERM:  " + regex_NEG_END.substring(1));
-		System.out.println("\n");
-		**********/
+		this(TRIGGERS);
 	}
 	
 	/**
-	 * Pre-processing on the sentence (replace concepts and negation terms by keywords)
-	 * @param sent
-	 * @return Tagged sentence (concepts and context base terms)
-	 * @throws Exception 
+	 * Initialization with another compiled trigger lexicon (e.g. triggers(true) for the accent-insensitive analysis)
+	 * @param triggerTagger Trigger lexicon (can be shared by several instances)
 	 */
-	@Override
-	public String preProcessSentence(String sent, String concept) throws Exception
+	public ConTextFrench(TriggerTagger triggerTagger)
 	{
-		String sentenceTagged = " " + sent.replaceAll("\\s+", " ").toLowerCase();
-		
-		int lastOffset = 0;
-		int charOffset=0;
-		
-		String tag="";
-		String umlsConcept = concept.replaceAll("\\s+", " ").toLowerCase();
-		tag = " [0] ";
-		
-		int conceptIndex = sentenceTagged.indexOf(umlsConcept);
-		if (conceptIndex != -1)
-		{
-			charOffset = conceptIndex;
-			sentenceTagged = sentenceTagged.substring(0,charOffset) + tag + sentenceTagged.substring(charOffset+umlsConcept.length());
-			lastOffset = charOffset + tag.length();
-		}
-		else
-			return null;
-		
-		
-		//replacing negation phrases with corresponding tags
-		
-		//negation phrases
-		if (regexPseudo != null){
-			Matcher m0 = regexPseudo.matcher(sentenceTagged);
-			sentenceTagged = m0.replaceAll(" <NEG_PSEUDO> ");
-		}
-		if (regexNegPre != null){
-			Matcher m1 = regexNegPre.matcher(sentenceTagged);
-			sentenceTagged = m1.replaceAll(" <NEG_PRE> ");
-		}
-		if (regexPossPre != null){
-			Matcher m2 = regexPossPre.matcher(sentenceTagged);
-			sentenceTagged = m2.replaceAll(" <POSS_PRE> ");
-		}
-		if (regexNegPost != null){
-			Matcher m3 = regexNegPost.matcher(sentenceTagged);
-			sentenceTagged = m3.replaceAll(" <NEG_POST> ");
-		}
-		if (regexPossPost != null){
-			Matcher m4 = regexPossPost.matcher(sentenceTagged);
-			sentenceTagged = m4.replaceAll(" <POSS_POST> ");
-		}
-		if (regexNegEnd != null){
-			Matcher m5 = regexNegEnd.matcher(sentenceTagged);
-			sentenceTagged = m5.replaceAll(" <NEG_END> ");
-		}
-		
-		//experiencer phrases
-		if (regexExpPre != null){
-			Matcher m6 = regexExpPre.matcher(sentenceTagged);
-			sentenceTagged = m6.replaceAll(" <EXP_PRE> ");
-		}
-		if (regexExpEnd != null){
-			Matcher m14 = regexExpEnd.matcher(sentenceTagged);
-			sentenceTagged = m14.replaceAll(" <EXP_END> ");
-		}
-		
-		//hypothesis
-		if (regexHypoPre != null){
-			Matcher m7 = regexHypoPre.matcher(sentenceTagged);
-			sentenceTagged = m7.replaceAll(" <HYPO_PRE> ");
-		}
-		if (regexHypoEnd != null){
-			Matcher m10 = regexHypoEnd.matcher(sentenceTagged);
-			sentenceTagged = m10.replaceAll(" <HYPO_END> ");
-		}
-		
-		//temporality
-		if (regexHistPre != null){
-			Matcher m8 = regexHistPre.matcher(sentenceTagged);
-			sentenceTagged = m8.replaceAll(" <HIST_PRE> ");
-		}
-		if (regexHist1w != null){
-			Matcher m9 = regexHist1w.matcher(sentenceTagged);
-			sentenceTagged = m9.replaceAll(" <HIST_1W> ");
-		}
-		if (regexHistEnd != null){
-			Matcher m12 = regexHistEnd.matcher(sentenceTagged);
-			sentenceTagged = m12.replaceAll(" <HIST_END> ");
-		}
-		
-		// mixed
-		if (regexHypoExpEnd != null){
-			Matcher m11 = regexHypoExpEnd.matcher(sentenceTagged);
-			sentenceTagged = m11.replaceAll(" <HYPO_EXP_END> ");
-		}
-		if (regexHistExpEnd != null){
-			Matcher m13 = regexHistExpEnd.matcher(sentenceTagged);
-			sentenceTagged = m13.replaceAll(" <HIST_EXP_END> ");
-		}
-		
-		//time 
-		regexTime = Pattern.compile("((1[4-9]|[1-9]?[2-9][0-9])( |-)(jour|jours))|" +
-				"(([2-9]|[1-9][0-9])( |-)(semaine|semaines))|" +
-				"(([1-9]?[0-9])( |-)(mois|an|ans|année|années))");//pattern to recognize expressions of >14 days
-		regexTimeFor = Pattern.compile("(pour|pendant) (le|la|les) (dernier|dernière|dernières|derniers) (((1[4-9]|[1-9]?[2-9][0-9])( |-)[jour|jours] de)|" +
-				"(([2-9]|[1-9][0-9])( |-)(semaine|semaines) de)|" +
-				"(([1-9]?[0-9])( |-)(mois|an|ans|année|années) de))");//other pattern to recognize expressions of >14 days
-		regexTimeSince = Pattern.compile("(depuis|y a|ya)( le dernier| la dernière| les derniers| les dernières)? ((([2-9]|[1-9][0-9]) semaines)|" +
-				"(([1-9]?[0-9])? (mois|an|ans|année|années)))|" +
-				"((janvier|février|mars|avril|mai|juin|juillet|aout|août|septembre|octobre|novembre|décembre|decembre|printemps|été|hiver|automne))");
-		Matcher mTime = regexTimeFor.matcher(sentenceTagged);
-		sentenceTagged = mTime.replaceAll(" <TIME_PRE> ");
-		mTime = regexTime.matcher(sentenceTagged);
-		sentenceTagged = mTime.replaceAll(" <TIME_PRE> ");
-		mTime = regexTimeSince.matcher(sentenceTagged);
-		sentenceTagged = mTime.replaceAll(" <TIME_POST> ");
-		
-		return sentenceTagged;
+		this(triggerTagger, ContextScopes.ALL);
 	}
 	
 	/**
-	 * Context analysis on the given sentence.
-	 * @param concept concept in the sentence
-	 * @param sentence Sentence to analyze
+	 * Initialization for some context dimensions only (e.g. negation): the sentences are tagged as in the
+	 * full analysis (all the trigger terms and time expressions, in the same scan), but the scopes of the
+	 * other dimensions are not analyzed and the results keep the default value (Affirmed, Recent, Patient)
+	 * for them. The analyzed dimensions get the same results as the full analysis.
+	 * @param dimensions Dimensions to analyze
 	 */
-	@Override
-	public ArrayList<String> applyContext(String concept, String sentence) throws Exception
+	public ConTextFrench(Set<ContextDimension> dimensions)
 	{
-		if(concept.equals("") || sentence.equals(""))
-			return null;
-		
-		String tagged = preProcessSentence(sentence, concept);
-		
-		if(tagged==null)
-			return null;
-		
-		//tokenizing the sentence in words
-		String[] words =  tagged.split("[(),;\\s]+");
-		
-		String ne = applyNegEx(words);
-		String tmp = applyTemporality(words);
-		String subj = applyExperiencer(words);
-		
-		ArrayList result = new ArrayList();
-		result.add(concept); result.add(sentence);
-		result.add(ne);result.add(tmp);result.add(subj);
-		
-		return result;
+		this(TRIGGERS, dimensions);
 	}
 	
 	/**
-	 * Apply NegEx algorithm to find negation context of the concepts found in the sentence
-	 * @return
+	 * Initialization with another compiled trigger lexicon, for some context dimensions only
+	 * @param triggerTagger Trigger lexicon (can be shared by several instances)
+	 * @param dimensions Dimensions to analyze
 	 */
-	@Override
-	public String applyNegEx(String[] words) throws Exception
+	public ConTextFrench(TriggerTagger triggerTagger, Set<ContextDimension> dimensions)
 	{
-		//Going from one negation to another, and creating the appropriate window
-		int m = 0;
-		List<String> window = new ArrayList<String>();
-		
-		//for each word in the sentence
-		while (m < words.length)
-		{
-			//IF word is a pseudo-negation, skips to the next word
-			if(words[m].equals("<NEG_PSEUDO>"))
-			{
-				m++;
-			}
-			//IF word is a pre- concept negation or possible...
-			else if(words[m].matches("<NEG_PRE>|<PREP>"))
-			{
-				//find window (default is six words after the negation phrase)
-				int maxWindow = MAX_WINDOW;
-				if (words.length < m + maxWindow) maxWindow = words.length - m;
-				for(int o=1; o < maxWindow; o++)
-				{
-					if(words[m+o].matches("<NEG_PRE>|<PREP>|<NEG_POST>|<POSS_POST>|<NEG_END>"))
-						break;
-					else window.add(words[m+o]);
-				}
-				
-				//get type of Negation
-				NegationContext currentNegationContext = NegationContext.Affirmed;
-				if (words[m].equals("<NEG_PRE>")) {
-					currentNegationContext = NegationContext.Negated;
-				}
-				else if(words[m].equals("<POSS_PRE>")) 
-					currentNegationContext = NegationContext.Possible;
-				
-				//check if there are concepts in the window
-				for(int w=0; w<window.size(); w++) {
-					if(window.get(w).matches(regExUmlsTag)){
-						String umlsWord = window.get(w);
-						//int index = Integer.parseInt(umlsWord.replaceAll("\\[|\\]",""));
-						//mappingResults.get(index).setNegationContext(currentNegationContext.name());
-						return currentNegationContext.name();
-					}
-				}
-				window.clear();
-				m++;
-			}
-			//IF word a post- concept negation or possible
-			else if(words[m].matches("<NEG_POST>|<POSS_POST>"))
-			{
-				//find window (default is six words before the negation phrase)
-				int maxWindow = MAX_WINDOW;
-				if (m < maxWindow) maxWindow = m;
-				for(int o=1; o < maxWindow; o++) {
-					if(words[m-o].matches("<NEG_PRE>|<POSS_PRE>|<NEG_POST>|<POSS_POST>|<NEG_END>"))
-						break;
-					else
-						window.add(words[m-o]);
-				}
-				
-				//get type of Negation
-				NegationContext currentNegationContext = NegationContext.Affirmed;
-				if (words[m].equals("<NEG_POST>")){
-					currentNegationContext = NegationContext.Negated;
-				}
-				else if(words[m].equals("<POSS_POST>")) 
-					currentNegationContext = NegationContext.Possible;
-					
-				//check if there are concepts in the window
-				for(int w=0; w<window.size(); w++) {
-					if(window.get(w).matches(regExUmlsTag)){
-						String umlsWord = window.get(w);
-						//int index = Integer.parseInt(umlsWord.replaceAll("\\[|\\]",""));
-						//mappingResults.get(index).setNegationContext(currentNegationContext.name());
-						return currentNegationContext.name();
-					}
-				}
-				window.clear();
-				m++;
-			}
-			//IF word not a negation or conjunction skip
-			else{
-				m++;
-			}
-		}
-		return NegationContext.Affirmed.name();
+		this(new AtomicReference<TriggerTagger>(triggerTagger), dimensions);
 	}
 	
 	/**
-	 * Temporality analysis
-	 * @return
+	 * Initialization with a reloadable trigger lexicon (e.g. {@link LexiconWatcher#getTriggers()}): the
+	 * engines sharing the reference use the lexicon set in it by the time of each call
+	 * @param triggerTagger Reference to the trigger lexicon (its lexicons must all fold accents or none)
+	 * @param dimensions Dimensions to analyze
 	 */
-	@Override
-	public String applyTemporality(String[] words) throws Exception
+	public ConTextFrench(AtomicReference<TriggerTagger> triggerTagger, Set<ContextDimension> dimensions)
 	{
-
-		List<String> window = new ArrayList<String>();
-		
-		
-	
-		//Going from one temporality term to another, and creating the appropriate window
-		int mm = 0;
-		while(mm<words.length)
-		{
-			//IF word is a pseudo-negation, skips to the next word
-			if(words[mm].equals("<NEG_PSEUDO>")) mm++;
-	
-			//IF word is a pre- hypothetical trigger term
-			else if(words[mm].equals("<HYPO_PRE>")){
-
-				//expands window until end of sentence, termination term, or other negation/possible trigger term
-				for(int o=1; (mm+o)<words.length; o++) {
-					if(words[mm+o].equals("<HYPO_END>|<HYPO_EXP_END>|<HYPO_PRE>")) {
-						break;//window decreased to right before other negation or conjunction
-					}
-					else 
-						window.add(words[mm+o]);
-				}
-				//check if there are concepts in the window
-				for(int w=0; w<window.size(); w++) {
-					if(window.get(w).matches(regExUmlsTag)){
-						String umlsWord = window.get(w);
-						//int index = Integer.parseInt(umlsWord.replaceAll("\\[|\\]",""));
-						//mappingResults.get(index).setTemporalContext(TemporalityContext.Hypothetical.name());
-						return TemporalityContext.Hypothetical.name();
-					}
-				}
-				window.clear();
-				mm++;
-			}
-			//IF word a pre- historical trigger term
-			else if(words[mm].matches("<HIST_PRE>|<TIME_PRE>")){
-
-				//expands window until end of sentence, termination term, or other negation/possible trigger term
-				for(int o=1; (mm+o)<words.length; o++) {
-					if(words[mm+o].matches("<HIST_END>|<HIST_EXP_END>|<HIST_PRE>|<HIST_1W>")) {
-						break;//window decreased to right after other negation or conjunction
-					}
-					else window.add(words[mm+o]);
-				}
-				//check if there are concepts in the window
-				for(int w=0; w<window.size(); w++) {
-					if(window.get(w).matches(regExUmlsTag)){
-						String umlsWord = window.get(w);
-						//int index = Integer.parseInt(umlsWord.replaceAll("\\[|\\]",""));
-						//mappingResults.get(index).setTemporalContext(TemporalityContext.Historical.name());
-						return TemporalityContext.Historical.name();
-					}
-				}
-				window.clear();
-				mm++;
-			}
-			//IF word a post- historical trigger term
-			else if(words[mm].equals("<TIME_POST>")){
-
-				//expands window until end of sentence, termination term, or other negation/possible trigger term
-				for(int o=1; (mm-o)>=0; o++) {
-					if(words[mm-o].matches("<HIST_END>|<HIST_EXP_END>|<HIST_PRE>|<HIST_1W>")) {
-						break;//window decreased to right after other negation or conjunction
-					}
-					else window.add(words[mm-o]);
-				}
-				//check if there are concepts in the window
-				for(int w=0; w<window.size(); w++) {
-					if(window.get(w).matches(regExUmlsTag)){
-						String umlsWord = window.get(w);
-						//int index = Integer.parseInt(umlsWord.replaceAll("\\[|\\]",""));
-						//mappingResults.get(index).setTemporalContext(TemporalityContext.Historical.name());
-						return TemporalityContext.Historical.name();
-					}
-				}
-				window.clear();
-				mm++;
-			}
-			else mm++;
-		}
-		return TemporalityContext.Recent.name();
+		super(triggerTagger, dimensions, triggerTagger.get().isFoldingAccents() ? FOLDED_TIME_SCANNER : TIME_SCANNER, Tokenizer.FRENCH);
 	}
 	
 	/**
-	 * Experiencer analysis
-	 * @return
+	 * @param foldAccents Accent-insensitive lexicon: the engines using it match the sentences, concepts,
+	 * trigger terms and time expressions without their accents ("decembre" matches "décembre"; a
+	 * {@link ConceptDictionary} keeps its own matching)
+	 * @return The compiled French trigger lexicon (shared by the engines)
 	 */
-	@Override
-	public String applyExperiencer(String[] words) throws Exception
+	public static TriggerTagger triggers(boolean foldAccents)
 	{
-		List<String> window = new ArrayList<String>();
-		
-		//Going from one experiencer term to another, and creating the appropriate window
-		int mm = 0;
-		while(mm<words.length){
-			//IF word is a pseudo-negation, skips to the next word
-			if(words[mm].equals("<NEG_PSEUDO>")) mm++;
+		return foldAccents ? FoldedTriggers.TRIGGERS : TRIGGERS;
+	}
 	
-			//IF word is a pre- experiencer trigger term
-			else if(words[mm].equals("<EXP_PRE>"))
-			{
-				//expands window until end of sentence, termination term, or other negation/possible trigger term
-				for(int o=1; (mm+o)<words.length; o++) {
-					if(words[mm+o].equals("<EXP_END>|<HIST_EXP_END>|<HYPO_EXP_END>|<EXP_PRE>")) {
-						break;//window decreased to right before other negation or conjunction
-					}
-					else window.add(words[mm+o]);
-				}
-				for(int w=0; w<window.size(); w++) {
-					if(window.get(w).matches(regExUmlsTag)){
-						String umlsWord = window.get(w); 
-						//int index = Integer.parseInt(umlsWord.replaceAll("\\[|\\]",""));
-						//mappingResults.get(index).setIsExperiencer(false);
-						return "Other";
-					}
-				}
-				window.clear();
-				mm++;
-			}
-			else mm++;
-		}
-		return "Patient";
+	/**
+	 * @param foldAccents Accent-insensitive lexicon
+	 * @return Name in the classpath of the compiled French trigger lexicon (written at build time by
+	 * {@link org.context.app.LexiconCompiler}, compiled on load if it is missing or out of date)
+	 */
+	public static String snapshot(boolean foldAccents)
+	{
+		return foldAccents ? "org/context/implementation/french-folded.ctx" : "org/context/implementation/french.ctx";
 	}
 	
-
+	//loaded on first use
+	private static class FoldedTriggers
+	{
+		static final TriggerTagger TRIGGERS = TriggerTagger.builtIn(snapshot(true), regexes, true);
+	}
 }
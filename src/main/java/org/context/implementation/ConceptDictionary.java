@@ -0,0 +1,385 @@
+package org.context.implementation;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * Dictionary of concept terms (e.g. a UMLS or SNOMED CT export), compiled in a single Aho-Corasick
+ * automaton: all the concept mentions of a sentence are found in one left-to-right scan, whatever the
+ * size of the dictionary.
+ *
+ * Terms are matched case-insensitively, any run of whitespace matches a space, and a mention cannot
+ * start or end inside a word. Overlapping mentions are resolved leftmost first, then longest first.
+ *
+ * The automaton is stored in flat arrays (nodes in breadth-first order, edges sorted by character),
+ * so a dictionary of several hundred thousand terms stays compact. A dictionary is immutable and can
+ * be shared by several threads.
+ */
+public final class ConceptDictionary {
+
+	//automaton (nodes in breadth-first order, the root is 0)
+	private final int[] edgeStart;
+	private final char[] edgeChar;
+	private final int[] edgeTarget;
+	private final int[] fail;
+	private final int[] outLink;
+	private final int[] nodeTerm;
+
+	//terms (normalized), their identifiers and the terms as written in the dictionary
+	private final String[] terms;
+	private final String[] ids;
+	private final String[] labels;
+	private final int mask;
+
+
+	/**
+	 * Compiles a dictionary. When a term is given several times, the first identifier is kept.
+	 * @param terms Concept terms
+	 * @param ids Identifier of each term (same index), null to use the terms
+	 */
+	public ConceptDictionary(List<String> terms, List<String> ids)
+	{
+		//normalized terms, sorted (the children of a node are then contiguous and in character order)
+		TreeMap<String,Integer> sorted = new TreeMap<String,Integer>();
+		for (int i=0; i < terms.size(); i++)
+		{
+			String term = normalize(terms.get(i));
+			if (term.length() > 0 && !sorted.containsKey(term))
+				sorted.put(term, i);
+		}
+		this.terms = new String[sorted.size()];
+		this.ids = new String[sorted.size()];
+		this.labels = new String[sorted.size()];
+		int t = 0, maxLength = 1;
+		for (Map.Entry<String,Integer> entry : sorted.entrySet())
+		{
+			this.terms[t] = entry.getKey();
+			this.labels[t] = terms.get(entry.getValue()).trim();
+			this.ids[t] = ids == null ? this.labels[t] : ids.get(entry.getValue());
+			maxLength = Math.max(maxLength, entry.getKey().length());
+			t++;
+		}
+		mask = Integer.highestOneBit(maxLength * 2 - 1) - 1;
+
+		//trie built breadth-first: each node is the range of the sorted terms sharing its prefix
+		int capacity = 16;
+		int[] rangeStart = new int[capacity];
+		int[] rangeEnd = new int[capacity];
+		int[] depth = new int[capacity];
+		int[] starts = new int[capacity+1];
+		int[] term = new int[capacity];
+		char[] chars = new char[capacity];
+		int[] targets = new int[capacity];
+		rangeEnd[0] = this.terms.length;
+		int size = 1, edges = 0;
+		for (int n=0; n < size; n++)
+		{
+			int lo = rangeStart[n], hi = rangeEnd[n], d = depth[n];
+			term[n] = -1;
+			if (lo < hi && this.terms[lo].length() == d)
+				term[n] = lo++;
+			starts[n] = edges;
+			while (lo < hi)
+			{
+				char c = this.terms[lo].charAt(d);
+				int j = lo + 1;
+				while (j < hi && this.terms[j].charAt(d) == c)
+					j++;
+				if (size == rangeStart.length)
+				{
+					capacity = size * 2;
+					rangeStart = Arrays.copyOf(rangeStart, capacity);
+					rangeEnd = Arrays.copyOf(rangeEnd, capacity);
+					depth = Arrays.copyOf(depth, capacity);
+					starts = Arrays.copyOf(starts, capacity+1);
+					term = Arrays.copyOf(term, capacity);
+					chars = Arrays.copyOf(chars, capacity);
+					targets = Arrays.copyOf(targets, capacity);
+				}
+				rangeStart[size] = lo;
+				rangeEnd[size] = j;
+				depth[size] = d + 1;
+				chars[edges] = c;
+				targets[edges++] = size++;
+				lo = j;
+			}
+		}
+		starts[size] = edges;
+		edgeStart = Arrays.copyOf(starts, size+1);
+		edgeChar = Arrays.copyOf(chars, edges);
+		edgeTarget = Arrays.copyOf(targets, edges);
+		nodeTerm = Arrays.copyOf(term, size);
+
+		//failure and output links (parents are always before their children)
+		fail = new int[size];
+		outLink = new int[size];
+		for (int n=0; n < size; n++)
+		{
+			for (int x=edgeStart[n]; x < edgeStart[n+1]; x++)
+			{
+				int child = edgeTarget[x];
+				int f = 0;
+				if (n != 0)
+				{
+					f = fail[n];
+					while (f != 0 && child(f, edgeChar[x]) < 0)
+						f = fail[f];
+					if (child(f, edgeChar[x]) >= 0)
+						f = child(f, edgeChar[x]);
+				}
+				fail[child] = f;
+				outLink[child] = nodeTerm[f] >= 0 ? f : outLink[f];
+			}
+		}
+	}
+
+	/**
+	 * Loads a dictionary file (UTF-8, one term per line: "term[TAB]identifier[TAB]...", the identifier
+	 * and the following columns are optional, lines starting with '#' are ignored)
+	 * @param path Dictionary file
+	 * @throws IOException
+	 */
+	public static ConceptDictionary load(String path) throws IOException
+	{
+		try (Reader reader = new InputStreamReader(new FileInputStream(path), "UTF-8"))
+		{
+			return load(reader);
+		}
+	}
+
+	/**
+	 * Loads a dictionary in the format of {@link #load(String)}
+	 * @param reader Dictionary content
+	 * @throws IOException
+	 */
+	public static ConceptDictionary load(Reader reader) throws IOException
+	{
+		BufferedReader lines = new BufferedReader(reader);
+		List<String> terms = new ArrayList<String>();
+		List<String> ids = new ArrayList<String>();
+		String line;
+		while ((line = lines.readLine()) != null)
+		{
+			if (line.length() == 0 || line.charAt(0) == '#')
+				continue;
+			int tab = line.indexOf('\t');
+			if (tab == -1)
+			{
+				terms.add(line);
+				ids.add(line.trim());
+			}
+			else
+			{
+				int tab2 = line.indexOf('\t', tab + 1);
+				terms.add(line.substring(0, tab));
+				ids.add(line.substring(tab + 1, tab2 == -1 ? line.length() : tab2).trim());
+			}
+		}
+		return new ConceptDictionary(terms, ids);
+	}
+
+	/**
+	 * @return Number of distinct terms
+	 */
+	public int size()
+	{
+		return terms.length;
+	}
+
+	/**
+	 * @param term Index of a term (as given to a {@link ContextResultSink})
+	 * @return The term, as written in the dictionary
+	 */
+	public String getConcept(int term)
+	{
+		return labels[term];
+	}
+
+	/**
+	 * @param term Index of a term (as given to a {@link ContextResultSink})
+	 * @return Identifier of the term
+	 */
+	public String getConceptId(int term)
+	{
+		return ids[term];
+	}
+
+	/**
+	 * Finds the concept mentions of a sentence
+	 * @param sentence Sentence (as written: the offsets of the mentions refer to it)
+	 * @return Mentions, in sentence order (they do not overlap)
+	 */
+	public List<ConceptMention> find(String sentence)
+	{
+		int[] found = scan(sentence);
+		List<ConceptMention> mentions = new ArrayList<ConceptMention>(found.length / 3);
+		for (int m=0; m < found.length; m += 3)
+			mentions.add(new ConceptMention(found[m], found[m+1], labels[found[m+2]], ids[found[m+2]]));
+		return mentions;
+	}
+
+	/**
+	 * Finds the concept mentions of a sentence, without creating mention objects
+	 * @return Start, end and term index of each mention, in sentence order
+	 */
+	int[] scan(String sentence)
+	{
+		int n = sentence.length();
+
+		//longest term starting at each offset, found in a single scan
+		int[] longest = null;
+		int[] offsets = new int[mask + 1];
+		int fed = 0;
+		boolean space = false;
+		int state = 0;
+		for (int i=0; i < n; i++)
+		{
+			char c = sentence.charAt(i);
+			if (TriggerTagger.isSpace(c))
+			{
+				if (space)
+					continue;
+				space = true;
+				c = ' ';
+			}
+			else
+			{
+				space = false;
+				c = Character.toLowerCase(c);
+			}
+			offsets[fed++ & mask] = i;
+			state = next(state, c);
+
+			int node = nodeTerm[state] >= 0 ? state : outLink[state];
+			while (node != 0)
+			{
+				int t = nodeTerm[node];
+				int start = offsets[(fed - terms[t].length()) & mask];
+				if (isBoundary(sentence, start) && isBoundary(sentence, i + 1))
+				{
+					//the mentions are found by increasing end: the last one is the longest
+					if (longest == null)
+						longest = new int[n];
+					longest[start] = t + 1;
+				}
+				node = outLink[node];
+			}
+		}
+		if (longest == null)
+			return new int[0];
+
+		int[] mentions = new int[24];
+		int count = 0;
+		int last = 0;
+		for (int start=0; start < n; start++)
+		{
+			if (longest[start] == 0 || start < last)
+				continue;
+			int t = longest[start] - 1;
+			last = end(sentence, start, terms[t].length());
+			if (count + 3 > mentions.length)
+				mentions = Arrays.copyOf(mentions, mentions.length * 2);
+			mentions[count++] = start;
+			mentions[count++] = last;
+			mentions[count++] = t;
+		}
+		return Arrays.copyOf(mentions, count);
+	}
+
+	/**
+	 * @return End of the mention starting at start, given the length of its normalized term
+	 */
+	private static int end(String sentence, int start, int length)
+	{
+		int i = start;
+		boolean space = false;
+		while (length > 0)
+		{
+			if (TriggerTagger.isSpace(sentence.charAt(i)))
+			{
+				if (!space)
+					length--;
+				space = true;
+			}
+			else
+			{
+				length--;
+				space = false;
+			}
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Normalizes a term: lower case, single spaces, no leading or trailing spaces
+	 */
+	static String normalize(String term)
+	{
+		StringBuilder normalized = new StringBuilder(term.length());
+		boolean space = true;
+		for (int i=0; i < term.length(); i++)
+		{
+			char c = term.charAt(i);
+			if (TriggerTagger.isSpace(c))
+			{
+				if (!space)
+					normalized.append(' ');
+				space = true;
+			}
+			else
+			{
+				normalized.append(Character.toLowerCase(c));
+				space = false;
+			}
+		}
+		if (space && normalized.length() > 0)
+			normalized.setLength(normalized.length() - 1);
+		return normalized.toString();
+	}
+
+	//a mention cannot start or end between two letters or digits
+	private static boolean isBoundary(String sentence, int i)
+	{
+		return i == 0 || i == sentence.length()
+			|| !Character.isLetterOrDigit(sentence.charAt(i-1)) || !Character.isLetterOrDigit(sentence.charAt(i));
+	}
+
+	private int next(int state, char c)
+	{
+		while (true)
+		{
+			int target = child(state, c);
+			if (target >= 0)
+				return target;
+			if (state == 0)
+				return 0;
+			state = fail[state];
+		}
+	}
+
+	private int child(int node, char c)
+	{
+		int lo = edgeStart[node], hi = edgeStart[node+1] - 1;
+		while (lo <= hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			if (edgeChar[mid] < c)
+				lo = mid + 1;
+			else if (edgeChar[mid] > c)
+				hi = mid - 1;
+			else
+				return edgeTarget[mid];
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,92 @@
+package org.context.implementation;
+
+import java.util.ArrayList;
+
+
+/**
+ * A concept found in a sentence, with its character offsets and (once analyzed) its context
+ */
+public class ConceptMention {
+
+	private final int start;
+	private final int end;
+	private final String concept;
+	private final String conceptId;
+	private ContextResult result;
+
+
+	/**
+	 * @param start Offset of the first character of the mention in the sentence
+	 * @param end Offset after the last character of the mention
+	 * @param concept Concept term (as written in the dictionary or given by the caller)
+	 * @param conceptId Identifier of the concept (e.g. UMLS CUI), the term itself if there is none
+	 */
+	public ConceptMention(int start, int end, String concept, String conceptId)
+	{
+		this.start = start;
+		this.end = end;
+		this.concept = concept;
+		this.conceptId = conceptId;
+	}
+
+	/**
+	 * @return Offset of the first character of the mention in the sentence
+	 */
+	public int getStart()
+	{
+		return start;
+	}
+
+	/**
+	 * @return Offset after the last character of the mention
+	 */
+	public int getEnd()
+	{
+		return end;
+	}
+
+	/**
+	 * @return Concept term
+	 */
+	public String getConcept()
+	{
+		return concept;
+	}
+
+	/**
+	 * @return Identifier of the concept
+	 */
+	public String getConceptId()
+	{
+		return conceptId;
+	}
+
+	/**
+	 * @return Context of the mention (concept, sentence, negation, temporality, experiencer),
+	 * null if it was not analyzed
+	 */
+	public ArrayList<String> getContext()
+	{
+		return result == null ? null : result.toList();
+	}
+
+	/**
+	 * @return Context of the mention, null if it was not analyzed
+	 */
+	public ContextResult getResult()
+	{
+		return result;
+	}
+
+	void setResult(ContextResult result)
+	{
+		this.result = result;
+	}
+
+	@Override
+	public String toString()
+	{
+		return concept + "[" + start + "," + end + "]" + (result == null ? "" : ": " + result.getNegation() + ", "
+			+ result.getTemporality() + ", " + result.getExperiencer());
+	}
+}
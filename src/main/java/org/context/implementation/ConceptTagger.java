@@ -0,0 +1,218 @@
+package org.context.implementation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+
+/**
+ * Replaces the target concepts of a sentence by their indexed tags ([0], [1], ...)
+ */
+final class ConceptTagger {
+
+	//normalization buffers of the sentence and of the concepts (one per thread), with and without accents
+	private static final ThreadLocal<TextNormalizer> SENTENCE = normalizer(false);
+	private static final ThreadLocal<TextNormalizer> CONCEPT = normalizer(false);
+	private static final ThreadLocal<TextNormalizer> FOLDED_SENTENCE = normalizer(true);
+	private static final ThreadLocal<TextNormalizer> FOLDED_CONCEPT = normalizer(true);
+
+	private ConceptTagger()
+	{
+	}
+
+	/**
+	 * Normalizes the sentence (lower case, single spaces, preceded by a space) and tags the first occurrence
+	 * of the concept
+	 * @param sent Sentence
+	 * @param concept Concept, tagged [0]
+	 * @param foldAccents Remove the accents of the sentence and of the concept
+	 * @return Tagged sentence, null if the concept was not found
+	 */
+	static String tag(String sent, String concept, boolean foldAccents)
+	{
+		TextNormalizer sentence = normalize(sent, foldAccents);
+		TextNormalizer umlsConcept = (foldAccents ? FOLDED_CONCEPT : CONCEPT).get().normalize(concept);
+		int conceptIndex = sentence.indexOf(umlsConcept, 0);
+		if (conceptIndex == -1)
+			return null;
+
+		int end = conceptIndex + umlsConcept.length();
+		StringBuilder tagged = new StringBuilder(sentence.length() + 5);
+		tagged.append(sentence.chars(), 0, conceptIndex).append(" [0] ").append(sentence.chars(), end, sentence.length() - end);
+		return tagged.toString();
+	}
+
+	/**
+	 * Normalizes the sentence (lower case, single spaces, preceded by a space) and tags the first occurrence
+	 * of each concept. A concept cannot overlap a concept that comes before it in the list: the next
+	 * occurrence is used instead.
+	 * @param sent Sentence
+	 * @param concepts Concepts, tagged with their index in the list
+	 * @param foldAccents Remove the accents of the sentence and of the concepts
+	 * @return Tagged sentence, null if no concept was found
+	 */
+	static String tag(CharSequence sent, List<String> concepts, boolean foldAccents)
+	{
+		TextNormalizer sentence = normalize(sent, foldAccents);
+		TextNormalizer umlsConcept = (foldAccents ? FOLDED_CONCEPT : CONCEPT).get();
+		int[] starts = new int[concepts.size()];
+		int[] ends = new int[concepts.size()];
+		int found = 0;
+
+		for (int i=0; i < concepts.size(); i++)
+		{
+			starts[i] = -1;
+			umlsConcept.normalize(concepts.get(i));
+			if (umlsConcept.length() == 0)
+				continue;
+			int conceptIndex = sentence.indexOf(umlsConcept, 0);
+			while (conceptIndex != -1 && overlaps(starts, ends, i, conceptIndex, conceptIndex + umlsConcept.length()))
+				conceptIndex = sentence.indexOf(umlsConcept, conceptIndex + 1);
+			if (conceptIndex != -1)
+			{
+				starts[i] = conceptIndex;
+				ends[i] = conceptIndex + umlsConcept.length();
+				found++;
+			}
+		}
+		if (found == 0)
+			return null;
+
+		//replacing the concepts from left to right
+		char[] chars = sentence.chars();
+		StringBuilder tagged = new StringBuilder(sentence.length() + 5 * found);
+		int last = 0;
+		while (found-- > 0)
+		{
+			int next = -1;
+			for (int i=0; i < starts.length; i++)
+				if (starts[i] >= last && (next == -1 || starts[i] < starts[next]))
+					next = i;
+			tagged.append(chars, last, starts[next] - last).append(" [").append(next).append("] ");
+			last = ends[next];
+		}
+		tagged.append(chars, last, sentence.length() - last);
+		return tagged.toString();
+	}
+
+	/**
+	 * Finds every occurrence of the concepts, in the sentence normalized as tag does (so both find the same
+	 * first occurrences). An occurrence cannot overlap an occurrence of a concept that comes before it in
+	 * the list, nor a previous occurrence of the same concept.
+	 * @param sent Sentence, as written (the offsets of the mentions refer to it)
+	 * @param concepts Concepts
+	 * @param foldAccents Remove the accents of the sentence and of the concepts
+	 * @return Start, end and concept index of each mention, in sentence order
+	 */
+	static int[] findAll(String sent, List<String> concepts, boolean foldAccents)
+	{
+		//normalized sentence and offset of each character in the sentence
+		TextNormalizer sentence = normalize(sent, foldAccents);
+		TextNormalizer umlsConcept = (foldAccents ? FOLDED_CONCEPT : CONCEPT).get();
+
+		List<int[]> found = new ArrayList<int[]>();
+		for (int i=0; i < concepts.size(); i++)
+		{
+			umlsConcept.normalize(concepts.get(i));
+			if (umlsConcept.length() == 0)
+				continue;
+			int conceptIndex = sentence.indexOf(umlsConcept, 0);
+			while (conceptIndex != -1)
+			{
+				int end = conceptIndex + umlsConcept.length();
+				if (overlaps(found, conceptIndex, end))
+					conceptIndex = sentence.indexOf(umlsConcept, conceptIndex + 1);
+				else
+				{
+					found.add(new int[]{conceptIndex, end, i});
+					conceptIndex = sentence.indexOf(umlsConcept, end);
+				}
+			}
+		}
+		Collections.sort(found, new Comparator<int[]>() {
+			public int compare(int[] a, int[] b)
+			{
+				return a[0] - b[0];
+			}
+		});
+
+		int[] mentions = new int[3 * found.size()];
+		int m = 0;
+		for (int[] occurrence : found)
+		{
+			mentions[m++] = offset(sentence, occurrence[0]);
+			mentions[m++] = occurrence[1] == 1 ? 0 : offset(sentence, occurrence[1]-1) + 1;
+			mentions[m++] = occurrence[2];
+		}
+		return mentions;
+	}
+
+	/**
+	 * Tags the given mentions (normalizes the sentence as the pre-processing does)
+	 * @param sent Sentence, as written
+	 * @param mentions Start, end and concept of the mentions of the sentence (sorted, not overlapping),
+	 * each mention is tagged with its index
+	 * @param foldAccents Remove the accents of the sentence
+	 * @return Tagged sentence
+	 */
+	static String tagMentions(String sent, int[] mentions, boolean foldAccents)
+	{
+		TextNormalizer tagged = (foldAccents ? FOLDED_SENTENCE : SENTENCE).get().clear().append(' ');
+		int last = 0;
+		for (int m=0; 3*m < mentions.length; m++)
+		{
+			tagged.append(sent, last, mentions[3*m]).append(' ').append('[');
+			appendIndex(tagged, m);
+			tagged.append(']').append(' ');
+			last = mentions[3*m+1];
+		}
+		return tagged.append(sent, last, sent.length()).toString();
+	}
+
+	//lower case, single spaces, preceded by a space (as the pre-processing does)
+	private static TextNormalizer normalize(CharSequence sent, boolean foldAccents)
+	{
+		return (foldAccents ? FOLDED_SENTENCE : SENTENCE).get().clear().append(' ').append(sent, 0, sent.length());
+	}
+
+	//offset in the sentence of a normalized character (the space added before the sentence is at 0)
+	private static int offset(TextNormalizer sentence, int i)
+	{
+		return i == 0 ? 0 : sentence.offset(i);
+	}
+
+	private static void appendIndex(TextNormalizer tagged, int index)
+	{
+		if (index >= 10)
+			appendIndex(tagged, index / 10);
+		tagged.append((char) ('0' + index % 10));
+	}
+
+	private static ThreadLocal<TextNormalizer> normalizer(final boolean foldAccents)
+	{
+		return new ThreadLocal<TextNormalizer>() {
+			@Override
+			protected TextNormalizer initialValue()
+			{
+				return new TextNormalizer(foldAccents);
+			}
+		};
+	}
+
+	private static boolean overlaps(List<int[]> found, int start, int end)
+	{
+		for (int[] occurrence : found)
+			if (start < occurrence[1] && occurrence[0] < end)
+				return true;
+		return false;
+	}
+
+	private static boolean overlaps(int[] starts, int[] ends, int count, int start, int end)
+	{
+		for (int i=0; i < count; i++)
+			if (starts[i] != -1 && start < ends[i] && starts[i] < end)
+				return true;
+		return false;
+	}
+}
@@ -0,0 +1,184 @@
+package org.context.implementation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Analyzes a batch of sentences on several cores: the batch is split in halves by fork/join tasks
+ * (work stealing balances the long and short sentences) down to a few sentences per task, which are
+ * analyzed by the shared engine. Each result is written at the index of its sentence, so the results
+ * are in input order whatever the order in which the sentences were analyzed.
+ *
+ * The engines can be shared by the threads: their lexicons are immutable and their buffers are
+ * per thread.
+ */
+public final class ContextBatch {
+
+	//sentences analyzed by a task without splitting it
+	private static final int THRESHOLD = 16;
+
+	private final AbstractConText context;
+	private final ForkJoinPool pool;
+
+
+	/**
+	 * Batch analysis on all the cores
+	 * @param context Engine (shared by the threads)
+	 */
+	public ContextBatch(AbstractConText context)
+	{
+		this(context, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param context Engine (shared by the threads)
+	 * @param parallelism Number of threads
+	 */
+	public ContextBatch(AbstractConText context, int parallelism)
+	{
+		this.context = context;
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * @return Number of threads
+	 */
+	public int getParallelism()
+	{
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Context analysis of the concepts of each sentence
+	 * @return For each item (same order), the context of each of its concepts (same order), null if the
+	 * concept is not in the sentence
+	 */
+	public List<List<ContextResult>> apply(List<Item> items) throws Exception
+	{
+		int[][] contexts = applyPacked(items);
+		List<List<ContextResult>> results = new ArrayList<List<ContextResult>>(items.size());
+		for (int i=0; i < contexts.length; i++)
+		{
+			Item item = items.get(i);
+			List<ContextResult> itemResults = new ArrayList<ContextResult>(contexts[i].length);
+			for (int c=0; c < contexts[i].length; c++)
+				itemResults.add(contexts[i][c] < 0 ? null : new ContextResult(item.concepts.get(c), item.sentence, contexts[i][c]));
+			results.add(itemResults);
+		}
+		return results;
+	}
+
+	/**
+	 * Same as apply(items), without any object created per result
+	 * @return For each item (same order), the packed context of each of its concepts (see
+	 * {@link ContextResult#pack()}), -1 if the concept is not in the sentence
+	 */
+	public int[][] applyPacked(List<Item> items) throws Exception
+	{
+		int[][] contexts = new int[items.size()][];
+		AtomicReference<Exception> failure = new AtomicReference<Exception>();
+		pool.invoke(new Task(items, contexts, 0, contexts.length, failure));
+		if (failure.get() != null)
+			throw failure.get();
+		return contexts;
+	}
+
+	/**
+	 * Stops the threads (once the batches in progress are finished)
+	 */
+	public void shutdown()
+	{
+		pool.shutdown();
+	}
+
+	/**
+	 * Sentence and the concepts to analyze in it
+	 */
+	public static final class Item {
+
+		private final String sentence;
+		private final List<String> concepts;
+
+		public Item(String sentence, List<String> concepts)
+		{
+			this.sentence = sentence;
+			this.concepts = Collections.unmodifiableList(new ArrayList<String>(concepts));
+		}
+
+		public Item(String sentence, String... concepts)
+		{
+			this(sentence, Arrays.asList(concepts));
+		}
+
+		public String getSentence()
+		{
+			return sentence;
+		}
+
+		public List<String> getConcepts()
+		{
+			return concepts;
+		}
+	}
+
+	//analyzes the items from..to-1, or splits them in two tasks
+	private class Task extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<Item> items;
+		private final int[][] contexts;
+		private final int from;
+		private final int to;
+		private final AtomicReference<Exception> failure;
+
+		Task(List<Item> items, int[][] contexts, int from, int to, AtomicReference<Exception> failure)
+		{
+			this.items = items;
+			this.contexts = contexts;
+			this.from = from;
+			this.to = to;
+			this.failure = failure;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (to - from > THRESHOLD)
+			{
+				int middle = (from + to) >>> 1;
+				invokeAll(new Task(items, contexts, from, middle, failure), new Task(items, contexts, middle, to, failure));
+				return;
+			}
+			for (int i=from; i < to && failure.get() == null; i++)
+			{
+				Item item = items.get(i);
+				final int[] itemContexts = new int[item.concepts.size()];
+				Arrays.fill(itemContexts, -1);
+				try
+				{
+					context.applyContext(item.concepts, item.sentence, new ContextResultSink()
+					{
+						@Override
+						public void accept(int concept, int start, int end, int packed)
+						{
+							itemContexts[concept] = packed;
+						}
+					});
+				}
+				catch (Exception e)
+				{
+					failure.compareAndSet(null, e);
+					return;
+				}
+				contexts[i] = itemContexts;
+			}
+		}
+	}
+}
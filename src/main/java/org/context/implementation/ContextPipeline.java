@@ -0,0 +1,485 @@
+package org.context.implementation;
+
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Analyzes a corpus (same formats as {@link CorpusProcessor}) through a pipeline of stages, each with its
+ * own threads, connected by bounded lock-free queues ({@link BoundedQueue}):
+ * segment (splits a record in sentence and concepts), concepts (normalization and concept tagging),
+ * triggers (trigger and time tagging), classify (tokenization and scopes), then write (in input order, on
+ * the calling thread). The steps are those of applyContext(concepts, sentence) (see {@link ContextStages}),
+ * so the results are the same.
+ *
+ * A stage whose next queue is full waits for it (back-pressure), and at most 5 x capacity records are in
+ * flight between the reader and the writer. The metrics of each stage (records, busy time, throughput,
+ * depth of its input queue) help choosing the number of threads of each one.
+ */
+public final class ContextPipeline {
+
+	/**
+	 * Names of the stages, in order
+	 */
+	public static final String[] STAGES = {"segment", "concepts", "triggers", "classify", "write"};
+
+	private static final int SEGMENT = 0;
+	private static final int CONCEPTS = 1;
+	private static final int TRIGGERS = 2;
+	private static final int CLASSIFY = 3;
+	private static final int WRITE = 4;
+
+	//pause of an idle thread after a few yields, doubled each round up to MAX_PARK
+	private static final long PARK = 20000;
+	private static final long MAX_PARK = 1000000;
+
+	private final ContextStages stages;
+	private final int[] threads;
+	private final int capacity;
+	private final int maxRecordLength;
+	private final Stage[] metrics = new Stage[STAGES.length];
+
+	private final AtomicLong records = new AtomicLong();
+
+
+	/**
+	 * Pipeline with one thread per stage and queues of 256 records
+	 * @param context Engine (shared by the threads)
+	 */
+	public ContextPipeline(AbstractConText context)
+	{
+		this(context, 1, 1, 1, 1, 256);
+	}
+
+	/**
+	 * @param context Engine (shared by the threads)
+	 * @param segmentThreads Threads of the segment stage
+	 * @param conceptThreads Threads of the concepts stage
+	 * @param triggerThreads Threads of the triggers stage
+	 * @param classifyThreads Threads of the classify stage
+	 * @param capacity Capacity of each queue (rounded up to a power of two)
+	 */
+	public ContextPipeline(AbstractConText context, int segmentThreads, int conceptThreads, int triggerThreads, int classifyThreads,
+		int capacity)
+	{
+		this(context, segmentThreads, conceptThreads, triggerThreads, classifyThreads, capacity, 1 << 20);
+	}
+
+	/**
+	 * @param context Engine (shared by the threads)
+	 * @param segmentThreads Threads of the segment stage
+	 * @param conceptThreads Threads of the concepts stage
+	 * @param triggerThreads Threads of the triggers stage
+	 * @param classifyThreads Threads of the classify stage
+	 * @param capacity Capacity of each queue (rounded up to a power of two)
+	 * @param maxRecordLength Maximum length of a record, in characters (a longer one is an error)
+	 */
+	public ContextPipeline(AbstractConText context, int segmentThreads, int conceptThreads, int triggerThreads, int classifyThreads,
+		int capacity, int maxRecordLength)
+	{
+		this.stages = context.stages();
+		this.threads = new int[]{segmentThreads, conceptThreads, triggerThreads, classifyThreads, 1};
+		for (int thread : threads)
+			if (thread < 1)
+				throw new IllegalArgumentException("Each stage needs a thread: " + Arrays.toString(threads));
+		this.capacity = capacity;
+		this.maxRecordLength = maxRecordLength;
+		for (int s=0; s < STAGES.length; s++)
+			metrics[s] = new Stage(STAGES[s], threads[s]);
+	}
+
+	/**
+	 * Analyzes a corpus file
+	 * @param input Corpus file
+	 * @param output Result file (replaced)
+	 */
+	public void process(String input, String output) throws Exception
+	{
+		try (FileChannel in = FileChannel.open(Paths.get(input), StandardOpenOption.READ);
+			FileChannel out = FileChannel.open(Paths.get(output), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			process(in, out);
+		}
+	}
+
+	/**
+	 * Analyzes a corpus (the channels are not closed). The reader thread is stopped by a flag, never
+	 * interrupted (an interrupt would close the input channel), and it has stopped using the input once
+	 * this returns.
+	 * @param in Records
+	 * @param out Results
+	 */
+	public void process(final ReadableByteChannel in, WritableByteChannel out) throws Exception
+	{
+		//input queue of each stage
+		final List<BoundedQueue<Record>> queues = new ArrayList<BoundedQueue<Record>>(STAGES.length);
+		for (int s=0; s < STAGES.length; s++)
+		{
+			queues.add(new BoundedQueue<Record>(capacity));
+			metrics[s].queue = queues.get(s);
+		}
+		final int window = STAGES.length * queues.get(0).capacity();
+		final AtomicLong written = new AtomicLong();
+		final AtomicLong total = new AtomicLong(-1);
+		final AtomicBoolean stopped = new AtomicBoolean();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		Thread reader = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					CorpusProcessor.LineReader lines = new CorpusProcessor.LineReader(in, maxRecordLength);
+					String line;
+					long number = 0;
+					for (; (line = lines.next()) != null; number++)
+					{
+						//waits while window records are in flight
+						for (int idle=0; number - written.get() >= window; idle = idle(idle))
+							if (stopped.get())
+								return;
+						if (!put(queues.get(SEGMENT), new Record(number, line), stopped))
+							return;
+						records.incrementAndGet();
+					}
+					total.set(number);
+				}
+				catch (Throwable e)
+				{
+					failure.compareAndSet(null, e);
+				}
+			}
+		}, "pipeline-reader");
+		reader.setDaemon(true);
+
+		List<Thread> workers = new ArrayList<Thread>();
+		for (int s=SEGMENT; s < WRITE; s++)
+			for (int t=0; t < threads[s]; t++)
+			{
+				final int stage = s, thread = t;
+				Thread worker = new Thread(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						Counter counter = metrics[stage].counters[thread];
+						BoundedQueue<Record> input = queues.get(stage);
+						BoundedQueue<Record> output = queues.get(stage + 1);
+						try
+						{
+							for (int idle=0; !stopped.get(); )
+							{
+								Record record = input.poll();
+								if (record == null)
+								{
+									idle = idle(idle);
+									continue;
+								}
+								idle = 0;
+								metrics[stage].sample(input.size() + 1);
+								long start = System.nanoTime();
+								int results = analyze(stage, record);
+								counter.record(System.nanoTime() - start, results);
+								put(output, record, stopped);
+							}
+						}
+						catch (Throwable e)
+						{
+							failure.compareAndSet(null, e);
+						}
+					}
+				}, "pipeline-" + STAGES[s] + "-" + (t + 1));
+				worker.setDaemon(true);
+				workers.add(worker);
+			}
+
+		reader.start();
+		for (Thread worker : workers)
+			worker.start();
+		try
+		{
+			//records analyzed out of order, waiting for the previous ones
+			Record[] done = new Record[window];
+			CorpusProcessor.LineWriter writer = new CorpusProcessor.LineWriter(out);
+			Stage stats = metrics[WRITE];
+			Counter counter = stats.counters[0];
+			BoundedQueue<Record> analyzed = queues.get(WRITE);
+			long next = 0;
+			for (int idle=0; total.get() < 0 || next < total.get(); )
+			{
+				if (failure.get() != null)
+					throw failed(failure.get());
+				Record record = analyzed.poll();
+				if (record == null)
+				{
+					idle = idle(idle);
+					continue;
+				}
+				idle = 0;
+				stats.sample(analyzed.size() + 1);
+				long start = System.nanoTime();
+				done[(int) (record.number % window)] = record;
+				for (int slot; (record = done[slot = (int) (next % window)]) != null; next++)
+				{
+					done[slot] = null;
+					writer.write(record.output);
+					written.lazySet(next + 1);
+				}
+				counter.record(System.nanoTime() - start, 0);
+			}
+			writer.flush();
+			if (failure.get() != null)
+				throw failed(failure.get());
+		}
+		finally
+		{
+			//the reader stops at its next record (or after its current read)
+			stopped.set(true);
+			reader.join();
+			for (Thread worker : workers)
+				worker.join();
+		}
+	}
+
+	/**
+	 * @return Metrics of the stages, in order (cumulated over the runs; the queues are those of the last run)
+	 */
+	public List<Stage> getStages()
+	{
+		return Collections.unmodifiableList(Arrays.asList(metrics));
+	}
+
+	/**
+	 * @return Number of records read
+	 */
+	public long getRecordCount()
+	{
+		return records.get();
+	}
+
+	/**
+	 * @return Number of results (concepts found)
+	 */
+	public long getResultCount()
+	{
+		long results = 0;
+		for (Counter counter : metrics[CLASSIFY].counters)
+			results += counter.results;
+		return results;
+	}
+
+	//runs a stage on a record (nothing to do once its output is known); returns the number of results
+	private int analyze(int stage, Record record)
+	{
+		if (record.output != null)
+			return 0;
+		int found = 0;
+		switch (stage)
+		{
+			case SEGMENT:
+				int tab = CorpusProcessor.indexOf(record.line, '\t', 0);
+				if (tab < 0)
+				{
+					record.output = "";
+					break;
+				}
+				record.sentence = record.line.substring(0, tab);
+				record.concepts = CorpusProcessor.concepts(record.line, tab);
+				break;
+			case CONCEPTS:
+				record.tagged = stages.tagConcepts(record.sentence, record.concepts);
+				if (record.tagged == null)
+					record.output = "";
+				break;
+			case TRIGGERS:
+				record.tagged = stages.tagTriggers(record.tagged);
+				break;
+			case CLASSIFY:
+				int[] contexts = stages.classify(record.tagged, record.concepts.size());
+				StringBuilder lines = new StringBuilder();
+				for (int i=0; i < contexts.length; i++)
+					if (contexts[i] >= 0)
+					{
+						CorpusProcessor.appendResult(lines, record.number, record.concepts.get(i), contexts[i]);
+						found++;
+					}
+				record.output = lines.toString();
+				break;
+		}
+		return found;
+	}
+
+	//adds a record to a queue, waiting while it is full; returns false if the pipeline stopped first
+	private static boolean put(BoundedQueue<Record> queue, Record record, AtomicBoolean stopped)
+	{
+		for (int idle=0; !queue.offer(record); idle = idle(idle))
+			if (stopped.get())
+				return false;
+		return true;
+	}
+
+	//yields, then pauses longer and longer; returns the number of idle rounds
+	private static int idle(int idle)
+	{
+		if (idle < 16)
+			Thread.yield();
+		else
+			LockSupport.parkNanos(Math.min(PARK << Math.min(idle - 16, 16), MAX_PARK));
+		return idle + 1;
+	}
+
+	//failure of a thread, rethrown by the writer (errors are wrapped)
+	private static Exception failed(Throwable failure)
+	{
+		return failure instanceof Exception ? (Exception) failure : new ExecutionException(failure);
+	}
+
+	//record going through the stages (handed from one thread to the next by the queues)
+	private static final class Record {
+
+		final long number;
+		final String line;
+		String sentence;
+		List<String> concepts;
+		String tagged;
+		//output lines, once known
+		String output;
+
+		Record(long number, String line)
+		{
+			this.number = number;
+			this.line = line;
+		}
+	}
+
+	//counts of a thread of a stage (written by that thread only, summed on read)
+	private static final class Counter {
+
+		volatile long count;
+		volatile long busy;
+		volatile long results;
+
+		void record(long time, int found)
+		{
+			count++;
+			busy += time;
+			if (found > 0)
+				results += found;
+		}
+	}
+
+	/**
+	 * Metrics of a stage
+	 */
+	public static final class Stage {
+
+		private final String name;
+		private final int threads;
+		//one per thread: no shared write when recording
+		private final Counter[] counters;
+		private final AtomicLong peak = new AtomicLong();
+		private volatile BoundedQueue<Record> queue;
+
+		Stage(String name, int threads)
+		{
+			this.name = name;
+			this.threads = threads;
+			counters = new Counter[threads];
+			for (int t=0; t < threads; t++)
+				counters[t] = new Counter();
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public int getThreads()
+		{
+			return threads;
+		}
+
+		/**
+		 * @return Number of records processed
+		 */
+		public long getRecordCount()
+		{
+			long count = 0;
+			for (Counter counter : counters)
+				count += counter.count;
+			return count;
+		}
+
+		/**
+		 * @return Time spent processing records, in nanoseconds, summed over the threads
+		 */
+		public long getBusyTime()
+		{
+			long busy = 0;
+			for (Counter counter : counters)
+				busy += counter.busy;
+			return busy;
+		}
+
+		/**
+		 * @return Records per second the stage can process with its threads (from its busy time)
+		 */
+		public double getThroughput()
+		{
+			long time = getBusyTime();
+			return time == 0 ? 0 : getRecordCount() * 1e9 * threads / time;
+		}
+
+		/**
+		 * @return Number of records waiting in the input queue of the stage
+		 */
+		public int getQueueDepth()
+		{
+			BoundedQueue<Record> current = queue;
+			return current == null ? 0 : current.size();
+		}
+
+		/**
+		 * @return Highest number of records seen in the input queue of the stage
+		 */
+		public long getPeakQueueDepth()
+		{
+			return peak.get();
+		}
+
+		public int getQueueCapacity()
+		{
+			BoundedQueue<Record> current = queue;
+			return current == null ? 0 : current.capacity();
+		}
+
+		void sample(int depth)
+		{
+			for (long current; depth > (current = peak.get()); )
+				if (peak.compareAndSet(current, depth))
+					break;
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("%s (%d threads): %d records, %.0f records/s, queue %d/%d (peak %d)", name, threads,
+				getRecordCount(), getThroughput(), getQueueDepth(), getQueueCapacity(), getPeakQueueDepth());
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package org.context.implementation;
+
+import org.context.implementation.ConText.ExperiencerContext;
+import org.context.implementation.ConText.NegationContext;
+import org.context.implementation.ConText.TemporalityContext;
+
+import java.util.ArrayList;
+
+
+/**
+ * Context of a concept in a sentence.
+ *
+ * The three context values fit in 5 bits: {@link #pack()} gives them as a single int (that can be stored
+ * in a byte), which is what the {@link ContextResultSink} receives.
+ */
+public final class ContextResult {
+
+	private static final NegationContext[] NEGATIONS = NegationContext.values();
+	private static final TemporalityContext[] TEMPORALITIES = TemporalityContext.values();
+	private static final ExperiencerContext[] EXPERIENCERS = ExperiencerContext.values();
+
+	private final String concept;
+	private final String sentence;
+	private final NegationContext negation;
+	private final TemporalityContext temporality;
+	private final ExperiencerContext experiencer;
+
+
+	public ContextResult(String concept, String sentence, NegationContext negation, TemporalityContext temporality, ExperiencerContext experiencer)
+	{
+		this.concept = concept;
+		this.sentence = sentence;
+		this.negation = negation;
+		this.temporality = temporality;
+		this.experiencer = experiencer;
+	}
+
+	/**
+	 * @param context Packed context (see {@link #pack()})
+	 */
+	public ContextResult(String concept, String sentence, int context)
+	{
+		this(concept, sentence, negation(context), temporality(context), experiencer(context));
+	}
+
+	public String getConcept()
+	{
+		return concept;
+	}
+
+	public String getSentence()
+	{
+		return sentence;
+	}
+
+	public NegationContext getNegation()
+	{
+		return negation;
+	}
+
+	public TemporalityContext getTemporality()
+	{
+		return temporality;
+	}
+
+	public ExperiencerContext getExperiencer()
+	{
+		return experiencer;
+	}
+
+	/**
+	 * @return Negation (bits 0-1), temporality (bits 2-3) and experiencer (bit 4)
+	 */
+	public int pack()
+	{
+		return pack(negation, temporality, experiencer);
+	}
+
+	public static int pack(NegationContext negation, TemporalityContext temporality, ExperiencerContext experiencer)
+	{
+		return negation.ordinal() | temporality.ordinal() << 2 | experiencer.ordinal() << 4;
+	}
+
+	public static NegationContext negation(int context)
+	{
+		return NEGATIONS[context & 3];
+	}
+
+	public static TemporalityContext temporality(int context)
+	{
+		return TEMPORALITIES[(context >> 2) & 3];
+	}
+
+	public static ExperiencerContext experiencer(int context)
+	{
+		return EXPERIENCERS[(context >> 4) & 1];
+	}
+
+	/**
+	 * @return The result in the format of applyContext (concept, sentence, negation, temporality, experiencer)
+	 */
+	public ArrayList<String> toList()
+	{
+		ArrayList<String> result = new ArrayList<String>(5);
+		result.add(concept); result.add(sentence);
+		result.add(negation.name()); result.add(temporality.name()); result.add(experiencer.name());
+		return result;
+	}
+
+	@Override
+	public String toString()
+	{
+		return concept + ": " + negation + ", " + temporality + ", " + experiencer;
+	}
+}
@@ -0,0 +1,17 @@
+package org.context.implementation;
+
+
+/**
+ * Receives the context of the concepts analyzed in a sentence, without any object created per result
+ * (for high-volume processing)
+ */
+public interface ContextResultSink {
+
+	/**
+	 * @param concept Index of the concept (in the list of concepts, or term of the dictionary)
+	 * @param start Offset of the mention in the sentence, -1 if it is not known
+	 * @param end Offset after the mention, -1 if it is not known
+	 * @param context Packed context (see {@link ContextResult#pack()})
+	 */
+	void accept(int concept, int start, int end, int context);
+}
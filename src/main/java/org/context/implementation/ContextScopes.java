@@ -0,0 +1,481 @@
+package org.context.implementation;
+
+import org.context.implementation.ConText.ContextDimension;
+import org.context.implementation.ConText.ExperiencerContext;
+import org.context.implementation.ConText.NegationContext;
+import org.context.implementation.ConText.TemporalityContext;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+
+/**
+ * Scope analysis of the concepts tagged in a sentence ([0], [1], ...): each concept gets the context
+ * of the first trigger term whose window contains it, as in the single concept analysis.
+ *
+ * The algorithms run on token codes instead of the tokens: a trigger tag is coded by the ordinal of its
+ * {@link TriggerCategory}, a concept tag by {@link #CONCEPT} + its index, the &lt;PREP&gt; tag of the
+ * original engines by {@link #PREP} and any other word by {@link #WORD}.
+ */
+final class ContextScopes {
+
+	private static final int MAX_WINDOW = 15;
+
+	//token codes
+	static final int WORD = -1;
+	static final int CONCEPT = 64;
+	//not tagged by the trigger lexicon, but recognized in the tokens given to applyNegEx: opens a window
+	//like NEG_PRE, whose concepts are affirmed
+	static final int PREP = -2;
+	private static final String PREP_TAG = "<PREP>";
+
+	private static final TriggerCategory[] CATEGORIES = TriggerCategory.values();
+
+	static final Set<ContextDimension> ALL = Collections.unmodifiableSet(EnumSet.allOf(ContextDimension.class));
+
+	private ContextScopes()
+	{
+	}
+
+	/**
+	 * Codes the tokens of a tagged sentence
+	 * @param words Tokens of the tagged sentence
+	 * @param single Single concept analysis: every concept tag is the concept (index 0)
+	 * @return Code of each token
+	 */
+	static int[] codes(String[] words, boolean single)
+	{
+		int[] codes = new int[words.length];
+		for (int m=0; m < words.length; m++)
+		{
+			String word = words[m];
+			codes[m] = WORD;
+			if (word.length() == 0)
+				continue;
+			if (word.charAt(0) == '<')
+			{
+				TriggerCategory category = TriggerCategory.ofTag(word);
+				if (category != null)
+					codes[m] = category.ordinal();
+				else if (word.equals(PREP_TAG))
+					codes[m] = PREP;
+			}
+			else if (word.charAt(0) == '[')
+			{
+				int index = conceptIndex(word);
+				if (index != -1)
+					codes[m] = CONCEPT + (single ? 0 : Math.min(index, Integer.MAX_VALUE - CONCEPT));
+			}
+		}
+		return codes;
+	}
+
+	/**
+	 * Codes the tokens of a tagged sentence, given by their offsets
+	 * @param sentence Tagged sentence
+	 * @param tokens Start and end offset of each token (see {@link Tokenizer})
+	 * @param single Single concept analysis: every concept tag is the concept (index 0)
+	 * @return Code of each token
+	 */
+	static int[] codes(String sentence, int[] tokens, boolean single)
+	{
+		int[] codes = new int[tokens.length / 2];
+		for (int m=0; m < codes.length; m++)
+		{
+			int start = tokens[2*m], end = tokens[2*m+1];
+			codes[m] = WORD;
+			if (start == end)
+				continue;
+			if (sentence.charAt(start) == '<')
+			{
+				TriggerCategory category = TriggerCategory.ofTag(sentence, start, end);
+				if (category != null)
+					codes[m] = category.ordinal();
+				else if (end - start == PREP_TAG.length() && sentence.startsWith(PREP_TAG, start))
+					codes[m] = PREP;
+			}
+			else if (sentence.charAt(start) == '[')
+			{
+				int index = conceptIndex(sentence, start, end);
+				if (index != -1)
+					codes[m] = CONCEPT + (single ? 0 : Math.min(index, Integer.MAX_VALUE - CONCEPT));
+			}
+		}
+		return codes;
+	}
+
+	/**
+	 * Context of the concepts of a sentence: the three dimensions are computed in a single pass over the
+	 * tokens, with the same results as applyNegEx, applyTemporality and applyExperiencer.
+	 *
+	 * Each concept keeps the position of the trigger that gave it its negation and temporality: a trigger
+	 * before the concept reaches it if no termination term was met since, a trigger after the concept
+	 * (post- negation, TIME_POST) takes the concepts met since the last termination term.
+	 * @param codes Codes of the tokens of the tagged sentence
+	 * @param concepts Number of concepts
+	 * @return Packed context of each concept (see {@link ContextResult#pack()}), -1 if it is not in the sentence
+	 */
+	static int[] contexts(int[] codes, int concepts)
+	{
+		return contexts(codes, concepts, ALL);
+	}
+
+	/**
+	 * Same as contexts(codes, concepts), for some dimensions only (the others keep their default value)
+	 * @param dimensions Dimensions to analyze
+	 */
+	static int[] contexts(int[] codes, int concepts, Set<ContextDimension> dimensions)
+	{
+		boolean negationScope = dimensions.contains(ContextDimension.Negation);
+		boolean temporalityScope = dimensions.contains(ContextDimension.Temporality);
+		boolean experiencerScope = dimensions.contains(ContextDimension.Experiencer);
+
+		boolean[] found = new boolean[concepts];
+		NegationContext[] ne = new NegationContext[concepts];
+		TemporalityContext[] tmp = new TemporalityContext[concepts];
+		ExperiencerContext[] subj = new ExperiencerContext[concepts];
+		int[] negationTriggers = new int[concepts];
+		int[] temporalityTriggers = new int[concepts];
+		Arrays.fill(negationTriggers, Integer.MAX_VALUE);
+		Arrays.fill(temporalityTriggers, Integer.MAX_VALUE);
+
+		//concepts waiting for a post- negation or a TIME_POST
+		int[] negationPending = new int[codes.length];
+		int[] historicalPending = new int[codes.length];
+		int negationCount = 0, historicalCount = 0;
+
+		//current pre- triggers
+		int negation = -1, hypothetical = -1, historical = -1, experiencer = -1;
+		NegationContext negationContext = NegationContext.Negated;
+
+		for (int q=0; q < codes.length; q++)
+		{
+			int code = codes[q];
+			if (code >= CONCEPT)
+			{
+				int index = code - CONCEPT;
+				if (index >= concepts)
+					continue;
+				found[index] = true;
+				if (negationScope)
+				{
+					if (negation >= 0 && q - negation < MAX_WINDOW)
+						setContext(index, negation, negationTriggers, ne, negationContext);
+					//the windows of the post- negations never reach the first token
+					if (q > 0)
+						negationPending[negationCount++] = q;
+				}
+				if (temporalityScope)
+				{
+					if (hypothetical >= 0)
+						setContext(index, hypothetical, temporalityTriggers, tmp, TemporalityContext.Hypothetical);
+					if (historical >= 0)
+						setContext(index, historical, temporalityTriggers, tmp, TemporalityContext.Historical);
+					historicalPending[historicalCount++] = q;
+				}
+				if (experiencerScope && experiencer >= 0)
+					subj[index] = ExperiencerContext.Other;
+				continue;
+			}
+			if (code == PREP)
+			{
+				negation = q;
+				negationContext = NegationContext.Affirmed;
+				continue;
+			}
+
+			TriggerCategory category = category(code);
+			if (category != null) switch (category)
+			{
+				case NEG_PRE:
+					negation = q;
+					negationContext = NegationContext.Negated;
+					negationCount = 0;
+					break;
+				case POSS_PRE:
+					negationCount = 0;
+					break;
+				case NEG_END:
+					negation = -1;
+					negationCount = 0;
+					break;
+				case NEG_POST:
+				case POSS_POST:
+				{
+					NegationContext context = category == TriggerCategory.NEG_POST ? NegationContext.Negated : NegationContext.Possible;
+					for (int x=0; x < negationCount; x++)
+						if (q - negationPending[x] < MAX_WINDOW)
+							setContext(codes[negationPending[x]] - CONCEPT, q, negationTriggers, ne, context);
+					negation = -1;
+					negationCount = 0;
+					break;
+				}
+				case HYPO_PRE:
+					if (hypothetical < 0)
+						hypothetical = q;
+					break;
+				case HIST_PRE:
+					historical = q;
+					historicalCount = 0;
+					break;
+				case HIST_END:
+				case HIST_EXP_END:
+				case HIST_1W:
+					historical = -1;
+					historicalCount = 0;
+					break;
+				case TIME_PRE:
+					if (historical < 0)
+						historical = q;
+					break;
+				case TIME_POST:
+					for (int x=0; x < historicalCount; x++)
+						setContext(codes[historicalPending[x]] - CONCEPT, q, temporalityTriggers, tmp, TemporalityContext.Historical);
+					historicalCount = 0;
+					break;
+				case EXP_PRE:
+					if (experiencer < 0)
+						experiencer = q;
+					break;
+				default:
+					break;
+			}
+		}
+
+		setDefault(ne, NegationContext.Affirmed);
+		setDefault(tmp, TemporalityContext.Recent);
+		setDefault(subj, ExperiencerContext.Patient);
+		int[] contexts = new int[concepts];
+		for (int i=0; i < concepts; i++)
+			contexts[i] = found[i] ? ContextResult.pack(ne[i], tmp[i], subj[i]) : -1;
+		return contexts;
+	}
+
+	/**
+	 * Apply NegEx algorithm to find negation context of the concepts found in the sentence
+	 * @param codes Codes of the tokens of the tagged sentence
+	 * @param concepts Number of concepts
+	 * @return Negation context of each concept
+	 */
+	static NegationContext[] applyNegEx(int[] codes, int concepts)
+	{
+		NegationContext[] results = new NegationContext[concepts];
+		int remaining = concepts;
+
+		//Going from one negation to another: the windows are at most MAX_WINDOW tokens long
+		int m = 0;
+
+		//for each word in the sentence
+		while (m < codes.length && remaining > 0)
+		{
+			TriggerCategory category = codes[m] == PREP ? TriggerCategory.NEG_PRE : category(codes[m]);
+			if (category != null) switch (category)
+			{
+				//IF word is a pre- concept negation (or <PREP>)...
+				case NEG_PRE:
+				{
+					//find window (default is six words after the negation phrase)
+					int maxWindow = MAX_WINDOW;
+					if (codes.length < m + maxWindow) maxWindow = codes.length - m;
+					int o = 1;
+					while (o < maxWindow && !isPreNegationEnd(codes[m+o]))
+						o++;
+
+					//check if there are concepts in the window
+					remaining -= setContext(codes, m + 1, m + o, results,
+						codes[m] == PREP ? NegationContext.Affirmed : NegationContext.Negated);
+					break;
+				}
+				//IF word a post- concept negation or possible
+				case NEG_POST:
+				case POSS_POST:
+				{
+					//find window (default is six words before the negation phrase)
+					int maxWindow = MAX_WINDOW;
+					if (m < maxWindow) maxWindow = m;
+					int o = 1;
+					while (o < maxWindow && !isPostNegationEnd(codes[m-o]))
+						o++;
+
+					//get type of Negation
+					NegationContext currentNegationContext = category == TriggerCategory.NEG_POST ?
+						NegationContext.Negated : NegationContext.Possible;
+
+					//check if there are concepts in the window
+					remaining -= setContext(codes, m - o + 1, m, results, currentNegationContext);
+					break;
+				}
+				//IF word is a pseudo-negation or not a negation, skips to the next word
+				default:
+					break;
+			}
+			m++;
+		}
+		return setDefault(results, NegationContext.Affirmed);
+	}
+
+	/**
+	 * Temporality analysis. The windows of the hypothetical and historical triggers can run to the end
+	 * (or the beginning) of the sentence: instead of building them, each concept looks for the first
+	 * trigger whose window reaches it, in one pass in each direction.
+	 * @param codes Codes of the tokens of the tagged sentence
+	 * @param concepts Number of concepts
+	 * @return Temporality context of each concept
+	 */
+	static TemporalityContext[] applyTemporality(int[] codes, int concepts)
+	{
+		TemporalityContext[] results = new TemporalityContext[concepts];
+		int[] triggers = new int[concepts];
+		Arrays.fill(triggers, Integer.MAX_VALUE);
+
+		//post- historical trigger: the first one after the concept, before any termination term
+		int post = -1;
+		for (int q=codes.length-1; q >= 0; q--)
+		{
+			int code = codes[q];
+			if (isHistoricalEnd(code))
+				post = -1;
+			else if (code == TriggerCategory.TIME_POST.ordinal())
+				post = q;
+			else if (post >= 0 && code >= CONCEPT)
+				setContext(code - CONCEPT, post, triggers, results, TemporalityContext.Historical);
+		}
+
+		//pre- hypothetical trigger: the first one before the concept (its window runs to the end of
+		//the sentence), pre- historical trigger: the first one after the last termination term
+		int hypothetical = -1;
+		int historical = -1;
+		for (int q=0; q < codes.length; q++)
+		{
+			int code = codes[q];
+			if (code == TriggerCategory.HYPO_PRE.ordinal())
+			{
+				if (hypothetical < 0)
+					hypothetical = q;
+			}
+			else if (isHistoricalEnd(code))
+				historical = code == TriggerCategory.HIST_PRE.ordinal() ? q : -1;
+			else if (code == TriggerCategory.TIME_PRE.ordinal())
+			{
+				if (historical < 0)
+					historical = q;
+			}
+			else if (code >= CONCEPT)
+			{
+				if (hypothetical >= 0)
+					setContext(code - CONCEPT, hypothetical, triggers, results, TemporalityContext.Hypothetical);
+				if (historical >= 0)
+					setContext(code - CONCEPT, historical, triggers, results, TemporalityContext.Historical);
+			}
+		}
+		return setDefault(results, TemporalityContext.Recent);
+	}
+
+	/**
+	 * Experiencer analysis. The window of a pre- experiencer trigger runs to the end of the sentence:
+	 * the concepts after the first one are experienced by someone else.
+	 * @param codes Codes of the tokens of the tagged sentence
+	 * @param concepts Number of concepts
+	 * @return Experiencer of each concept
+	 */
+	static ExperiencerContext[] applyExperiencer(int[] codes, int concepts)
+	{
+		ExperiencerContext[] results = new ExperiencerContext[concepts];
+
+		int mm = 0;
+		while (mm < codes.length && codes[mm] != TriggerCategory.EXP_PRE.ordinal())
+			mm++;
+		setContext(codes, mm + 1, codes.length, results, ExperiencerContext.Other);
+		return setDefault(results, ExperiencerContext.Patient);
+	}
+
+	/**
+	 * @return Index of the concept tagged by the word ([0], [1], ...), -1 if it is not a concept tag
+	 */
+	static int conceptIndex(String word)
+	{
+		return conceptIndex(word, 0, word.length());
+	}
+
+	/**
+	 * @return Index of the concept tagged by the token between start and end, -1 if it is not a concept tag
+	 */
+	static int conceptIndex(String sentence, int start, int end)
+	{
+		int length = end - start;
+		if (length < 3 || length > 11 || sentence.charAt(start) != '[' || sentence.charAt(end-1) != ']')
+			return -1;
+		long index = 0;
+		for (int c=start+1; c < end-1; c++)
+		{
+			char digit = sentence.charAt(c);
+			if (digit < '0' || digit > '9')
+				return -1;
+			index = index * 10 + (digit - '0');
+		}
+		return index > Integer.MAX_VALUE ? -1 : (int) index;
+	}
+
+	/**
+	 * @return Category of a trigger tag code, null for the other tokens
+	 */
+	private static TriggerCategory category(int code)
+	{
+		return code >= 0 && code < CATEGORIES.length ? CATEGORIES[code] : null;
+	}
+
+	private static boolean isPreNegationEnd(int code)
+	{
+		return code == TriggerCategory.NEG_PRE.ordinal() || code == PREP || code == TriggerCategory.NEG_POST.ordinal()
+			|| code == TriggerCategory.POSS_POST.ordinal() || code == TriggerCategory.NEG_END.ordinal();
+	}
+
+	private static boolean isPostNegationEnd(int code)
+	{
+		return code == TriggerCategory.NEG_PRE.ordinal() || code == TriggerCategory.POSS_PRE.ordinal()
+			|| code == TriggerCategory.NEG_POST.ordinal() || code == TriggerCategory.POSS_POST.ordinal()
+			|| code == TriggerCategory.NEG_END.ordinal();
+	}
+
+	//the original HYPO_END / EXP_END checks compared a token with a whole regex (never equal): only
+	//the historical windows have termination terms
+	private static boolean isHistoricalEnd(int code)
+	{
+		return code == TriggerCategory.HIST_END.ordinal() || code == TriggerCategory.HIST_EXP_END.ordinal()
+			|| code == TriggerCategory.HIST_PRE.ordinal() || code == TriggerCategory.HIST_1W.ordinal();
+	}
+
+	//sets the context of the concepts of the window [from, to) that do not have one yet
+	private static <T> int setContext(int[] codes, int from, int to, T[] results, T context)
+	{
+		int set = 0;
+		for (int w=from; w < to; w++) {
+			int index = codes[w] - CONCEPT;
+			if (index >= 0 && index < results.length && results[index] == null) {
+				results[index] = context;
+				set++;
+			}
+		}
+		return set;
+	}
+
+	//sets the context of a concept if the trigger comes before the trigger of its current context
+	private static <T> void setContext(int index, int trigger, int[] triggers, T[] results, T context)
+	{
+		if (index < results.length && trigger < triggers[index])
+		{
+			triggers[index] = trigger;
+			results[index] = context;
+		}
+	}
+
+	private static <T> T[] setDefault(T[] results, T context)
+	{
+		for (int i=0; i < results.length; i++)
+			if (results[i] == null)
+				results[i] = context;
+		return results;
+	}
+}
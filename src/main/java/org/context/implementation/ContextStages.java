@@ -0,0 +1,31 @@
+package org.context.implementation;
+
+import java.util.List;
+
+
+/**
+ * Steps of the context analysis of the concepts of a sentence, in order (each one takes the result of the
+ * previous one): applyContext(concepts, sentence) is classify(tagTriggers(tagConcepts(sentence, concepts)),
+ * concepts.size()), the concepts not found being those absent from a null tagged sentence.
+ *
+ * The steps are thread-safe, like the engine.
+ */
+interface ContextStages {
+
+	/**
+	 * Normalizes the sentence and tags the concepts ([0], [1], ... in list order)
+	 * @return Tagged sentence, null if no concept is found
+	 */
+	String tagConcepts(CharSequence sentence, List<String> concepts);
+
+	/**
+	 * Tags the context phrases (triggers and time expressions) of a sentence tagged by tagConcepts
+	 */
+	String tagTriggers(String sentence);
+
+	/**
+	 * Tokenizes the tagged sentence and applies the scopes of the triggers
+	 * @return Packed context of each concept (see {@link ContextResult#pack()}), -1 if it is not in the sentence
+	 */
+	int[] classify(String tagged, int concepts);
+}
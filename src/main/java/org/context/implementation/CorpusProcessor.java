@@ -0,0 +1,666 @@
+package org.context.implementation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Analyzes a corpus that does not fit in memory, as a stream: the records are read, analyzed and written
+ * as they go, and the memory used does not depend on the size of the corpus.
+ *
+ * Input: UTF-8, one record per line, "sentence TAB concept [TAB concept...]" (lines without concept are
+ * skipped). Output: UTF-8, one line per concept found, in input order,
+ * "record TAB concept TAB negation TAB temporality TAB experiencer" (record: number of the line, from 0).
+ *
+ * A reader thread decodes the input channel through fixed buffers and hands each record to the worker
+ * threads; the calling thread writes the results in input order. At most capacity records are in flight
+ * between the reader and the writer: when the workers or the output fall behind, the reader waits
+ * (back-pressure) instead of buffering the input.
+ *
+ * A long run can save checkpoints (see {@link #process(String, String, String, long)}): after a crash, the
+ * next run resumes from the last checkpoint and the output is the same as that of an uninterrupted run.
+ */
+public final class CorpusProcessor {
+
+	//size of the channel buffers
+	private static final int BUFFER = 1 << 16;
+
+	private final AbstractConText context;
+	private final int threads;
+	private final int capacity;
+	private final int maxRecordLength;
+
+	private static final ThreadLocal<MappedCorpusReader.Decoder> DECODER = new ThreadLocal<MappedCorpusReader.Decoder>()
+	{
+		@Override
+		protected MappedCorpusReader.Decoder initialValue()
+		{
+			return new MappedCorpusReader.Decoder();
+		}
+	};
+
+	private final AtomicLong records = new AtomicLong();
+	private final AtomicLong results = new AtomicLong();
+	private final AtomicLong checkpoints = new AtomicLong();
+
+
+	/**
+	 * Processor on all the cores, 1024 records in flight, records of up to 1M characters
+	 * @param context Engine (shared by the threads)
+	 */
+	public CorpusProcessor(AbstractConText context)
+	{
+		this(context, Runtime.getRuntime().availableProcessors(), 1024, 1 << 20);
+	}
+
+	/**
+	 * @param context Engine (shared by the threads)
+	 * @param threads Number of worker threads
+	 * @param capacity Maximum number of records read and not written yet
+	 * @param maxRecordLength Maximum length of a record, in characters (a longer one is an error)
+	 */
+	public CorpusProcessor(AbstractConText context, int threads, int capacity, int maxRecordLength)
+	{
+		this.context = context;
+		this.threads = threads;
+		this.capacity = capacity;
+		this.maxRecordLength = maxRecordLength;
+	}
+
+	/**
+	 * Analyzes a corpus file
+	 * @param input Corpus file
+	 * @param output Result file (replaced)
+	 */
+	public void process(String input, String output) throws Exception
+	{
+		try (FileChannel in = FileChannel.open(Paths.get(input), StandardOpenOption.READ);
+			FileChannel out = FileChannel.open(Paths.get(output), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			process(in, out);
+		}
+	}
+
+	/**
+	 * Analyzes a corpus file read in place (see {@link MappedCorpusReader}): the records are handed to the
+	 * workers as byte ranges of the mapped file and decoded into per-thread buffers, without any String
+	 * @param input Corpus file
+	 * @param output Result file (replaced)
+	 */
+	public void processMapped(String input, String output) throws Exception
+	{
+		try (final MappedCorpusReader reader = new MappedCorpusReader(input);
+			FileChannel out = FileChannel.open(Paths.get(output), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			process(source(reader), out, 0, null);
+		}
+	}
+
+	/**
+	 * Analyzes a corpus file read in place (see {@link #processMapped(String, String)}), saving a checkpoint
+	 * every interval: input file (path, size and modification time), offset of the next record in it, its
+	 * number, size of the output and version of the trigger lexicon in use (see
+	 * {@link TriggerTagger#getVersion()}, read at each checkpoint since a {@link LexiconWatcher} may replace
+	 * it). The output is written to disk before the checkpoint, which replaces the previous one atomically.
+	 *
+	 * If the checkpoint file exists, the run resumes from it: the output is cut back to the size saved (the
+	 * results written after the checkpoint are dropped) and the analysis starts at the record saved, so each
+	 * result is in the output once. The checkpoint file is deleted at the end of the run.
+	 *
+	 * Only the mapped reader saves checkpoints: the streaming one (see {@link #process(String, String)})
+	 * decodes the input through buffers and does not know the offset of each record in the file.
+	 * @param input Corpus file
+	 * @param output Result file (replaced, unless resumed)
+	 * @param checkpoint Checkpoint file
+	 * @param interval Time between two checkpoints, in milliseconds
+	 * @return Number of the first record analyzed (0 if the run did not resume)
+	 * @throws IOException If the checkpoint does not match the input, the output or the lexicon of the engine
+	 */
+	public long process(String input, String output, String checkpoint, long interval) throws Exception
+	{
+		Checkpoint state = new Checkpoint(Paths.get(checkpoint), interval, Paths.get(input));
+		state.load();
+		try (MappedCorpusReader reader = new MappedCorpusReader(input, state.offset);
+			FileChannel out = FileChannel.open(Paths.get(output), StandardOpenOption.CREATE, StandardOpenOption.WRITE))
+		{
+			if (out.size() < state.position)
+				throw new IOException("Output " + output + " is shorter than its checkpoint (" + state.position + " bytes)");
+			out.truncate(state.position);
+			out.position(state.position);
+			state.output = out;
+			process(source(reader), out, state.record, state);
+			out.force(false);
+		}
+		Files.deleteIfExists(state.path);
+		return state.record;
+	}
+
+	/**
+	 * Analyzes a corpus (the channels are not closed)
+	 * @param in Records
+	 * @param out Results
+	 */
+	public void process(ReadableByteChannel in, WritableByteChannel out) throws Exception
+	{
+		final LineReader lines = new LineReader(in, maxRecordLength);
+		process(new Source()
+		{
+			@Override
+			public Callable<String> next(long number) throws IOException
+			{
+				String line = lines.next();
+				return line == null ? null : new Record(number, line);
+			}
+
+			@Override
+			public long offset()
+			{
+				return -1;
+			}
+		}, out, 0, null);
+	}
+
+	//records of a mapped file
+	private Source source(final MappedCorpusReader reader)
+	{
+		return new Source()
+		{
+			@Override
+			public Callable<String> next(long number) throws IOException
+			{
+				return reader.next() ? new MappedRecord(number, reader.buffer(), reader.start(), reader.end()) : null;
+			}
+
+			@Override
+			public long offset()
+			{
+				return reader.nextOffset();
+			}
+		};
+	}
+
+	private void process(final Source in, WritableByteChannel out, final long first, Checkpoint checkpoint) throws Exception
+	{
+		//the records waiting for a worker are also in pending, which bounds them
+		final ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+			new LinkedBlockingQueue<Runnable>());
+		//records in input order, analyzed or not
+		final BlockingQueue<Task> pending = new ArrayBlockingQueue<Task>(capacity);
+		final Task end = new Task(new Callable<String>()
+		{
+			@Override
+			public String call()
+			{
+				return null;
+			}
+		}, -1, -1);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final AtomicBoolean stopped = new AtomicBoolean();
+
+		//stopped by the flag, never interrupted: an interrupt while reading would close the input channel
+		Thread reader = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					Callable<String> record;
+					for (long number=first; (record = in.next(number)) != null; number++)
+					{
+						Task task = new Task(record, number, in.offset());
+						//waits while capacity records are in flight
+						if (!put(pending, task, stopped))
+							return;
+						workers.execute(task);
+						records.incrementAndGet();
+					}
+				}
+				catch (Throwable e)
+				{
+					//the writer must still get to the end
+					failure.set(e);
+				}
+				put(pending, end, stopped);
+			}
+		}, "corpus-reader");
+		reader.setDaemon(true);
+		reader.start();
+
+		try
+		{
+			LineWriter writer = new LineWriter(out);
+			while (true)
+			{
+				Task record = pending.take();
+				if (record == end)
+					break;
+				try
+				{
+					writer.write(record.get());
+					if (checkpoint != null)
+						checkpoint.written(record.number + 1, record.offset, writer);
+				}
+				catch (ExecutionException e)
+				{
+					throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+				}
+			}
+			writer.flush();
+			Throwable error = failure.get();
+			if (error != null)
+				throw error instanceof Exception ? (Exception) error : new ExecutionException(error);
+		}
+		finally
+		{
+			stopped.set(true);
+			reader.join();
+			workers.shutdownNow();
+		}
+	}
+
+	//adds a record in flight, waiting while capacity records are; returns false if the writer stopped first
+	private static boolean put(BlockingQueue<Task> pending, Task task, AtomicBoolean stopped)
+	{
+		try
+		{
+			while (!pending.offer(task, 10, TimeUnit.MILLISECONDS))
+				if (stopped.get())
+					return false;
+			return true;
+		}
+		catch (InterruptedException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * @return Number of records read
+	 */
+	public long getRecordCount()
+	{
+		return records.get();
+	}
+
+	/**
+	 * @return Number of results (concepts found)
+	 */
+	public long getResultCount()
+	{
+		return results.get();
+	}
+
+	/**
+	 * @return Number of checkpoints saved
+	 */
+	public long getCheckpointCount()
+	{
+		return checkpoints.get();
+	}
+
+	/**
+	 * @return Output lines of a record ("" if it has no concept found)
+	 */
+	String analyze(long number, CharSequence line) throws Exception
+	{
+		int tab = indexOf(line, '\t', 0);
+		if (tab < 0)
+			return "";
+		CharSequence sentence = line.subSequence(0, tab);
+		final List<String> concepts = concepts(line, tab);
+
+		final StringBuilder lines = new StringBuilder();
+		final long record = number;
+		context.applyContext(concepts, sentence, new ContextResultSink()
+		{
+			@Override
+			public void accept(int concept, int start, int end, int packed)
+			{
+				appendResult(lines, record, concepts.get(concept), packed);
+				results.incrementAndGet();
+			}
+		});
+		return lines.toString();
+	}
+
+	/**
+	 * @return Concepts of a record, after its first tab
+	 */
+	static List<String> concepts(CharSequence line, int tab)
+	{
+		List<String> concepts = new ArrayList<String>();
+		for (int start=tab+1, next; start <= line.length(); start = next + 1)
+		{
+			next = indexOf(line, '\t', start);
+			if (next < 0)
+				next = line.length();
+			if (next > start)
+				concepts.add(line.subSequence(start, next).toString());
+		}
+		return concepts;
+	}
+
+	/**
+	 * Appends the output line of a concept found
+	 */
+	static void appendResult(StringBuilder lines, long record, String concept, int packed)
+	{
+		lines.append(record).append('\t').append(concept)
+			.append('\t').append(ContextResult.negation(packed))
+			.append('\t').append(ContextResult.temporality(packed))
+			.append('\t').append(ContextResult.experiencer(packed)).append('\n');
+	}
+
+	static int indexOf(CharSequence text, char c, int from)
+	{
+		for (int i=from; i < text.length(); i++)
+			if (text.charAt(i) == c)
+				return i;
+		return -1;
+	}
+
+	//records of the input, in order
+	private interface Source {
+
+		/**
+		 * @return Analysis of the next record, null at the end of the input
+		 */
+		Callable<String> next(long number) throws IOException;
+
+		/**
+		 * @return Offset in the input after the last record returned, -1 if unknown
+		 */
+		long offset();
+	}
+
+	//record in flight, in input order
+	private static final class Task extends FutureTask<String> {
+
+		final long number;
+		//offset in the input after the record
+		final long offset;
+
+		Task(Callable<String> record, long number, long offset)
+		{
+			super(record);
+			this.number = number;
+			this.offset = offset;
+		}
+	}
+
+	//checkpoints of a run: where to resume it
+	private final class Checkpoint {
+
+		final Path path;
+		final long interval;
+		//input file
+		final String input;
+		final long size;
+		final long modified;
+		FileChannel output;
+		//next record: offset in the input, number, offset in the output
+		long offset;
+		long record;
+		long position;
+		private long saved = System.nanoTime();
+
+		Checkpoint(Path path, long interval, Path input) throws IOException
+		{
+			this.path = path;
+			this.interval = TimeUnit.MILLISECONDS.toNanos(interval);
+			this.input = input.toAbsolutePath().normalize().toString();
+			this.size = Files.size(input);
+			this.modified = Files.getLastModifiedTime(input).toMillis();
+		}
+
+		//reads the checkpoint to resume from, if any
+		void load() throws IOException
+		{
+			if (!Files.exists(path))
+				return;
+			Properties state = new Properties();
+			try (InputStream in = Files.newInputStream(path))
+			{
+				state.load(in);
+			}
+			if (!input.equals(state.getProperty("input.path")) || size != value(state, "input.size")
+				|| modified != value(state, "input.modified"))
+				throw new IOException("Checkpoint " + path + " was saved for another version of the input: "
+					+ state.getProperty("input.path") + " (" + state.getProperty("input.size") + " bytes), not " + input
+					+ " (" + size + " bytes)");
+			String version = context.getTriggerTagger().getVersion();
+			if (!version.equals(state.getProperty("lexicon.version")))
+				throw new IOException("Checkpoint " + path + " was saved with lexicon " + state.getProperty("lexicon.version")
+					+ ", not " + version);
+			offset = value(state, "input.offset");
+			record = value(state, "record");
+			position = value(state, "output.position");
+		}
+
+		//saves a checkpoint after the given record if the interval is over
+		void written(long next, long nextOffset, LineWriter writer) throws IOException
+		{
+			if (System.nanoTime() - saved < interval || nextOffset < 0)
+				return;
+			writer.flush();
+			//the results before the checkpoint are on disk before it
+			output.force(false);
+			Properties state = new Properties();
+			state.setProperty("input.path", input);
+			state.setProperty("input.size", Long.toString(size));
+			state.setProperty("input.modified", Long.toString(modified));
+			state.setProperty("input.offset", Long.toString(nextOffset));
+			state.setProperty("record", Long.toString(next));
+			state.setProperty("output.position", Long.toString(output.position()));
+			state.setProperty("lexicon.version", context.getTriggerTagger().getVersion());
+			Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+			try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING))
+			{
+				state.store(Channels.newOutputStream(file), "corpus checkpoint");
+				file.force(false);
+			}
+			Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			checkpoints.incrementAndGet();
+			saved = System.nanoTime();
+		}
+
+		private long value(Properties state, String key) throws IOException
+		{
+			try
+			{
+				return Long.parseLong(state.getProperty(key));
+			}
+			catch (NumberFormatException e)
+			{
+				throw new IOException("Invalid " + key + " in checkpoint " + path);
+			}
+		}
+	}
+
+	//analysis of a record by a worker
+	private class Record implements Callable<String> {
+
+		private final long number;
+		private final String line;
+
+		Record(long number, String line)
+		{
+			this.number = number;
+			this.line = line;
+		}
+
+		@Override
+		public String call() throws Exception
+		{
+			return analyze(number, line);
+		}
+	}
+
+	//analysis of a record of a mapped file by a worker (decoded in the buffer of the worker)
+	private class MappedRecord implements Callable<String> {
+
+		private final long number;
+		private final ByteBuffer buffer;
+		private final int start;
+		private final int end;
+
+		MappedRecord(long number, ByteBuffer buffer, int start, int end)
+		{
+			this.number = number;
+			this.buffer = buffer;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public String call() throws Exception
+		{
+			return analyze(number, DECODER.get().decode(buffer, start, end));
+		}
+	}
+
+	/**
+	 * Lines of a UTF-8 channel, decoded through fixed buffers (malformed bytes are replaced)
+	 */
+	static final class LineReader {
+
+		private final ReadableByteChannel channel;
+		private final int maxLength;
+		private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER);
+		private final CharBuffer chars = CharBuffer.allocate(BUFFER);
+		private final StringBuilder line = new StringBuilder();
+		private boolean eof;
+
+		LineReader(ReadableByteChannel channel, int maxLength)
+		{
+			this.channel = channel;
+			this.maxLength = maxLength;
+			chars.flip();
+		}
+
+		/**
+		 * @return Next line (without its end of line), null at the end of the channel
+		 */
+		String next() throws IOException
+		{
+			line.setLength(0);
+			while (true)
+			{
+				while (chars.hasRemaining())
+				{
+					char c = chars.get();
+					if (c == '\n')
+						return line();
+					if (line.length() == maxLength)
+						throw new IOException("Record longer than " + maxLength + " characters");
+					line.append(c);
+				}
+				if (!fill())
+					return line.length() > 0 ? line() : null;
+			}
+		}
+
+		//decodes the next characters, false at the end of the channel
+		private boolean fill() throws IOException
+		{
+			chars.clear();
+			while (chars.position() == 0 && !eof)
+			{
+				if (channel.read(bytes) < 0)
+					eof = true;
+				bytes.flip();
+				decoder.decode(bytes, chars, eof);
+				bytes.compact();
+				if (eof)
+					decoder.flush(chars);
+			}
+			chars.flip();
+			return chars.hasRemaining();
+		}
+
+		private String line()
+		{
+			int length = line.length();
+			if (length > 0 && line.charAt(length - 1) == '\r')
+				length--;
+			return line.substring(0, length);
+		}
+	}
+
+	/**
+	 * Text written to a channel in UTF-8 through a fixed buffer
+	 */
+	static final class LineWriter {
+
+		private final WritableByteChannel channel;
+		private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER);
+
+		LineWriter(WritableByteChannel channel)
+		{
+			this.channel = channel;
+		}
+
+		void write(CharSequence text) throws IOException
+		{
+			CharBuffer chars = CharBuffer.wrap(text);
+			encoder.reset();
+			while (encoder.encode(chars, bytes, true).isOverflow())
+				drain();
+			while (encoder.flush(bytes).isOverflow())
+				drain();
+		}
+
+		/**
+		 * Writes the buffered bytes
+		 */
+		void flush() throws IOException
+		{
+			drain();
+		}
+
+		private void drain() throws IOException
+		{
+			bytes.flip();
+			while (bytes.hasRemaining())
+				channel.write(bytes);
+			bytes.clear();
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package org.context.implementation;
+
+
+/**
+ * Time expressions in English
+ */
+public class EnglishTimeScanner extends TimeScanner {
+
+	private static final String[] FOR_WORDS = {"for", "over"};
+	private static final String[] FOR_LAST = {"last", "past"};
+
+	private static final String[] DAYS = {"day", "days"};
+	private static final String[] WEEKS = {"week", "weeks"};
+	private static final String[] LONGER = {"month", "months", "year", "years"};
+	private static final String[] WEEKS_AGO = {" weeks ago"};
+	private static final String[] MONTHS = {"january", "february", "march", "april", "may", "june", "july", "august",
+		"september", "october", "november", "december", "spring", "summer", "fall", "winter"};
+	private static final int[] NONE = {N_NONE};
+
+
+	public EnglishTimeScanner()
+	{
+		super("fo", "0123456789", "0123456789 jfmasondw");
+	}
+
+	/**
+	 * (for|over) the (last|past) ...
+	 */
+	@Override
+	int matchFor(CharSequence s, int i, int limit)
+	{
+		for (String word : FOR_WORDS)
+		{
+			int e = literal(s, i, limit, word);
+			if (e < 0 || (e = literal(s, e, limit, " the ")) < 0)
+				continue;
+			for (String last : FOR_LAST)
+			{
+				int l = literal(s, e, limit, last);
+				if (l < 0 || (l = literal(s, l, limit, " ")) < 0)
+					continue;
+				int end = duration(s, l, limit, OVER_13, " -", DAYS, null);
+				if (end < 0)
+					end = duration(s, l, limit, OVER_1, " -", WEEKS, null);
+				if (end < 0)
+					end = duration(s, l, limit, ANY, " -", LONGER, null);
+				if (end >= 0)
+					return end;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Expressions of more than 14 days
+	 */
+	@Override
+	int matchDuration(CharSequence s, int i, int limit)
+	{
+		int end = duration(s, i, limit, OVER_13, " -", DAYS, " of");
+		if (end < 0)
+			end = duration(s, i, limit, OVER_1, " -", WEEKS, " of");
+		if (end < 0)
+			end = duration(s, i, limit, ANY, " -", LONGER, " of");
+		return end;
+	}
+
+	/**
+	 * ... ago, months and seasons
+	 */
+	@Override
+	int matchSince(CharSequence s, int i, int limit)
+	{
+		int end = duration(s, i, limit, OVER_1, null, WEEKS_AGO, null);
+		if (end < 0)
+			end = duration(s, i, limit, ANY_OPTIONAL, " ", LONGER, " ago");
+		if (end < 0)
+			end = literal(s, i, limit, MONTHS);
+		return end;
+	}
+
+	/**
+	 * " month ago" without number
+	 */
+	@Override
+	int matchSinceAfterSpace(CharSequence s, int i, int limit)
+	{
+		return duration(s, i, limit, NONE, null, LONGER, " ago");
+	}
+}
@@ -0,0 +1,111 @@
+package org.context.implementation;
+
+
+/**
+ * Time expressions in French
+ */
+public class FrenchTimeScanner extends TimeScanner {
+
+	private static final String[] FOR_WORDS = {"pour", "pendant"};
+	private static final String[] FOR_ARTICLES = {"le", "la", "les"};
+	private static final String[] FOR_LAST = {"dernier", "dernière", "dernières", "derniers"};
+	private static final String[] SINCE_WORDS = {"depuis", "y a", "ya"};
+	private static final String[] SINCE_LAST = {" le dernier", " la dernière", " les derniers", " les dernières", ""};
+
+	//the original pattern used the character class [jour|jours]
+	private static final String[] DAY_CHARACTERS = {"j", "o", "u", "r", "|", "s"};
+	private static final String[] DAYS = {"jour", "jours"};
+	private static final String[] WEEKS = {"semaine", "semaines"};
+	private static final String[] LONGER = {"mois", "an", "ans", "année", "années"};
+	private static final String[] SINCE_WEEKS = {" semaines"};
+	private static final String[] MONTHS = {"janvier", "février", "mars", "avril", "mai", "juin", "juillet", "aout",
+		"août", "septembre", "octobre", "novembre", "décembre", "decembre", "printemps", "été", "hiver", "automne"};
+
+
+	public FrenchTimeScanner()
+	{
+		this(false);
+	}
+
+	/**
+	 * @param foldAccents The sentences are normalized without accents ("decembre", "ete", ...)
+	 */
+	public FrenchTimeScanner(boolean foldAccents)
+	{
+		super("p", "0123456789", "dyjfmasonpéh", foldAccents);
+	}
+
+	/**
+	 * (pour|pendant) (le|la|les) (dernier|dernière|dernières|derniers) ...
+	 */
+	@Override
+	int matchFor(CharSequence s, int i, int limit)
+	{
+		for (String word : FOR_WORDS)
+		{
+			int e = literal(s, i, limit, word);
+			if (e < 0 || (e = literal(s, e, limit, " ")) < 0)
+				continue;
+			for (String article : FOR_ARTICLES)
+			{
+				int a = literal(s, e, limit, article);
+				if (a < 0 || (a = literal(s, a, limit, " ")) < 0)
+					continue;
+				for (String last : FOR_LAST)
+				{
+					int l = literal(s, a, limit, last);
+					if (l < 0 || (l = literal(s, l, limit, " ")) < 0)
+						continue;
+					int end = duration(s, l, limit, OVER_13, " -", DAY_CHARACTERS, " de");
+					if (end < 0)
+						end = duration(s, l, limit, OVER_1, " -", WEEKS, " de");
+					if (end < 0)
+						end = duration(s, l, limit, ANY, " -", LONGER, " de");
+					if (end >= 0)
+						return end;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Expressions of more than 14 days
+	 */
+	@Override
+	int matchDuration(CharSequence s, int i, int limit)
+	{
+		int end = duration(s, i, limit, OVER_13, " -", DAYS, null);
+		if (end < 0)
+			end = duration(s, i, limit, OVER_1, " -", WEEKS, null);
+		if (end < 0)
+			end = duration(s, i, limit, ANY, " -", LONGER, null);
+		return end;
+	}
+
+	/**
+	 * (depuis|y a|ya) ..., months and seasons
+	 */
+	@Override
+	int matchSince(CharSequence s, int i, int limit)
+	{
+		for (String word : SINCE_WORDS)
+		{
+			int e = literal(s, i, limit, word);
+			if (e < 0)
+				continue;
+			for (String last : SINCE_LAST)
+			{
+				int l = literal(s, e, limit, last);
+				if (l < 0 || (l = literal(s, l, limit, " ")) < 0)
+					continue;
+				int end = duration(s, l, limit, OVER_1, null, SINCE_WEEKS, null);
+				if (end < 0)
+					end = duration(s, l, limit, ANY_OPTIONAL, " ", LONGER, null);
+				if (end >= 0)
+					return end;
+			}
+		}
+		return literal(s, i, limit, MONTHS);
+	}
+}
@@ -0,0 +1,210 @@
+package org.context.implementation;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Watches a trigger lexicon file and reloads it when it changes, without stopping the engines using it.
+ *
+ * The file is a lexicon file (see {@link TriggerTagger#load(String, boolean)}) or a compiled snapshot if its
+ * name ends with ".ctx" (see {@link TriggerTagger#loadSnapshot(String)}). A background thread checks its
+ * modification time and size; when they change, the new version is compiled on that thread and published
+ * by setting the shared reference (copy-on-write): the calls in progress finish with the previous
+ * lexicon, the next calls use the new one, and the engines never wait for a lock. A file that cannot be
+ * loaded (I/O or parse error, or any other failure such as running out of memory while compiling it)
+ * leaves the previous lexicon in place, is reported by {@link #getLastError()} and on the standard error,
+ * and is read again at the next change: the thread keeps watching. A new version should
+ * be written in another file and renamed, so that a partly written one is never loaded.
+ *
+ * Usage:
+ *   LexiconWatcher watcher = new LexiconWatcher("triggers.tsv", false, 1000);
+ *   ConTextFrench context = new ConTextFrench(watcher.getTriggers(), dimensions);
+ *   watcher.start();
+ */
+public final class LexiconWatcher implements Closeable {
+
+	private final String path;
+	private final boolean foldAccents;
+	private final long interval;
+	private final AtomicReference<TriggerTagger> triggers;
+
+	//modification time and size of the version loaded (or rejected)
+	private long lastModified;
+	private long length;
+	private volatile int reloads;
+	private volatile IOException lastError;
+	private volatile Thread thread;
+
+
+	/**
+	 * Loads the lexicon (the file must be valid)
+	 * @param path Lexicon file or compiled snapshot (.ctx)
+	 * @param foldAccents Remove the accents of the phrases (lexicon files only: a snapshot keeps the folding
+	 * it was compiled with, and must have this one)
+	 * @param interval Time between two checks of the file, in milliseconds
+	 */
+	public LexiconWatcher(String path, boolean foldAccents, long interval) throws IOException
+	{
+		this.path = path;
+		this.foldAccents = foldAccents;
+		this.interval = interval;
+		File file = new File(path);
+		lastModified = file.lastModified();
+		length = file.length();
+		triggers = new AtomicReference<TriggerTagger>(load());
+	}
+
+	/**
+	 * @return Reference to the current lexicon, to share with the engines
+	 */
+	public AtomicReference<TriggerTagger> getTriggers()
+	{
+		return triggers;
+	}
+
+	/**
+	 * Starts watching the file (daemon thread)
+	 */
+	public synchronized void start()
+	{
+		if (thread != null)
+			return;
+		thread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				while (!Thread.currentThread().isInterrupted())
+				{
+					try
+					{
+						Thread.sleep(interval);
+					}
+					catch (InterruptedException e)
+					{
+						break;
+					}
+					try
+					{
+						check();
+					}
+					catch (Throwable e)
+					{
+						//the thread keeps watching whatever happens while checking
+						System.err.println("Trigger lexicon watcher of " + path + ": " + e);
+					}
+				}
+			}
+		}, "lexicon-watcher " + path);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Reloads the lexicon if the file changed since it was last read
+	 * @return The lexicon was replaced
+	 */
+	public synchronized boolean check()
+	{
+		File file = new File(path);
+		long modified = file.lastModified();
+		long size = file.length();
+		if (modified == lastModified && size == length)
+			return false;
+		lastModified = modified;
+		length = size;
+		try
+		{
+			return publish(load());
+		}
+		catch (IOException e)
+		{
+			fail(e);
+			return false;
+		}
+		catch (Throwable e)
+		{
+			//OutOfMemoryError, StackOverflowError...: the previous lexicon stays
+			fail(new IOException("Could not load the trigger lexicon: " + path, e));
+			return false;
+		}
+	}
+
+	/**
+	 * Reloads the lexicon now
+	 * @return The lexicon was replaced (false if the file has the version already in use)
+	 */
+	public synchronized boolean reload() throws IOException
+	{
+		File file = new File(path);
+		lastModified = file.lastModified();
+		length = file.length();
+		return publish(load());
+	}
+
+	/**
+	 * @return Number of times the lexicon was replaced
+	 */
+	public int getReloadCount()
+	{
+		return reloads;
+	}
+
+	/**
+	 * @return Error of the last version of the file that could not be loaded, null if there was none
+	 */
+	public IOException getLastError()
+	{
+		return lastError;
+	}
+
+	/**
+	 * Stops watching the file (the engines keep the current lexicon)
+	 */
+	@Override
+	public synchronized void close()
+	{
+		if (thread != null)
+		{
+			thread.interrupt();
+			thread = null;
+		}
+	}
+
+	private TriggerTagger load() throws IOException
+	{
+		TriggerTagger loaded;
+		try
+		{
+			loaded = path.endsWith(".ctx") ? TriggerTagger.loadSnapshot(path) : TriggerTagger.load(path, foldAccents);
+		}
+		catch (RuntimeException e)
+		{
+			//a file that does not parse must not stop the watcher thread
+			throw new IOException("Invalid trigger lexicon: " + path, e);
+		}
+		if (loaded.isFoldingAccents() != foldAccents)
+			throw new IOException("The trigger lexicon snapshot must " + (foldAccents ? "" : "not ") + "fold accents: " + path);
+		return loaded;
+	}
+
+	private void fail(IOException e)
+	{
+		lastError = e;
+		System.err.println("Trigger lexicon not reloaded, the previous one stays in use: " + e
+			+ (e.getCause() != null ? " (" + e.getCause() + ")" : ""));
+	}
+
+	private boolean publish(TriggerTagger loaded)
+	{
+		lastError = null;
+		if (loaded.getVersion().equals(triggers.get().getVersion()))
+			return false;
+		triggers.set(loaded);
+		reloads++;
+		return true;
+	}
+}
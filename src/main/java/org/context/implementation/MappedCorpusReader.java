@@ -0,0 +1,205 @@
+package org.context.implementation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Reads the records (lines) of a UTF-8 corpus file in place: the file is memory-mapped by windows of up
+ * to 256 MB and the record boundaries are found in the mapped bytes (a '\n' byte is never part of a
+ * multi-byte character). A record is given as a byte range of a window, without any copy: the range
+ * can be handed to another thread, which decodes it with its own {@link Decoder} into a buffer that it
+ * reuses from one record to the next, so no String is created per record.
+ *
+ * A reader is not thread-safe, the windows it returns can be read by any thread.
+ */
+public final class MappedCorpusReader implements Closeable {
+
+	private static final int WINDOW = 1 << 28;
+
+	private final FileChannel channel;
+	private final long size;
+	private final int windowSize;
+
+	private MappedByteBuffer window;
+	//offset of the window in the file
+	private long windowOffset;
+	//end of the last complete record of the window
+	private int windowLimit;
+	private int start = -1;
+	private int end;
+	private int next;
+
+
+	/**
+	 * @param path Corpus file
+	 */
+	public MappedCorpusReader(String path) throws IOException
+	{
+		this(path, 0);
+	}
+
+	/**
+	 * @param path Corpus file
+	 * @param offset Offset of the first record to read (the start of a record, see {@link #nextOffset()})
+	 */
+	public MappedCorpusReader(String path, long offset) throws IOException
+	{
+		this(path, offset, WINDOW);
+	}
+
+	/**
+	 * @param path Corpus file
+	 * @param offset Offset of the first record to read (the start of a record)
+	 * @param windowSize Size of the mapped windows (at least the size of the longest record)
+	 */
+	public MappedCorpusReader(String path, long offset, int windowSize) throws IOException
+	{
+		this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+		this.size = channel.size();
+		this.windowSize = windowSize;
+		map(offset);
+	}
+
+	/**
+	 * Moves to the next record
+	 * @return false at the end of the file
+	 */
+	public boolean next() throws IOException
+	{
+		if (next == windowLimit)
+		{
+			if (windowOffset + windowLimit >= size)
+				return false;
+			map(windowOffset + windowLimit);
+		}
+		start = next;
+		int i = start;
+		while (i < windowLimit && window.get(i) != '\n')
+			i++;
+		next = i < windowLimit ? i + 1 : i;
+		//without the end of line
+		end = i > start && window.get(i - 1) == '\r' ? i - 1 : i;
+		return true;
+	}
+
+	/**
+	 * @return Window of the current record (read it with absolute gets only: it is shared)
+	 */
+	public ByteBuffer buffer()
+	{
+		return window;
+	}
+
+	/**
+	 * @return Offset of the current record in its window
+	 */
+	public int start()
+	{
+		return start;
+	}
+
+	/**
+	 * @return Offset after the current record in its window (without the end of line)
+	 */
+	public int end()
+	{
+		return end;
+	}
+
+	/**
+	 * @return Offset of the current record in the file
+	 */
+	public long offset()
+	{
+		return windowOffset + start;
+	}
+
+	/**
+	 * @return Offset of the next record in the file
+	 */
+	public long nextOffset()
+	{
+		return windowOffset + next;
+	}
+
+	/**
+	 * Closes the file (the windows already returned stay readable)
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+
+	//maps the window starting at offset, cut after its last end of line
+	private void map(long offset) throws IOException
+	{
+		long length = Math.min(windowSize, size - offset);
+		window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+		windowOffset = offset;
+		int limit = (int) length;
+		if (offset + length < size)
+		{
+			while (limit > 0 && window.get(limit - 1) != '\n')
+				limit--;
+			if (limit == 0)
+				throw new IOException("Record longer than the window (" + windowSize + " bytes) at offset " + offset);
+		}
+		windowLimit = limit;
+		next = 0;
+	}
+
+	/**
+	 * Decoding buffers of a thread (ASCII is copied directly, the rest goes through a UTF-8 decoder that
+	 * replaces malformed bytes)
+	 */
+	public static final class Decoder {
+
+		private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		private char[] chars = new char[1024];
+
+		/**
+		 * Decodes a record
+		 * @param buffer Window of the record
+		 * @param start Offset of the record in the window
+		 * @param end Offset after the record
+		 * @return Characters of the record (valid until the next call: the buffer is reused)
+		 */
+		public CharBuffer decode(ByteBuffer buffer, int start, int end)
+		{
+			int length = end - start;
+			if (length > chars.length)
+				chars = new char[Math.max(length, 2 * chars.length)];
+			int i = 0;
+			while (i < length)
+			{
+				byte b = buffer.get(start + i);
+				if (b < 0)
+					break;
+				chars[i++] = (char) b;
+			}
+			if (i == length)
+				return CharBuffer.wrap(chars, 0, length);
+
+			//the rest of the record is not ASCII: decoded (never more characters than bytes)
+			ByteBuffer bytes = buffer.duplicate();
+			bytes.limit(end).position(start + i);
+			CharBuffer out = CharBuffer.wrap(chars, i, chars.length - i);
+			decoder.reset();
+			decoder.decode(bytes, out, true);
+			decoder.flush(out);
+			return CharBuffer.wrap(chars, 0, out.position());
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package org.context.implementation;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+
+
+/**
+ * Normalizes a text for the matching in a single pass: runs of whitespace replaced by one space, lower case
+ * and, optionally, accents removed (é -&gt; e, ç -&gt; c, ...). The normalized characters are written in a
+ * buffer kept from one text to the next, with the offset of each character in the original text, so that
+ * normalizing a sentence allocates nothing once the buffer is large enough.
+ *
+ * Lower case is computed as String.toLowerCase does for French (the capital I with dot gives "i" and a
+ * combining dot, supplementary characters are supported), except for the final form of the Greek sigma.
+ *
+ * A normalizer is not thread-safe: each thread uses its own.
+ */
+public final class TextNormalizer {
+
+	//accent folding of the Latin characters (the others are unchanged)
+	private static final char[] FOLD = new char[0x250];
+	static
+	{
+		for (char c=0; c < FOLD.length; c++)
+		{
+			String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+			FOLD[c] = c;
+			if (decomposed.length() > 1 && decomposed.charAt(0) < 0x80)
+			{
+				boolean marks = true;
+				for (int i=1; i < decomposed.length(); i++)
+					marks &= Character.getType(decomposed.charAt(i)) == Character.NON_SPACING_MARK;
+				if (marks)
+					FOLD[c] = decomposed.charAt(0);
+			}
+		}
+	}
+
+	private final boolean foldAccents;
+
+	private char[] chars = new char[128];
+	private int[] offsets = new int[128];
+	private int length;
+
+
+	/**
+	 * Normalizer keeping the accents
+	 */
+	public TextNormalizer()
+	{
+		this(false);
+	}
+
+	/**
+	 * @param foldAccents Remove the accents of the Latin characters
+	 */
+	public TextNormalizer(boolean foldAccents)
+	{
+		this.foldAccents = foldAccents;
+	}
+
+	/**
+	 * Normalizes a text (replaces the previous one)
+	 * @return This normalizer
+	 */
+	public TextNormalizer normalize(CharSequence text)
+	{
+		length = 0;
+		return append(text, 0, text.length());
+	}
+
+	/**
+	 * Removes the normalized text
+	 * @return This normalizer
+	 */
+	public TextNormalizer clear()
+	{
+		length = 0;
+		return this;
+	}
+
+	/**
+	 * Appends a character as it is (it has no offset in the original text: -1)
+	 * @return This normalizer
+	 */
+	public TextNormalizer append(char c)
+	{
+		put(c, -1);
+		return this;
+	}
+
+	/**
+	 * Appends a part of a text, normalized (a run of whitespace is not merged with the text already there)
+	 * @param text Original text (the offsets refer to it)
+	 * @param start Offset of the first character
+	 * @param end Offset after the last character
+	 * @return This normalizer
+	 */
+	public TextNormalizer append(CharSequence text, int start, int end)
+	{
+		if (length + end - start > chars.length)
+			grow(length + end - start);
+		boolean space = false;
+		for (int i=start; i < end; i++)
+		{
+			char c = text.charAt(i);
+			if (c <= ' ' && TriggerTagger.isSpace(c))
+			{
+				if (!space)
+					put(' ', i);
+				space = true;
+				continue;
+			}
+			space = false;
+			if (c < 0x80)
+				put(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c, i);
+			else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i+1)))
+			{
+				int lower = Character.toLowerCase(Character.toCodePoint(c, text.charAt(i+1)));
+				if (Character.isSupplementaryCodePoint(lower))
+				{
+					put(Character.highSurrogate(lower), i);
+					put(Character.lowSurrogate(lower), i+1);
+				}
+				else
+					put((char) lower, i);
+				i++;
+			}
+			else if (c == '\u0130')
+			{
+				//capital I with dot: "i" and the combining dot
+				put('i', i);
+				if (!foldAccents)
+					put('\u0307', i);
+			}
+			else
+			{
+				c = Character.toLowerCase(c);
+				put(foldAccents ? fold(c) : c, i);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * @return Normalized characters (only the first length() are used)
+	 */
+	public char[] chars()
+	{
+		return chars;
+	}
+
+	/**
+	 * @return Number of normalized characters
+	 */
+	public int length()
+	{
+		return length;
+	}
+
+	/**
+	 * @param i Index of a normalized character
+	 * @return Offset of the character in the original text (the first character of a run of whitespace),
+	 * -1 if it was appended as it is
+	 */
+	public int offset(int i)
+	{
+		return offsets[i];
+	}
+
+	/**
+	 * Same as String.indexOf on the normalized texts
+	 * @param pattern Normalized text to look for
+	 * @param from Index of the first character where it can start
+	 * @return Index of the first occurrence, -1 if there is none
+	 */
+	public int indexOf(TextNormalizer pattern, int from)
+	{
+		int n = pattern.length;
+		if (from < 0)
+			from = 0;
+		if (n == 0)
+			return Math.min(from, length);
+		char first = pattern.chars[0];
+		for (int i=from; i <= length - n; i++)
+		{
+			if (chars[i] != first)
+				continue;
+			int k = 1;
+			while (k < n && chars[i+k] == pattern.chars[k])
+				k++;
+			if (k == n)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return Normalized text
+	 */
+	@Override
+	public String toString()
+	{
+		return new String(chars, 0, length);
+	}
+
+	/**
+	 * @return The character without its accent (Latin characters), the character itself otherwise
+	 */
+	public static char fold(char c)
+	{
+		return c < FOLD.length ? FOLD[c] : c;
+	}
+
+	private void put(char c, int offset)
+	{
+		if (length == chars.length)
+			grow(length + 1);
+		chars[length] = c;
+		offsets[length++] = offset;
+	}
+
+	private void grow(int capacity)
+	{
+		capacity = Math.max(capacity, 2 * chars.length);
+		chars = Arrays.copyOf(chars, capacity);
+		offsets = Arrays.copyOf(offsets, capacity);
+	}
+}
@@ -0,0 +1,432 @@
+package org.context.implementation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Recognizes the time expressions of a sentence (expressions of more than 14 days, dates and seasons)
+ * and tags them as &lt;TIME_PRE&gt; or &lt;TIME_POST&gt;.
+ *
+ * The expressions are recognized by hand-written matchers (one per language) instead of regexes compiled
+ * for every sentence: a single scan of the sentence finds the candidate expressions of the three patterns
+ * ("for the last ...", "... of", "... ago"/"depuis ..."), which are then resolved in the order in which the
+ * original regexes were applied, so the tagged sentence is unchanged.
+ *
+ * Scanners are immutable and can be shared by several threads.
+ */
+public abstract class TimeScanner {
+
+	//patterns, in tagging order
+	static final int FOR = 0;
+	static final int DURATION = 1;
+	static final int SINCE = 2;
+
+	//number alternatives
+	static final int N_14_19 = 0;      // 1[4-9]
+	static final int N_120_999 = 1;    // [1-9][2-9][0-9]
+	static final int N_20_99 = 2;      // [2-9][0-9]
+	static final int N_2_9 = 3;        // [2-9]
+	static final int N_10_99 = 4;      // [1-9][0-9]
+	static final int N_0_9 = 5;        // [0-9]
+	static final int N_NONE = 6;       // no number
+
+	static final int[] OVER_13 = {N_14_19, N_120_999, N_20_99};   // (1[4-9]|[1-9]?[2-9][0-9])
+	static final int[] OVER_1 = {N_2_9, N_10_99};                 // ([2-9]|[1-9][0-9])
+	static final int[] ANY = {N_10_99, N_0_9};                    // ([1-9]?[0-9])
+	static final int[] ANY_OPTIONAL = {N_10_99, N_0_9, N_NONE};   // ([1-9]?[0-9])?
+
+	//characters that can start an expression of each pattern
+	private final String[] starts;
+	//the sentences are written without accents: the words are compared without their accents
+	private final boolean foldAccents;
+
+
+	/**
+	 * A time expression found in a sentence
+	 */
+	public static class TimeExpression {
+
+		private final int start;
+		private final int end;
+		private final TriggerCategory category;
+
+		TimeExpression(int start, int end, TriggerCategory category)
+		{
+			this.start = start;
+			this.end = end;
+			this.category = category;
+		}
+
+		/**
+		 * @return Offset of the first character of the expression
+		 */
+		public int getStart()
+		{
+			return start;
+		}
+
+		/**
+		 * @return Offset after the last character of the expression
+		 */
+		public int getEnd()
+		{
+			return end;
+		}
+
+		/**
+		 * @return TIME_PRE or TIME_POST
+		 */
+		public TriggerCategory getCategory()
+		{
+			return category;
+		}
+	}
+
+	/**
+	 * @param forStarts First characters of the "for the last" expressions
+	 * @param durationStarts First characters of the duration expressions
+	 * @param sinceStarts First characters of the "ago" / "depuis" expressions, months and seasons
+	 */
+	TimeScanner(String forStarts, String durationStarts, String sinceStarts)
+	{
+		this(forStarts, durationStarts, sinceStarts, false);
+	}
+
+	/**
+	 * @param foldAccents The sentences are normalized without accents (see {@link TextNormalizer})
+	 */
+	TimeScanner(String forStarts, String durationStarts, String sinceStarts, boolean foldAccents)
+	{
+		this.foldAccents = foldAccents;
+		starts = new String[]{fold(forStarts), fold(durationStarts), fold(sinceStarts)};
+	}
+
+	/**
+	 * "for the last 2 weeks" / "pour les derniers 2 mois de" (tagged TIME_PRE)
+	 * @return End of the expression starting at i, -1 if there is none
+	 */
+	abstract int matchFor(CharSequence s, int i, int limit);
+
+	/**
+	 * "2 weeks of" / "2 mois" (tagged TIME_PRE)
+	 * @return End of the expression starting at i, -1 if there is none
+	 */
+	abstract int matchDuration(CharSequence s, int i, int limit);
+
+	/**
+	 * "2 weeks ago", months and seasons / "depuis 2 mois", months and seasons (tagged TIME_POST)
+	 * @return End of the expression starting at i, -1 if there is none
+	 */
+	abstract int matchSince(CharSequence s, int i, int limit);
+
+	/**
+	 * Same as matchSince, for an expression starting with the space that precedes a time tag
+	 * @return End of the expression continuing at i, -1 if there is none
+	 */
+	int matchSinceAfterSpace(CharSequence s, int i, int limit)
+	{
+		return -1;
+	}
+
+	/**
+	 * Finds the time expressions of a sentence
+	 * @param sentence Normalized sentence (lower case)
+	 * @return Time expressions, in sentence order
+	 */
+	public List<TimeExpression> find(String sentence)
+	{
+		Spans spans = scan(sentence);
+		List<TimeExpression> expressions = new ArrayList<TimeExpression>(spans.size);
+		for (int x : spans.order())
+			expressions.add(new TimeExpression(spans.start[x], spans.end[x], spans.category(x)));
+		return expressions;
+	}
+
+	/**
+	 * Replaces the time expressions of the sentence by their tags
+	 * @param sentence Normalized sentence (lower case)
+	 * @return Tagged sentence
+	 */
+	public String tag(String sentence)
+	{
+		Spans spans = scan(sentence);
+		if (spans.size == 0)
+			return sentence;
+
+		StringBuilder tagged = new StringBuilder(sentence.length() + 16 * spans.size);
+		int last = 0;
+		for (int x : spans.order())
+		{
+			tagged.append(sentence, last, spans.start[x]);
+			tagged.append(' ').append(spans.category(x).tag());
+			if (!spans.trailEaten[x])
+				tagged.append(' ');
+			last = spans.end[x];
+		}
+		tagged.append(sentence, last, sentence.length());
+		return tagged.toString();
+	}
+
+	private Spans scan(String s)
+	{
+		int n = s.length();
+
+		//candidates of the three patterns, found in a single scan
+		int[][] found = new int[3][8];
+		int[] count = new int[3];
+		for (int i=0; i < n; i++)
+		{
+			char c = s.charAt(i);
+			for (int p=FOR; p <= SINCE; p++)
+			{
+				if (starts[p].indexOf(c) == -1)
+					continue;
+				int end = match(p, s, i, n);
+				if (end < 0)
+					continue;
+				if (count[p] + 2 > found[p].length)
+					found[p] = Arrays.copyOf(found[p], found[p].length * 2);
+				found[p][count[p]++] = i;
+				found[p][count[p]++] = end;
+			}
+		}
+
+		//each pattern was applied on the sentence tagged by the previous ones: the previous tags
+		//cannot be part of an expression (but their spaces can)
+		Spans spans = new Spans();
+		for (int p=FOR; p <= SINCE; p++)
+		{
+			int barriers = spans.size;
+			int prevEnd = 0;
+			int c = 0;
+			int[] pads = p == SINCE ? spans.ends() : new int[0];
+			int pad = 0;
+			while (c < count[p] || pad < pads.length)
+			{
+				if (pad < pads.length && (c >= count[p] || pads[pad] <= found[p][c]))
+				{
+					//expression starting with the space after a tag
+					int j = pads[pad++];
+					if (j < prevEnd || j >= n || spans.inside(j, barriers))
+						continue;
+					int end = matchSinceAfterSpace(s, j, spans.nextStart(j, barriers, n));
+					if (end < 0)
+						continue;
+					spans.trailEaten[spans.endingAt(j, barriers)] = true;
+					spans.add(p, j, end);
+					prevEnd = end;
+				}
+				else
+				{
+					int i = found[p][c++];
+					int end = found[p][c++];
+					if (i < prevEnd || spans.inside(i, barriers))
+						continue;
+					int limit = spans.nextStart(i, barriers, n);
+					if (end > limit)
+						end = match(p, s, i, limit);
+					if (end < 0)
+						continue;
+					spans.add(p, i, end);
+					prevEnd = end;
+				}
+			}
+		}
+		return spans;
+	}
+
+	private int match(int pattern, CharSequence s, int i, int limit)
+	{
+		if (pattern == FOR)
+			return matchFor(s, i, limit);
+		else if (pattern == DURATION)
+			return matchDuration(s, i, limit);
+		else
+			return matchSince(s, i, limit);
+	}
+
+	/**
+	 * Number, separator, unit and suffix (alternatives tried in order, as the regexes do)
+	 * @param numbers Number alternatives
+	 * @param separators Characters allowed after the number, null if none
+	 * @param units Unit alternatives
+	 * @param suffix Text following the unit, null if none
+	 * @return End of the expression, -1 if there is none
+	 */
+	int duration(CharSequence s, int i, int limit, int[] numbers, String separators, String[] units, String suffix)
+	{
+		for (int number : numbers)
+		{
+			int e = number(s, i, limit, number);
+			if (e < 0)
+				continue;
+			if (separators != null)
+			{
+				if (e >= limit || separators.indexOf(s.charAt(e)) == -1)
+					continue;
+				e++;
+			}
+			for (String unit : units)
+			{
+				int u = literal(s, e, limit, unit);
+				if (u < 0)
+					continue;
+				if (suffix == null)
+					return u;
+				u = literal(s, u, limit, suffix);
+				if (u >= 0)
+					return u;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return End of the first alternative found at i, -1 if there is none
+	 */
+	int literal(CharSequence s, int i, int limit, String[] alternatives)
+	{
+		for (String alternative : alternatives)
+		{
+			int e = literal(s, i, limit, alternative);
+			if (e >= 0)
+				return e;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return End of the text at i, -1 if it is not there
+	 */
+	int literal(CharSequence s, int i, int limit, String text)
+	{
+		if (i + text.length() > limit)
+			return -1;
+		for (int c=0; c < text.length(); c++)
+			if (s.charAt(i + c) != (foldAccents ? TextNormalizer.fold(text.charAt(c)) : text.charAt(c)))
+				return -1;
+		return i + text.length();
+	}
+
+	/**
+	 * @return The characters without their accents if the sentences are normalized without accents
+	 */
+	private String fold(String text)
+	{
+		if (!foldAccents)
+			return text;
+		char[] folded = text.toCharArray();
+		for (int c=0; c < folded.length; c++)
+			folded[c] = TextNormalizer.fold(folded[c]);
+		return new String(folded);
+	}
+
+	private static int number(CharSequence s, int i, int limit, int number)
+	{
+		switch (number)
+		{
+			case N_14_19:
+				return digit(s, i, limit, '1', '1') && digit(s, i+1, limit, '4', '9') ? i + 2 : -1;
+			case N_120_999:
+				return digit(s, i, limit, '1', '9') && digit(s, i+1, limit, '2', '9') && digit(s, i+2, limit, '0', '9') ? i + 3 : -1;
+			case N_20_99:
+				return digit(s, i, limit, '2', '9') && digit(s, i+1, limit, '0', '9') ? i + 2 : -1;
+			case N_2_9:
+				return digit(s, i, limit, '2', '9') ? i + 1 : -1;
+			case N_10_99:
+				return digit(s, i, limit, '1', '9') && digit(s, i+1, limit, '0', '9') ? i + 2 : -1;
+			case N_0_9:
+				return digit(s, i, limit, '0', '9') ? i + 1 : -1;
+			default:
+				return i;
+		}
+	}
+
+	private static boolean digit(CharSequence s, int i, int limit, char low, char high)
+	{
+		return i < limit && s.charAt(i) >= low && s.charAt(i) <= high;
+	}
+
+
+	/**
+	 * Expressions found in a sentence (in the order they were found)
+	 */
+	private static class Spans {
+
+		int[] start = new int[4];
+		int[] end = new int[4];
+		int[] pattern = new int[4];
+		boolean[] trailEaten = new boolean[4];
+		int size = 0;
+
+		void add(int p, int s, int e)
+		{
+			if (size == start.length)
+			{
+				start = Arrays.copyOf(start, size * 2);
+				end = Arrays.copyOf(end, size * 2);
+				pattern = Arrays.copyOf(pattern, size * 2);
+				trailEaten = Arrays.copyOf(trailEaten, size * 2);
+			}
+			start[size] = s;
+			end[size] = e;
+			pattern[size] = p;
+			size++;
+		}
+
+		TriggerCategory category(int x)
+		{
+			return pattern[x] == SINCE ? TriggerCategory.TIME_POST : TriggerCategory.TIME_PRE;
+		}
+
+		boolean inside(int i, int barriers)
+		{
+			for (int x=0; x < barriers; x++)
+				if (start[x] <= i && i < end[x])
+					return true;
+			return false;
+		}
+
+		int nextStart(int i, int barriers, int limit)
+		{
+			for (int x=0; x < barriers; x++)
+				if (start[x] >= i && start[x] < limit)
+					limit = start[x];
+			return limit;
+		}
+
+		int endingAt(int i, int barriers)
+		{
+			for (int x=0; x < barriers; x++)
+				if (end[x] == i)
+					return x;
+			return -1;
+		}
+
+		int[] ends()
+		{
+			int[] ends = Arrays.copyOf(end, size);
+			Arrays.sort(ends);
+			return ends;
+		}
+
+		int[] order()
+		{
+			Integer[] order = new Integer[size];
+			for (int x=0; x < size; x++)
+				order[x] = x;
+			Arrays.sort(order, new java.util.Comparator<Integer>() {
+				public int compare(Integer a, Integer b)
+				{
+					return start[a] - start[b];
+				}
+			});
+			int[] sorted = new int[size];
+			for (int x=0; x < size; x++)
+				sorted[x] = order[x];
+			return sorted;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package org.context.implementation;
+
+import java.util.Arrays;
+
+
+/**
+ * Splits a tagged sentence in tokens, as String.split with the delimiters of the language did
+ * ("[(),;\s]+" in French, "[,;\s]+" in English), but without creating the token strings: the tokens
+ * are given as offsets in the sentence.
+ *
+ * As with String.split, a sentence starting with a delimiter has an empty first token, and a sentence
+ * made only of delimiters has no token.
+ *
+ * Tokenizers are immutable and can be shared by several threads.
+ */
+public final class Tokenizer {
+
+	/**
+	 * Tokenizer of the French engine: parentheses, commas, semicolons and whitespace
+	 */
+	public static final Tokenizer FRENCH = new Tokenizer("(),;");
+
+	/**
+	 * Tokenizer of the English engine: commas, semicolons and whitespace
+	 */
+	public static final Tokenizer ENGLISH = new Tokenizer(",;");
+
+	//delimiters (all below 64)
+	private final long delimiters;
+
+
+	/**
+	 * @param delimiters Characters separating the tokens, in addition to whitespace (ASCII punctuation or
+	 * control characters, below '@')
+	 */
+	public Tokenizer(String delimiters)
+	{
+		long mask = 0;
+		for (char c : (delimiters + " \t\n\u000B\f\r").toCharArray())
+		{
+			if (c >= 64)
+				throw new IllegalArgumentException("Unsupported delimiter: " + c);
+			mask |= 1L << c;
+		}
+		this.delimiters = mask;
+	}
+
+	/**
+	 * @param sentence Tagged sentence
+	 * @return Start and end offset of each token, in sentence order
+	 */
+	public int[] tokenize(CharSequence sentence)
+	{
+		int n = sentence.length();
+		if (n == 0)
+			return new int[]{0, 0};
+
+		int[] tokens = new int[32];
+		int count = 0;
+		int i = 0;
+		if (isDelimiter(sentence.charAt(0)))
+			count = 2;
+		while (true)
+		{
+			while (i < n && isDelimiter(sentence.charAt(i)))
+				i++;
+			if (i == n)
+				break;
+			int start = i;
+			while (i < n && !isDelimiter(sentence.charAt(i)))
+				i++;
+			if (count + 2 > tokens.length)
+				tokens = Arrays.copyOf(tokens, tokens.length * 2);
+			tokens[count++] = start;
+			tokens[count++] = i;
+		}
+		//only the empty first token: no token
+		if (count == 2 && tokens[1] == 0)
+			return new int[0];
+		return Arrays.copyOf(tokens, count);
+	}
+
+	/**
+	 * @return Tokens of the sentence, as strings
+	 */
+	public String[] split(String sentence)
+	{
+		int[] tokens = tokenize(sentence);
+		String[] words = new String[tokens.length / 2];
+		for (int t=0; t < words.length; t++)
+			words[t] = sentence.substring(tokens[2*t], tokens[2*t+1]);
+		return words;
+	}
+
+	private boolean isDelimiter(char c)
+	{
+		return c < 64 && (delimiters & (1L << c)) != 0;
+	}
+}
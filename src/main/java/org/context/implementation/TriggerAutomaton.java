@@ -0,0 +1,441 @@
+package org.context.implementation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * Aho-Corasick automaton of the trigger phrases of a {@link TriggerTagger}: nodes in breadth-first order
+ * (the root is 0), edges sorted by character, phrases ending at each node.
+ *
+ * The automaton is either in arrays on the heap, or read in place in a memory-mapped snapshot: the
+ * processes mapping the same snapshot share a single copy of it in the page cache, and loading it
+ * copies nothing (the indices are only checked once). Both are laid out the same way in the snapshot (big-endian): edgeStart
+ * (size+1 ints), edgeChar (size-1 chars), edgeTarget (size-1 ints), fail (size ints), outStart (size+1
+ * ints), outPattern (outputs ints), outLink (size ints).
+ */
+abstract class TriggerAutomaton {
+
+	/**
+	 * @return Number of nodes
+	 */
+	abstract int size();
+
+	/**
+	 * @return Number of (node, phrase) outputs
+	 */
+	abstract int outputs();
+
+	/**
+	 * @return Node reached from state with the character c (following the failure links)
+	 */
+	abstract int next(int state, char c);
+
+	/**
+	 * @return The node itself if phrases end there, otherwise the next node of its output links where
+	 * phrases end (0 if none)
+	 */
+	abstract int output(int node);
+
+	/**
+	 * @return Next node of the output links of node where phrases end (0 if none)
+	 */
+	abstract int outLink(int node);
+
+	/**
+	 * @return Index of the first output of node (the outputs of node are outStart(node) to
+	 * outStart(node+1) - 1)
+	 */
+	abstract int outStart(int node);
+
+	/**
+	 * @return Phrase of an output
+	 */
+	abstract int outPattern(int x);
+
+	/**
+	 * Writes the arrays at the position of the buffer (and moves it after them)
+	 */
+	abstract void write(ByteBuffer buffer);
+
+	/**
+	 * @return Length of the arrays in the snapshot, in bytes
+	 */
+	static long length(int size, int outputs)
+	{
+		return 4L * (size+1) + 2L * (size-1) + 4L * (size-1) + 4L * size + 4L * (size+1) + 4L * outputs + 4L * size;
+	}
+
+	/**
+	 * Checks the arrays at the position of a snapshot (the buffer does not move), so that a corrupted one
+	 * is rejected when it is loaded rather than failing (or looping) while tagging: edge and output starts
+	 * in order and in range, edge targets in breadth-first order (the target of edge e is node e+1, after
+	 * its source), failure and output links to existing nodes (links to nodes before their source, as in
+	 * breadth-first order), phrases of the outputs in the lexicon and as long as the depth of their node
+	 * @param lengths Lengths of the phrases of the lexicon
+	 */
+	static void validate(ByteBuffer snapshot, int size, int outputs, int[] lengths) throws IOException
+	{
+		if (size < 1 || outputs < 0 || snapshot.remaining() < length(size, outputs))
+			throw new IOException("Truncated trigger automaton");
+		int edgeStart = snapshot.position();
+		int edgeTarget = edgeStart + 4 * (size+1) + 2 * (size-1);
+		int fail = edgeTarget + 4 * (size-1);
+		int outStart = fail + 4 * size;
+		int outPattern = outStart + 4 * (size+1);
+		int outLink = outPattern + 4 * outputs;
+		checkStarts(snapshot, edgeStart, size, size-1, "edge");
+		checkStarts(snapshot, outStart, size, outputs, "output");
+		int[] depth = new int[size];
+		for (int n=0; n < size; n++)
+		{
+			for (int e=snapshot.getInt(edgeStart + 4 * n), last=snapshot.getInt(edgeStart + 4 * (n+1)); e < last; e++)
+			{
+				int target = snapshot.getInt(edgeTarget + 4 * e);
+				if (target != e+1 || target <= n)
+					throw new IOException("Invalid trigger automaton: edge " + e + " of node " + n + " to node " + target);
+				depth[target] = depth[n] + 1;
+			}
+		}
+		for (int n=0; n < size; n++)
+		{
+			int f = snapshot.getInt(fail + 4 * n);
+			int link = snapshot.getInt(outLink + 4 * n);
+			if (f < 0 || (n == 0 ? f != 0 : f >= n))
+				throw new IOException("Invalid trigger automaton: failure link of node " + n + " to " + f);
+			if (link < 0 || (n == 0 ? link != 0 : link >= n))
+				throw new IOException("Invalid trigger automaton: output link of node " + n + " to " + link);
+			for (int x=snapshot.getInt(outStart + 4 * n), last=snapshot.getInt(outStart + 4 * (n+1)); x < last; x++)
+			{
+				int pattern = snapshot.getInt(outPattern + 4 * x);
+				if (pattern < 0 || pattern >= lengths.length || lengths[pattern] != depth[n])
+					throw new IOException("Invalid trigger automaton: output " + x + " of node " + n + " to phrase " + pattern);
+			}
+		}
+	}
+
+	//starts of the edges or outputs of each node: from 0 to count, in order
+	private static void checkStarts(ByteBuffer snapshot, int offset, int size, int count, String name) throws IOException
+	{
+		int previous = 0;
+		for (int n=0; n <= size; n++)
+		{
+			int start = snapshot.getInt(offset + 4 * n);
+			if (start < previous || start > count || (n == 0 && start != 0) || (n == size && start != count))
+				throw new IOException("Invalid trigger automaton: " + name + "s of node " + n + " start at " + start);
+			previous = start;
+		}
+	}
+
+	/**
+	 * Automaton in arrays on the heap
+	 */
+	static final class Heap extends TriggerAutomaton {
+
+		private final int[] edgeStart;
+		private final char[] edgeChar;
+		private final int[] edgeTarget;
+		private final int[] fail;
+		private final int[] outStart;
+		private final int[] outPattern;
+		private final int[] outLink;
+
+		/**
+		 * Compiles a trie
+		 * @param children Children of each node of the trie, by character (the root is 0)
+		 * @param terminals Phrases ending at each node of the trie
+		 */
+		Heap(List<TreeMap<Character,Integer>> children, List<List<Integer>> terminals)
+		{
+			//renumber the nodes in breadth-first order
+			int size = children.size();
+			int[] order = new int[size];
+			int[] rank = new int[size];
+			int head = 0, tail = 1;
+			while (head < tail)
+			{
+				int node = order[head++];
+				for (int child : children.get(node).values())
+				{
+					rank[child] = tail;
+					order[tail++] = child;
+				}
+			}
+
+			edgeStart = new int[size+1];
+			edgeChar = new char[size-1];
+			edgeTarget = new int[size-1];
+			outStart = new int[size+1];
+			int outputs = 0;
+			for (List<Integer> t : terminals)
+				outputs += t.size();
+			outPattern = new int[outputs];
+			int e = 0, o = 0;
+			for (int n=0; n < size; n++)
+			{
+				edgeStart[n] = e;
+				for (Map.Entry<Character,Integer> edge : children.get(order[n]).entrySet())
+				{
+					edgeChar[e] = edge.getKey();
+					edgeTarget[e++] = rank[edge.getValue()];
+				}
+				outStart[n] = o;
+				for (int p : terminals.get(order[n]))
+					outPattern[o++] = p;
+			}
+			edgeStart[size] = e;
+			outStart[size] = o;
+
+			//failure and output links (parents are always before their children)
+			fail = new int[size];
+			outLink = new int[size];
+			for (int n=0; n < size; n++)
+			{
+				for (int x=edgeStart[n]; x < edgeStart[n+1]; x++)
+				{
+					int child = edgeTarget[x];
+					int f = 0;
+					if (n != 0)
+					{
+						f = fail[n];
+						while (f != 0 && child(f, edgeChar[x]) < 0)
+							f = fail[f];
+						if (child(f, edgeChar[x]) >= 0)
+							f = child(f, edgeChar[x]);
+					}
+					fail[child] = f;
+					outLink[child] = outStart[f] < outStart[f+1] ? f : outLink[f];
+				}
+			}
+		}
+
+		/**
+		 * Copies the arrays of a snapshot (moves the buffer after them)
+		 * @param lengths Lengths of the phrases of the lexicon
+		 */
+		Heap(ByteBuffer snapshot, int size, int outputs, int[] lengths) throws IOException
+		{
+			validate(snapshot, size, outputs, lengths);
+			edgeStart = ints(snapshot, size+1);
+			edgeChar = new char[size-1];
+			snapshot.asCharBuffer().get(edgeChar);
+			snapshot.position(snapshot.position() + 2 * edgeChar.length);
+			edgeTarget = ints(snapshot, size-1);
+			fail = ints(snapshot, size);
+			outStart = ints(snapshot, size+1);
+			outPattern = ints(snapshot, outputs);
+			outLink = ints(snapshot, size);
+		}
+
+		@Override
+		int size()
+		{
+			return fail.length;
+		}
+
+		@Override
+		int outputs()
+		{
+			return outPattern.length;
+		}
+
+		@Override
+		int next(int state, char c)
+		{
+			while (true)
+			{
+				int target = child(state, c);
+				if (target >= 0)
+					return target;
+				if (state == 0)
+					return 0;
+				state = fail[state];
+			}
+		}
+
+		@Override
+		int output(int node)
+		{
+			return outStart[node] < outStart[node+1] ? node : outLink[node];
+		}
+
+		@Override
+		int outLink(int node)
+		{
+			return outLink[node];
+		}
+
+		@Override
+		int outStart(int node)
+		{
+			return outStart[node];
+		}
+
+		@Override
+		int outPattern(int x)
+		{
+			return outPattern[x];
+		}
+
+		@Override
+		void write(ByteBuffer buffer)
+		{
+			put(buffer, edgeStart);
+			buffer.asCharBuffer().put(edgeChar);
+			buffer.position(buffer.position() + 2 * edgeChar.length);
+			put(buffer, edgeTarget);
+			put(buffer, fail);
+			put(buffer, outStart);
+			put(buffer, outPattern);
+			put(buffer, outLink);
+		}
+
+		private int child(int node, char c)
+		{
+			int lo = edgeStart[node], hi = edgeStart[node+1] - 1;
+			while (lo <= hi)
+			{
+				int mid = (lo + hi) >>> 1;
+				if (edgeChar[mid] < c)
+					lo = mid + 1;
+				else if (edgeChar[mid] > c)
+					hi = mid - 1;
+				else
+					return edgeTarget[mid];
+			}
+			return -1;
+		}
+
+		private static int[] ints(ByteBuffer buffer, int length)
+		{
+			int[] values = new int[length];
+			buffer.asIntBuffer().get(values);
+			buffer.position(buffer.position() + 4 * length);
+			return values;
+		}
+
+		private static void put(ByteBuffer buffer, int[] values)
+		{
+			buffer.asIntBuffer().put(values);
+			buffer.position(buffer.position() + 4 * values.length);
+		}
+	}
+
+	/**
+	 * Automaton read in place in a snapshot (memory-mapped): nothing is copied on the heap
+	 */
+	static final class Mapped extends TriggerAutomaton {
+
+		private final ByteBuffer buffer;
+		private final int size;
+		private final int outputs;
+		//offsets of the arrays in the buffer
+		private final int edgeStart;
+		private final int edgeChar;
+		private final int edgeTarget;
+		private final int fail;
+		private final int outStart;
+		private final int outPattern;
+		private final int outLink;
+
+		/**
+		 * Reads the arrays at the position of the snapshot (moves the buffer after them)
+		 * @param lengths Lengths of the phrases of the lexicon
+		 */
+		Mapped(ByteBuffer snapshot, int size, int outputs, int[] lengths) throws IOException
+		{
+			validate(snapshot, size, outputs, lengths);
+			this.buffer = snapshot;
+			this.size = size;
+			this.outputs = outputs;
+			edgeStart = snapshot.position();
+			edgeChar = edgeStart + 4 * (size+1);
+			edgeTarget = edgeChar + 2 * (size-1);
+			fail = edgeTarget + 4 * (size-1);
+			outStart = fail + 4 * size;
+			outPattern = outStart + 4 * (size+1);
+			outLink = outPattern + 4 * outputs;
+			snapshot.position(outLink + 4 * size);
+		}
+
+		@Override
+		int size()
+		{
+			return size;
+		}
+
+		@Override
+		int outputs()
+		{
+			return outputs;
+		}
+
+		@Override
+		int next(int state, char c)
+		{
+			while (true)
+			{
+				int target = child(state, c);
+				if (target >= 0)
+					return target;
+				if (state == 0)
+					return 0;
+				state = buffer.getInt(fail + 4 * state);
+			}
+		}
+
+		@Override
+		int output(int node)
+		{
+			return outStart(node) < outStart(node+1) ? node : outLink(node);
+		}
+
+		@Override
+		int outLink(int node)
+		{
+			return buffer.getInt(outLink + 4 * node);
+		}
+
+		@Override
+		int outStart(int node)
+		{
+			return buffer.getInt(outStart + 4 * node);
+		}
+
+		@Override
+		int outPattern(int x)
+		{
+			return buffer.getInt(outPattern + 4 * x);
+		}
+
+		@Override
+		void write(ByteBuffer destination)
+		{
+			//absolute reads only: the mapping is shared by the threads
+			ByteBuffer arrays = buffer.duplicate();
+			arrays.position(edgeStart);
+			arrays.limit(outLink + 4 * size);
+			destination.put(arrays);
+		}
+
+		private int child(int node, char c)
+		{
+			int lo = buffer.getInt(edgeStart + 4 * node), hi = buffer.getInt(edgeStart + 4 * (node+1)) - 1;
+			while (lo <= hi)
+			{
+				int mid = (lo + hi) >>> 1;
+				char ch = buffer.getChar(edgeChar + 2 * mid);
+				if (ch < c)
+					lo = mid + 1;
+				else if (ch > c)
+					hi = mid - 1;
+				else
+					return buffer.getInt(edgeTarget + 4 * mid);
+			}
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package org.context.implementation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Categories of context trigger terms. The declaration order of the lexicon categories is the order
+ * in which they are tagged in a sentence (earlier categories have priority on overlapping text).
+ */
+public enum TriggerCategory {
+
+	NEG_PSEUDO, NEG_PRE, POSS_PRE, NEG_POST, POSS_POST, NEG_END,
+	EXP_PRE, EXP_END,
+	HYPO_PRE, HYPO_END,
+	HIST_PRE, HIST_1W, HIST_END,
+	HYPO_EXP_END, HIST_EXP_END,
+	//tagged by the time expressions, not by the trigger lexicon
+	TIME_PRE, TIME_POST;
+
+	private final String tag = "<" + name() + ">";
+
+	private static final TriggerCategory[] VALUES = values();
+
+	private static final Map<String,TriggerCategory> TAGS = new HashMap<String,TriggerCategory>();
+	static
+	{
+		for (TriggerCategory category : values())
+			TAGS.put(category.tag, category);
+	}
+
+	/**
+	 * @return Tag replacing the trigger term in the sentence (e.g. "&lt;NEG_PRE&gt;")
+	 */
+	public String tag()
+	{
+		return tag;
+	}
+
+	/**
+	 * @param tag A token of a tagged sentence
+	 * @return Category of the tag, null if the token is not a tag
+	 */
+	static TriggerCategory ofTag(String tag)
+	{
+		return TAGS.get(tag);
+	}
+
+	/**
+	 * @param sentence Tagged sentence
+	 * @param start Start of a token
+	 * @param end End of the token
+	 * @return Category of the tag, null if the token is not a tag
+	 */
+	static TriggerCategory ofTag(String sentence, int start, int end)
+	{
+		for (TriggerCategory category : VALUES)
+			if (category.tag.length() == end - start && sentence.startsWith(category.tag, start))
+				return category;
+		return null;
+	}
+
+	/**
+	 * @return Position and type of the lexicon entries of the category (e.g. "pre" and "neg"), null if
+	 * the category is not in the lexicon
+	 */
+	String[] entry()
+	{
+		for (String position : new String[]{"pseudo", "termin", "pre", "post"})
+			for (String contextType : new String[]{"neg", "poss", "hypo", "hist", "exp", "histexp", "hypoexp"})
+				if (of(position, contextType) == this)
+					return new String[]{position, contextType};
+		return null;
+	}
+
+	/**
+	 * Category of a lexicon entry ("phrase,position,type")
+	 * @param position pseudo, termin, pre or post
+	 * @param contextType neg, poss, hypo, hist, exp, histexp or hypoexp
+	 * @return The category, or null if the entry is not used
+	 */
+	static TriggerCategory of(String position, String contextType)
+	{
+		if (position.compareTo("pseudo")==0)
+			return NEG_PSEUDO;
+		else if (position.compareTo("termin")==0)
+		{
+			if (contextType.compareTo("neg")==0)
+				return NEG_END;
+			else if (contextType.compareTo("hypo")==0)
+				return HYPO_END;
+			else if (contextType.compareTo("hist")==0)
+				return HIST_END;
+			else if (contextType.compareTo("histexp")==0)
+				return HIST_EXP_END;
+			else if (contextType.compareTo("hypoexp")==0)
+				return HYPO_EXP_END;
+			else if (contextType.compareTo("exp")==0)
+				return EXP_END;
+		}
+		else if (position.compareTo("pre")==0)
+		{
+			if (contextType.compareTo("neg")==0)
+				return NEG_PRE;
+			else if (contextType.compareTo("poss")==0)
+				return POSS_PRE;
+			else if (contextType.compareTo("hypo")==0)
+				return HYPO_PRE;
+			else if (contextType.compareTo("exp")==0)
+				return EXP_PRE;
+			else if (contextType.compareTo("hist")==0)
+				return HIST_PRE;
+		}
+		else if (position.compareTo("post")==0)
+		{
+			if (contextType.compareTo("neg")==0)
+				return NEG_POST;
+			else if (contextType.compareTo("poss")==0)
+				return POSS_POST;
+		}
+		return null;
+	}
+}
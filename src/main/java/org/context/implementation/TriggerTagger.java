@@ -0,0 +1,1010 @@
+package org.context.implementation;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+
+/**
+ * Tags the context trigger terms of a sentence (replaces them by &lt;NEG_PRE&gt;, &lt;HIST_PRE&gt;, ...).
+ *
+ * All the trigger phrases of the lexicon are compiled in a single Aho-Corasick automaton, so every
+ * occurrence of every category is found in one left-to-right scan of the sentence. The occurrences are
+ * then resolved category by category with the same rules as the original alternation regexes
+ * ("[\s\.]+phrase[\s\.\:;\,]+" replaced with replaceAll, in the order of {@link TriggerCategory}),
+ * which gives the same tagged sentence as the sequential replaceAll passes.
+ *
+ * Most sentences contain no trigger: a Bloom filter of the first characters of the phrases is checked
+ * before the scan (in the delimited positions only, except for the pseudo triggers), and the sentences
+ * in which no phrase can be tagged are returned as they are.
+ *
+ * The time to tag a sentence does not depend on the size of the lexicon: one transition of the automaton
+ * per character (a binary search among the children of a node, amortized failure links), plus the
+ * occurrences found. The Bloom filter grows with the lexicon, so its false positive rate does not.
+ *
+ * A compiled lexicon is immutable: it is built once and can be shared by any number of
+ * engines and threads.
+ *
+ * Besides the built-in lexicons, a site can ship its own: a lexicon file (one "phrase TAB position TAB
+ * type" entry per line, see {@link #load(String, boolean)}) or a compiled snapshot (see
+ * {@link #writeSnapshot(OutputStream)}), which is loaded with a single read and without compiling,
+ * memory-mapped and shared by all the processes of a host (see {@link #mapSnapshot(String)}), or packaged
+ * with the classes (see {@link #loadResource(String)}).
+ */
+public final class TriggerTagger {
+
+	//on the heap, or in a memory-mapped snapshot
+	private final TriggerAutomaton automaton;
+
+	//trigger phrases, in lexicon order
+	private final String[] phrases;
+	private final TriggerCategory[] categories;
+	private final boolean[] hyphenated;
+	private final boolean foldAccents;
+	private final long version;
+
+	//prefilter: Bloom filter of the first PREFIX characters of the phrases (the whole phrase if it is shorter)
+	private static final int PREFIX = 4;
+	private final long[] filter;   // 2^12 to 2^20 words, 256 bits per phrase
+	private final int filterShift;   // 64 - log2(words)
+	//lengths of the prefixes of the pseudo / delimited phrases
+	private final int[] pseudoLengths;
+	private final int[] delimitedLengths;
+	private final int delimitedMask;
+
+	//sentences tagged and skipped, counted by each thread (no shared write when tagging) and summed on read;
+	//the counts of the threads that ended are added to the retired ones, so the queue holds live threads only
+	private final Queue<Counts> counts = new ConcurrentLinkedQueue<Counts>();
+	private final AtomicLong retiredSentences = new AtomicLong();
+	private final AtomicLong retiredSkipped = new AtomicLong();
+	private final ThreadLocal<Counts> threadCounts = new ThreadLocal<Counts>()
+	{
+		@Override
+		protected Counts initialValue()
+		{
+			retire();
+			Counts thread = new Counts(Thread.currentThread());
+			counts.add(thread);
+			return thread;
+		}
+	};
+
+	//snapshot header
+	private static final int MAGIC = 0x43545854;   // "CTXT"
+	private static final int FORMAT_VERSION = 3;
+
+
+	/**
+	 * Compiles the trigger lexicon
+	 * @param regexes Lexicon entries ("phrase,position,type")
+	 */
+	public TriggerTagger(String[] regexes)
+	{
+		this(regexes, false);
+	}
+
+	/**
+	 * Compiles the trigger lexicon, accent-insensitive if foldAccents: the phrases are compiled without
+	 * their accents (the variants written with and without accents are compiled once) and the sentences
+	 * must be normalized without accents (see {@link TextNormalizer})
+	 * @param regexes Lexicon entries ("phrase,position,type")
+	 * @param foldAccents Remove the accents of the phrases
+	 */
+	public TriggerTagger(String[] regexes, boolean foldAccents)
+	{
+		this(entries(regexes), foldAccents);
+	}
+
+	/**
+	 * Compiles the trigger phrases (in lexicon order)
+	 */
+	private TriggerTagger(Entries entries, boolean foldAccents)
+	{
+		this.foldAccents = foldAccents;
+		Entries compiled = compiled(entries, foldAccents);
+		phrases = compiled.phrases.toArray(new String[compiled.phrases.size()]);
+		categories = compiled.categories.toArray(new TriggerCategory[compiled.categories.size()]);
+		hyphenated = new boolean[phrases.length];
+		version = version(phrases, categories, foldAccents);
+
+		//prefilter
+		filter = new long[filterLength(phrases.length)];
+		filterShift = 64 - Integer.numberOfTrailingZeros(filter.length);
+		int pseudoPrefixes = 0, delimitedPrefixes = 0;
+		for (int p=0; p < phrases.length; p++)
+		{
+			int length = Math.min(phrases[p].length(), PREFIX);
+			boolean pseudo = categories[p] == TriggerCategory.NEG_PSEUDO;
+			long key = 0;
+			for (int c=0; c < length; c++)
+				key = (key << 16) | canonical(phrases[p].charAt(c));
+			add(hash(key, length, pseudo));
+			if (pseudo)
+				pseudoPrefixes |= 1 << length;
+			else
+				delimitedPrefixes |= 1 << length;
+		}
+		pseudoLengths = lengths(pseudoPrefixes);
+		delimitedLengths = lengths(delimitedPrefixes);
+		delimitedMask = delimitedPrefixes;
+
+		//trie of the canonical phrases
+		List<TreeMap<Character,Integer>> children = new ArrayList<TreeMap<Character,Integer>>();
+		List<List<Integer>> terminals = new ArrayList<List<Integer>>();
+		children.add(new TreeMap<Character,Integer>());
+		terminals.add(new ArrayList<Integer>());
+		for (int p=0; p < phrases.length; p++)
+		{
+			hyphenated[p] = phrases[p].indexOf('-') != -1;
+			int node = 0;
+			for (int c=0; c < phrases[p].length(); c++)
+			{
+				char ch = canonical(phrases[p].charAt(c));
+				Integer next = children.get(node).get(ch);
+				if (next == null)
+				{
+					next = children.size();
+					children.add(new TreeMap<Character,Integer>());
+					terminals.add(new ArrayList<Integer>());
+					children.get(node).put(ch, next);
+				}
+				node = next;
+			}
+			terminals.get(node).add(p);
+		}
+
+		automaton = new TriggerAutomaton.Heap(children, terminals);
+	}
+
+	/**
+	 * Loads a compiled snapshot (see {@link #writeSnapshot(OutputStream)}), copied on the heap or read in
+	 * place if mapped
+	 */
+	private TriggerTagger(ByteBuffer snapshot, boolean mapped) throws IOException
+	{
+		int begin = snapshot.position();
+		if (snapshot.remaining() < 12 || snapshot.getInt() != MAGIC)
+			throw new IOException("Not a trigger lexicon snapshot");
+		int format = snapshot.getInt();
+		if (format != FORMAT_VERSION)
+			throw new IOException("Unsupported trigger lexicon snapshot version: " + format);
+		//checksum of the whole snapshot, in its last 4 bytes
+		int end = snapshot.limit() - 4;
+		if (end < snapshot.position() || snapshot.getInt(end) != checksum(snapshot, begin, end))
+			throw new IOException("Corrupted trigger lexicon snapshot: checksum mismatch");
+		snapshot.limit(end);
+		try
+		{
+			foldAccents = snapshot.get() != 0;
+			long expected = snapshot.getLong();
+
+			//every count and length is checked against the bytes left before allocating
+			TriggerCategory[] values = TriggerCategory.values();
+			int count = snapshot.getInt();
+			if (count < 0 || count > snapshot.remaining() / 5)
+				throw new IOException("Corrupted trigger lexicon snapshot");
+			phrases = new String[count];
+			categories = new TriggerCategory[count];
+			hyphenated = new boolean[count];
+			int[] lengths = new int[count];
+			for (int p=0; p < count; p++)
+			{
+				categories[p] = values[snapshot.get()];
+				phrases[p] = new String(chars(snapshot, snapshot.getInt()));
+				hyphenated[p] = phrases[p].indexOf('-') != -1;
+				lengths[p] = phrases[p].length();
+			}
+			version = version(phrases, categories, foldAccents);
+			if (version != expected)
+				throw new IOException("Corrupted trigger lexicon snapshot");
+
+			int size = snapshot.getInt();
+			int outputs = snapshot.getInt();
+			if (mapped)
+				automaton = new TriggerAutomaton.Mapped(snapshot, size, outputs, lengths);
+			else
+				automaton = new TriggerAutomaton.Heap(snapshot, size, outputs, lengths);
+
+			int words = snapshot.getInt();
+			if (words != filterLength(count) || 8L * words > snapshot.remaining())
+				throw new IOException("Corrupted trigger lexicon snapshot");
+			filter = new long[words];
+			filterShift = 64 - Integer.numberOfTrailingZeros(filter.length);
+			snapshot.asLongBuffer().get(filter);
+			snapshot.position(snapshot.position() + 8 * filter.length);
+			int pseudoPrefixes = snapshot.getInt();
+			delimitedMask = snapshot.getInt();
+			pseudoLengths = lengths(pseudoPrefixes);
+			delimitedLengths = lengths(delimitedMask);
+			if (snapshot.hasRemaining())
+				throw new IOException("Corrupted trigger lexicon snapshot");
+		}
+		catch (RuntimeException e)
+		{
+			//BufferUnderflowException, IndexOutOfBoundsException...
+			throw new IOException("Corrupted trigger lexicon snapshot", e);
+		}
+	}
+
+	/**
+	 * Compiles a lexicon file: UTF-8, one entry per line ("phrase TAB position TAB type", with the
+	 * positions and types of the built-in lexicons: "pas de\tpre\tneg"), empty lines and lines starting
+	 * with # are ignored
+	 * @param path Lexicon file
+	 * @param foldAccents Remove the accents of the phrases
+	 */
+	public static TriggerTagger load(String path, boolean foldAccents) throws IOException
+	{
+		try (Reader reader = new InputStreamReader(new FileInputStream(path), StandardCharsets.UTF_8))
+		{
+			return load(reader, foldAccents);
+		}
+	}
+
+	/**
+	 * Compiles a lexicon (see {@link #load(String, boolean)})
+	 * @param reader Lexicon entries
+	 * @param foldAccents Remove the accents of the phrases
+	 */
+	public static TriggerTagger load(Reader reader, boolean foldAccents) throws IOException
+	{
+		Entries entries = new Entries();
+		BufferedReader lines = new BufferedReader(reader);
+		String line;
+		int number = 0;
+		while ((line = lines.readLine()) != null)
+		{
+			number++;
+			if (line.trim().length() == 0 || line.startsWith("#"))
+				continue;
+			String[] columns = line.split("\t");
+			if (columns.length != 3)
+				throw new IOException("Invalid trigger lexicon entry, line " + number + ": " + line);
+			//the spaces of the phrase are kept: they are part of the match
+			TriggerCategory category = TriggerCategory.of(columns[1].trim(), columns[2].trim());
+			if (category == null)
+				throw new IOException("Unknown trigger position or type, line " + number + ": " + line);
+			entries.add(columns[0], category);
+		}
+		return new TriggerTagger(entries, foldAccents);
+	}
+
+	/**
+	 * Loads a compiled snapshot (see {@link #writeSnapshot(OutputStream)})
+	 * @param path Snapshot file
+	 */
+	public static TriggerTagger loadSnapshot(String path) throws IOException
+	{
+		return new TriggerTagger(ByteBuffer.wrap(Files.readAllBytes(Paths.get(path))), false);
+	}
+
+	/**
+	 * Maps a compiled snapshot in memory (see {@link #writeSnapshot(OutputStream)}): the automaton is read
+	 * in place in the mapping, so it is not copied on the heap and the processes mapping the same file
+	 * share it (only the phrases and the prefilter are loaded). The file must not be modified while
+	 * it is mapped.
+	 * @param path Snapshot file
+	 */
+	public static TriggerTagger mapSnapshot(String path) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ))
+		{
+			//the mapping stays valid after the channel is closed
+			return new TriggerTagger(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), true);
+		}
+	}
+
+	/**
+	 * Loads a compiled snapshot (see {@link #writeSnapshot(OutputStream)})
+	 * @param in Snapshot (read to the end, not closed)
+	 */
+	public static TriggerTagger loadSnapshot(InputStream in) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1 << 16];
+		int read;
+		while ((read = in.read(buffer)) != -1)
+			bytes.write(buffer, 0, read);
+		return new TriggerTagger(ByteBuffer.wrap(bytes.toByteArray()), false);
+	}
+
+	/**
+	 * Loads a compiled snapshot packaged with the classes (see {@link #writeSnapshot(OutputStream)})
+	 * @param name Name of the resource in the classpath ("lexicons/triggers.ctx")
+	 */
+	public static TriggerTagger loadResource(String name) throws IOException
+	{
+		try (InputStream in = TriggerTagger.class.getClassLoader().getResourceAsStream(name))
+		{
+			if (in == null)
+				throw new FileNotFoundException("Trigger lexicon snapshot not found in the classpath: " + name);
+			return loadSnapshot(in);
+		}
+	}
+
+	/**
+	 * Built-in lexicon: the snapshot compiled at build time from the same entries (see
+	 * {@link org.context.app.LexiconCompiler}), or the entries compiled if the snapshot is missing, was
+	 * compiled from other entries or cannot be read
+	 * @param name Name of the snapshot in the classpath
+	 * @param regexes Lexicon entries ("phrase,position,type")
+	 * @param foldAccents Remove the accents of the phrases
+	 */
+	static TriggerTagger builtIn(String name, String[] regexes, boolean foldAccents)
+	{
+		Entries entries = entries(regexes);
+		Entries compiled = compiled(entries, foldAccents);
+		long expected = version(compiled.phrases.toArray(new String[compiled.phrases.size()]),
+			compiled.categories.toArray(new TriggerCategory[compiled.categories.size()]), foldAccents);
+		try
+		{
+			TriggerTagger snapshot = loadResource(name);
+			if (snapshot.version == expected)
+				return snapshot;
+		}
+		catch (IOException e)
+		{
+			//compiled below
+		}
+		return new TriggerTagger(entries, foldAccents);
+	}
+
+	/**
+	 * Writes the compiled phrases as a lexicon file (see {@link #load(String, boolean)}): loading it
+	 * gives the same tagger
+	 * @param writer Destination (not closed)
+	 */
+	public void writeLexicon(Writer writer) throws IOException
+	{
+		writer.write("# trigger lexicon " + getVersion() + (foldAccents ? " (without accents)" : "") + "\n");
+		for (int p=0; p < phrases.length; p++)
+		{
+			String[] entry = categories[p].entry();
+			writer.write(phrases[p] + "\t" + entry[0] + "\t" + entry[1] + "\n");
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Writes the compiled automaton: magic number, format version, accent folding, lexicon version,
+	 * phrases, then the automaton and prefilter arrays, and the CRC32 of all the preceding bytes (big-endian)
+	 * @param out Destination (not closed)
+	 */
+	public void writeSnapshot(OutputStream out) throws IOException
+	{
+		int length = 4 + 4 + 1 + 8 + 4 + 4 + 4 + (int) TriggerAutomaton.length(automaton.size(), automaton.outputs())
+			+ 4 + 8 * filter.length + 4 + 4 + 4;
+		for (String phrase : phrases)
+			length += 1 + 4 + 2 * phrase.length();
+
+		ByteBuffer snapshot = ByteBuffer.allocate(length);
+		snapshot.putInt(MAGIC).putInt(FORMAT_VERSION).put((byte) (foldAccents ? 1 : 0)).putLong(version);
+		snapshot.putInt(phrases.length);
+		for (int p=0; p < phrases.length; p++)
+		{
+			snapshot.put((byte) categories[p].ordinal()).putInt(phrases[p].length());
+			snapshot.asCharBuffer().put(phrases[p]);
+			snapshot.position(snapshot.position() + 2 * phrases[p].length());
+		}
+		snapshot.putInt(automaton.size()).putInt(automaton.outputs());
+		automaton.write(snapshot);
+		snapshot.putInt(filter.length);
+		snapshot.asLongBuffer().put(filter);
+		snapshot.position(snapshot.position() + 8 * filter.length);
+		int pseudoPrefixes = 0;
+		for (int l : pseudoLengths)
+			pseudoPrefixes |= 1 << l;
+		snapshot.putInt(pseudoPrefixes).putInt(delimitedMask);
+		snapshot.putInt(checksum(snapshot, 0, snapshot.position()));
+		out.write(snapshot.array(), 0, snapshot.position());
+		out.flush();
+	}
+
+	/**
+	 * Writes the compiled automaton in a file (see {@link #writeSnapshot(OutputStream)})
+	 * @param path Snapshot file
+	 */
+	public void writeSnapshot(String path) throws IOException
+	{
+		try (OutputStream out = Files.newOutputStream(Paths.get(path)))
+		{
+			writeSnapshot(out);
+		}
+	}
+
+	/**
+	 * @return Number of trigger phrases compiled
+	 */
+	public int size()
+	{
+		return phrases.length;
+	}
+
+	/**
+	 * @return The phrases are compiled without their accents
+	 */
+	public boolean isFoldingAccents()
+	{
+		return foldAccents;
+	}
+
+	/**
+	 * @return Version of the lexicon: hash of the compiled phrases, of their categories and of the accent
+	 * folding (two taggers with the same version tag sentences the same way)
+	 */
+	public String getVersion()
+	{
+		return String.format("%016x", version);
+	}
+
+	/**
+	 * Replaces the trigger terms of the sentence by their tags
+	 * @param sentence Normalized sentence (lower case, single spaces)
+	 * @return Tagged sentence
+	 */
+	public String tag(String sentence)
+	{
+		Counts thread = threadCounts.get();
+		thread.sentences++;
+		if (!mayMatch(sentence))
+		{
+			thread.skipped++;
+			return sentence;
+		}
+
+		int n = sentence.length();
+
+		//finding all the occurrences of the trigger phrases in a single scan
+		long[] found = new long[16];
+		int count = 0;
+		int state = 0;
+		for (int i=0; i < n; i++)
+		{
+			state = automaton.next(state, canonical(sentence.charAt(i)));
+			int node = automaton.output(state);
+			while (node != 0)
+			{
+				for (int x=automaton.outStart(node), end=automaton.outStart(node+1); x < end; x++)
+				{
+					int p = automaton.outPattern(x);
+					int start = i - phrases[p].length() + 1;
+					if (hyphenated[p] && !hyphensMatch(sentence, start, phrases[p]))
+						continue;
+					if (count == found.length)
+						found = Arrays.copyOf(found, count * 2);
+					found[count++] = key(categories[p], start, p);
+				}
+				node = automaton.outLink(node);
+			}
+		}
+		if (count == 0)
+			return sentence;
+
+		//by category (tagging order), then position, then lexicon order
+		Arrays.sort(found, 0, count);
+
+		Tags tags = new Tags(n);
+		int from = 0;
+		while (from < count)
+		{
+			int to = from;
+			while (to < count && category(found[to]) == category(found[from]))
+				to++;
+			if (category(found[from]) == TriggerCategory.NEG_PSEUDO.ordinal())
+				resolvePseudo(tags, found, from, to);
+			else
+				resolve(sentence, tags, found, from, to);
+			from = to;
+		}
+		return tags.render(sentence);
+	}
+
+	/**
+	 * Prefilter: the first tag of a sentence is either a pseudo trigger (anywhere) or a phrase between
+	 * delimiters (the following tags can also be next to a previous one)
+	 * @param sentence Normalized sentence
+	 * @return false if no trigger can be tagged in the sentence, true if some may be
+	 */
+	public boolean mayMatch(String sentence)
+	{
+		int n = sentence.length();
+		long window = 0;
+		//bit l set: the character at i-l is a leading delimiter
+		int delimiters = 0;
+		for (int i=0; i < n; i++)
+		{
+			char c = sentence.charAt(i);
+			window = (window << 16) | canonical(c);
+			for (int l : pseudoLengths)
+				if (l <= i + 1 && contains(hash(prefix(window, l), l, true)))
+					return true;
+			if ((delimiters & delimitedMask) != 0)
+			{
+				for (int l : delimitedLengths)
+				{
+					//the phrases shorter than the prefix are complete: they must be followed by a delimiter
+					if ((delimiters & (1 << l)) == 0
+						|| (l < PREFIX && (i + 1 == n || !isTrailingDelimiter(sentence.charAt(i + 1)))))
+						continue;
+					if (contains(hash(prefix(window, l), l, false)))
+						return true;
+				}
+			}
+			delimiters = (delimiters << 1) | (isLeadingDelimiter(c) ? 2 : 0);
+		}
+		return false;
+	}
+
+	/**
+	 * @return Number of sentences tagged with this lexicon (approximate while other threads are tagging)
+	 */
+	public long getSentenceCount()
+	{
+		retire();
+		long sentences = retiredSentences.get();
+		for (Counts count : counts)
+			sentences += count.sentences;
+		return sentences;
+	}
+
+	/**
+	 * @return Number of sentences returned by the prefilter without scanning them (no trigger could match)
+	 */
+	public long getSkippedSentenceCount()
+	{
+		retire();
+		long skipped = retiredSkipped.get();
+		for (Counts count : counts)
+			skipped += count.skipped;
+		return skipped;
+	}
+
+	/**
+	 * @return Fraction of the sentences skipped by the prefilter
+	 */
+	public double getSkipRate()
+	{
+		retire();
+		long sentences = retiredSentences.get(), skipped = retiredSkipped.get();
+		for (Counts count : counts)
+		{
+			sentences += count.sentences;
+			skipped += count.skipped;
+		}
+		return sentences == 0 ? 0 : (double) skipped / sentences;
+	}
+
+	//two positions in the filter: the high bits of the hash and of a second hash computed from it
+	private boolean contains(long hash)
+	{
+		if ((filter[(int) (hash >>> filterShift)] & (1L << (hash >>> (filterShift - 6)))) == 0)
+			return false;
+		long second = hash * 0xD6E8FEB86659FD93L;
+		return (filter[(int) (second >>> filterShift)] & (1L << (second >>> (filterShift - 6)))) != 0;
+	}
+
+	private void add(long hash)
+	{
+		filter[(int) (hash >>> filterShift)] |= 1L << (hash >>> (filterShift - 6));
+		long second = hash * 0xD6E8FEB86659FD93L;
+		filter[(int) (second >>> filterShift)] |= 1L << (second >>> (filterShift - 6));
+	}
+
+	//number of words of the filter: the false positive rate does not grow with the lexicon
+	private static int filterLength(int phrases)
+	{
+		int words = Integer.highestOneBit(Math.max(4 * phrases - 1, 1)) << 1;
+		return Math.min(Math.max(words, 1 << 12), 1 << 20);
+	}
+
+	//last l characters of the window
+	private static long prefix(long window, int l)
+	{
+		return l == PREFIX ? window : window & ((1L << (16 * l)) - 1);
+	}
+
+	//multiplicative hash of the prefix (up to 4 characters of 16 bits) and of its kind
+	private static long hash(long key, int length, boolean pseudo)
+	{
+		return (key * 0x9E3779B97F4A7C15L + 2 * length + (pseudo ? 1 : 0)) * 0xC2B2AE3D27D4EB4FL;
+	}
+
+	//bits set in the mask
+	private static int[] lengths(int mask)
+	{
+		int[] lengths = new int[Integer.bitCount(mask)];
+		for (int l=0, x=0; l <= PREFIX; l++)
+			if ((mask & (1 << l)) != 0)
+				lengths[x++] = l;
+		return lengths;
+	}
+
+	/**
+	 * Pseudo triggers are not delimited: leftmost occurrence first, then lexicon order
+	 */
+	private void resolvePseudo(Tags tags, long[] found, int from, int to)
+	{
+		int prevEnd = 0;
+		for (int i=from; i < to; i++)
+		{
+			int k = start(found[i]);
+			int end = k + phrases[pattern(found[i])].length();
+			if (k < prevEnd || !tags.isFree(k, end))
+				continue;
+			tags.add(TriggerCategory.NEG_PSEUDO, k, end, prevEnd);
+			prevEnd = end;
+		}
+	}
+
+	/**
+	 * Other triggers are preceded by "[\s\.]+" and followed by "[\s\.\:;\,]+" (the delimiters are
+	 * replaced with the phrase). Occurrences preceded by the same run of delimiters compete in lexicon order.
+	 */
+	private void resolve(String sentence, Tags tags, long[] found, int from, int to)
+	{
+		TriggerCategory category = TriggerCategory.values()[category(found[from])];
+		int prevEnd = 0;
+		int i = from;
+		while (i < to)
+		{
+			int s = leadingStart(sentence, tags, start(found[i]), prevEnd);
+			if (s < 0)
+			{
+				i++;
+				continue;
+			}
+			int r = s;
+			while (r < sentence.length() && tags.owner[r] < 0 && isLeadingDelimiter(sentence.charAt(r)))
+				r++;
+
+			int best = -1, bestEnd = -1;
+			int j = i;
+			for (; j < to && start(found[j]) <= r; j++)
+			{
+				int k = start(found[j]);
+				int p = pattern(found[j]);
+				if (leadingStart(sentence, tags, k, prevEnd) != s || !tags.isFree(k, k + phrases[p].length()))
+					continue;
+				int end = trailingEnd(sentence, tags, k + phrases[p].length());
+				if (end < 0)
+					continue;
+				if (best < 0 || p < pattern(found[best]) || (p == pattern(found[best]) && k > start(found[best])))
+				{
+					best = j;
+					bestEnd = end;
+				}
+			}
+			if (best >= 0)
+			{
+				tags.add(category, s, bestEnd, prevEnd);
+				prevEnd = bestEnd;
+			}
+			i = j;
+		}
+	}
+
+	/**
+	 * @return Start of the delimiters preceding the phrase starting at k, -1 if there are none
+	 */
+	private static int leadingStart(String sentence, Tags tags, int k, int prevEnd)
+	{
+		int j = k - 1;
+		if (j < prevEnd)
+			return -1;
+		if (tags.owner[j] >= 0)
+			return k;
+		if (!isLeadingDelimiter(sentence.charAt(j)))
+			return -1;
+		while (j >= prevEnd && tags.owner[j] < 0 && isLeadingDelimiter(sentence.charAt(j)))
+			j--;
+		return j + 1;
+	}
+
+	/**
+	 * @return End of the delimiters following the phrase ending at e, -1 if there are none
+	 */
+	private static int trailingEnd(String sentence, Tags tags, int e)
+	{
+		if (e >= sentence.length())
+			return -1;
+		if (tags.owner[e] >= 0)
+			return e;
+		if (!isTrailingDelimiter(sentence.charAt(e)))
+			return -1;
+		while (e < sentence.length() && tags.owner[e] < 0 && isTrailingDelimiter(sentence.charAt(e)))
+			e++;
+		return e;
+	}
+
+	//a space of a trigger phrase matches "[\s\-]": spaces and hyphens share the same symbol in the automaton
+	private static char canonical(char c)
+	{
+		return c == '-' || isSpace(c) ? ' ' : c;
+	}
+
+	//an hyphen of a trigger phrase only matches an hyphen
+	private static boolean hyphensMatch(String sentence, int start, String phrase)
+	{
+		for (int c=0; c < phrase.length(); c++)
+			if (phrase.charAt(c) == '-' && sentence.charAt(start + c) != '-')
+				return false;
+		return true;
+	}
+
+	static boolean isSpace(char c)
+	{
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	private static boolean isLeadingDelimiter(char c)
+	{
+		return isSpace(c) || c == '.';
+	}
+
+	private static boolean isTrailingDelimiter(char c)
+	{
+		return isSpace(c) || c == '.' || c == ':' || c == ';' || c == ',';
+	}
+
+	private static Entries entries(String[] regexes)
+	{
+		Entries entries = new Entries();
+		boolean firstPseudo = true;
+		for (int i=0; i < regexes.length; i++)
+		{
+			int attrIndex = regexes[i].indexOf(',');
+			int attrIndex2 = regexes[i].lastIndexOf(',');
+
+			String phrase = regexes[i].substring(0,attrIndex);
+			String position = regexes[i].substring(attrIndex+1, attrIndex2);
+			String contextType = regexes[i].substring(attrIndex2+1);
+
+			TriggerCategory category = TriggerCategory.of(position, contextType);
+			if (category == null)
+				continue;
+			if (category == TriggerCategory.NEG_PSEUDO && firstPseudo)
+			{
+				//the pseudo regex was built with substring(2), which dropped the first character
+				//of the first pseudo trigger: kept as is to tag sentences the same way
+				firstPseudo = false;
+				phrase = phrase.substring(1);
+			}
+			entries.add(phrase, category);
+		}
+		return entries;
+	}
+
+	//phrases compiled, in lexicon order: without the empty ones, and without the variants that are the same once folded
+	private static Entries compiled(Entries entries, boolean foldAccents)
+	{
+		Entries compiled = new Entries();
+		Set<String> folded = new HashSet<String>();
+		for (int i=0; i < entries.phrases.size(); i++)
+		{
+			String phrase = entries.phrases.get(i);
+			TriggerCategory category = entries.categories.get(i);
+			if (phrase.length() == 0)
+				continue;
+			if (foldAccents)
+			{
+				char[] chars = phrase.toCharArray();
+				for (int c=0; c < chars.length; c++)
+					chars[c] = TextNormalizer.fold(chars[c]);
+				phrase = new String(chars);
+				//the first variant of the phrase in the category has priority on the next ones
+				if (!folded.add(category.ordinal() + "," + phrase))
+					continue;
+			}
+			compiled.add(phrase, category);
+		}
+		return compiled;
+	}
+
+	//FNV-1a
+	private static long version(String[] phrases, TriggerCategory[] categories, boolean foldAccents)
+	{
+		long hash = 0xcbf29ce484222325L;
+		hash = (hash ^ (foldAccents ? 1 : 0)) * 0x100000001b3L;
+		for (int p=0; p < phrases.length; p++)
+		{
+			hash = (hash ^ categories[p].ordinal()) * 0x100000001b3L;
+			for (int c=0; c < phrases[p].length(); c++)
+				hash = (hash ^ phrases[p].charAt(c)) * 0x100000001b3L;
+			hash = (hash ^ 0xffff) * 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	private static char[] chars(ByteBuffer buffer, int length) throws IOException
+	{
+		if (length < 0 || length > buffer.remaining() / 2)
+			throw new IOException("Corrupted trigger lexicon snapshot");
+		char[] values = new char[length];
+		buffer.asCharBuffer().get(values);
+		buffer.position(buffer.position() + 2 * length);
+		return values;
+	}
+
+	//CRC32 of the bytes of the buffer between from and end (copied by chunks if it is not on the heap)
+	private static int checksum(ByteBuffer buffer, int from, int end)
+	{
+		CRC32 crc = new CRC32();
+		if (buffer.hasArray())
+			crc.update(buffer.array(), buffer.arrayOffset() + from, end - from);
+		else
+		{
+			ByteBuffer bytes = buffer.duplicate();
+			bytes.limit(end);
+			bytes.position(from);
+			byte[] chunk = new byte[1 << 16];
+			while (bytes.hasRemaining())
+			{
+				int length = Math.min(chunk.length, bytes.remaining());
+				bytes.get(chunk, 0, length);
+				crc.update(chunk, 0, length);
+			}
+		}
+		return (int) crc.getValue();
+	}
+
+	private static long key(TriggerCategory category, int start, int pattern)
+	{
+		return ((long) category.ordinal() << 58) | ((long) start << 24) | pattern;
+	}
+
+	private static int category(long key)
+	{
+		return (int) (key >>> 58);
+	}
+
+	private static int start(long key)
+	{
+		return (int) ((key >>> 24) & 0x3FFFFFFFFL);
+	}
+
+	private static int pattern(long key)
+	{
+		return (int) (key & 0xFFFFFF);
+	}
+
+
+	//moves the counts of the threads that ended to the retired ones (their last counts are visible once
+	//they are no longer alive)
+	private void retire()
+	{
+		for (Counts count : counts)
+		{
+			Thread thread = count.thread.get();
+			if ((thread == null || !thread.isAlive()) && counts.remove(count))
+			{
+				retiredSentences.addAndGet(count.sentences);
+				retiredSkipped.addAndGet(count.skipped);
+			}
+		}
+	}
+
+	//counts of a thread
+	private static class Counts {
+		final WeakReference<Thread> thread;
+		long sentences;
+		long skipped;
+
+		Counts(Thread thread)
+		{
+			this.thread = new WeakReference<Thread>(thread);
+		}
+	}
+
+	//lexicon entries, before compilation
+	private static class Entries {
+		final List<String> phrases = new ArrayList<String>();
+		final List<TriggerCategory> categories = new ArrayList<TriggerCategory>();
+
+		void add(String phrase, TriggerCategory category)
+		{
+			phrases.add(phrase);
+			categories.add(category);
+		}
+	}
+
+	/**
+	 * Tags found in a sentence: characters replaced by each tag, and the spaces around the tags
+	 * that were replaced by the following categories
+	 */
+	private static class Tags {
+
+		final int[] owner;
+		TriggerCategory[] category = new TriggerCategory[8];
+		int[] end = new int[8];
+		boolean[] leadEaten = new boolean[8];
+		boolean[] trailEaten = new boolean[8];
+		int size = 0;
+
+		Tags(int length)
+		{
+			owner = new int[length];
+			Arrays.fill(owner, -1);
+		}
+
+		boolean isFree(int start, int end)
+		{
+			for (int x=start; x < end; x++)
+				if (owner[x] >= 0)
+					return false;
+			return true;
+		}
+
+		void add(TriggerCategory tagCategory, int start, int tagEnd, int prevEnd)
+		{
+			if (size == category.length)
+			{
+				category = Arrays.copyOf(category, size * 2);
+				end = Arrays.copyOf(end, size * 2);
+				leadEaten = Arrays.copyOf(leadEaten, size * 2);
+				trailEaten = Arrays.copyOf(trailEaten, size * 2);
+			}
+			//the replaced delimiters include the spaces around the neighbouring tags
+			if (tagCategory != TriggerCategory.NEG_PSEUDO)
+			{
+				if (start > prevEnd && start > 0 && owner[start-1] >= 0)
+					trailEaten[owner[start-1]] = true;
+				if (tagEnd < owner.length && owner[tagEnd] >= 0)
+					leadEaten[owner[tagEnd]] = true;
+			}
+			category[size] = tagCategory;
+			end[size] = tagEnd;
+			for (int x=start; x < tagEnd; x++)
+				owner[x] = size;
+			size++;
+		}
+
+		String render(String sentence)
+		{
+			StringBuilder tagged = new StringBuilder(sentence.length() + 16 * size);
+			int x = 0;
+			while (x < sentence.length())
+			{
+				int t = owner[x];
+				if (t < 0)
+				{
+					tagged.append(sentence.charAt(x));
+					x++;
+				}
+				else
+				{
+					if (!leadEaten[t])
+						tagged.append(' ');
+					tagged.append(category[t].tag());
+					if (!trailEaten[t])
+						tagged.append(' ');
+					x = end[t];
+				}
+			}
+			return tagged.toString();
+		}
+	}
+}
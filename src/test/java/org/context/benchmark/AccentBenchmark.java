@@ -0,0 +1,83 @@
+package org.context.benchmark;
+
+import org.context.implementation.ConTextFrench;
+import org.context.implementation.ContextResult;
+
+
+/**
+ * Compares the French engine with its accent-insensitive version: size of the compiled trigger lexicon,
+ * throughput of getContext, and contexts found on notes written with and without accents (the
+ * accent-insensitive engine gives the same context to both versions of a sentence).
+ *
+ * Usage: AccentBenchmark [iterations]
+ */
+public class AccentBenchmark {
+
+	//the same notes, with and without accents
+	private static final String[][] SENTENCES = {
+		{"fièvre", "Pas de fièvre depuis décembre, toux persistante.", "fievre", "Pas de fievre depuis decembre, toux persistante."},
+		{"diabète", "Antécédent de diabète chez sa mère.", "diabete", "Antecedent de diabete chez sa mere."},
+		{"embolie", "Embolie pulmonaire à éliminer par un angioscanner.", "embolie", "Embolie pulmonaire a eliminer par un angioscanner."},
+		{"douleur", "Douleur thoracique apparue en août, sans irradiation.", "douleur", "Douleur thoracique apparue en aout, sans irradiation."},
+		{"pneumopathie", "Pneumopathie il y a 2 années, pas de récidive.", "pneumopathie", "Pneumopathie il y a 2 annees, pas de recidive."},
+		{"dyspnée", "Il ne présente pas de dyspnée à l'effort.", "dyspnee", "Il ne presente pas de dyspnee a l'effort."}
+	};
+
+	public static void main(String[] args) throws Exception
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		ConTextFrench accents = new ConTextFrench();
+		ConTextFrench folded = new ConTextFrench(ConTextFrench.triggers(true));
+
+		System.out.println("trigger phrases:             " + accents.getTriggerTagger().size() + " -> "
+			+ folded.getTriggerTagger().size());
+		System.out.println("same context without accents: " + same(accents, false) + "/" + SENTENCES.length + " -> "
+			+ same(folded, true) + "/" + SENTENCES.length);
+
+		//warm-up
+		run(accents, iterations / 10);
+		run(folded, iterations / 10);
+
+		long accentsTime = run(accents, iterations);
+		long foldedTime = run(folded, iterations);
+		int sentences = iterations * SENTENCES.length * 2;
+		System.out.println("with accents:       " + (accentsTime / sentences) + " ns/sentence");
+		System.out.println("accent-insensitive: " + (foldedTime / sentences) + " ns/sentence");
+	}
+
+	/**
+	 * @return Number of sentences without accents with the same context as the sentence with accents
+	 */
+	private static int same(ConTextFrench context, boolean folded) throws Exception
+	{
+		int same = 0;
+		for (String[] sentence : SENTENCES)
+		{
+			ContextResult withAccents = context.getContext(sentence[0], sentence[1]);
+			ContextResult withoutAccents = context.getContext(folded ? sentence[0] : sentence[2], sentence[3]);
+			if (withAccents != null && withoutAccents != null && withAccents.pack() == withoutAccents.pack())
+				same++;
+		}
+		return same;
+	}
+
+	private static long run(ConTextFrench context, int iterations) throws Exception
+	{
+		int packed = 0;
+		long start = System.nanoTime();
+		for (int i=0; i < iterations; i++)
+			for (String[] sentence : SENTENCES)
+			{
+				ContextResult result = context.getContext(sentence[0], sentence[1]);
+				if (result != null)
+					packed += result.pack();
+				result = context.getContext(sentence[2], sentence[3]);
+				if (result != null)
+					packed += result.pack();
+			}
+		long time = System.nanoTime() - start;
+		if (packed == 42)
+			System.out.println();
+		return time;
+	}
+}
@@ -0,0 +1,94 @@
+package org.context.benchmark;
+
+import org.context.implementation.ConTextFrench;
+import org.context.implementation.ContextBatch;
+import org.context.implementation.ContextBatch.Item;
+import org.context.implementation.ContextResultSink;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Analyzes a batch of French sentences with 1 to N threads (see {@link ContextBatch}): throughput, speed-up
+ * over one thread, and number of results that differ from the serial analysis (they must be in input order
+ * and identical).
+ *
+ * Usage: BatchScalingBenchmark [threads] [sentences] [rounds]
+ */
+public class BatchScalingBenchmark {
+
+	private static final String[][] SENTENCES = {
+		{"Pas de fièvre ni de frissons depuis 3 mois, toux persistante.", "fièvre", "frissons", "toux"},
+		{"Antécédent de diabète chez sa mère, pas chez le patient.", "diabète"},
+		{"Le patient a été hospitalisé pour une pneumopathie il y a 2 ans.", "pneumopathie"},
+		{"Il ne présente pas de dyspnée ni de douleur abdominale à l'examen clinique de ce jour.", "dyspnée", "douleur abdominale"},
+		{"Une embolie pulmonaire est possible, à éliminer par un angioscanner si la douleur persiste.", "embolie pulmonaire", "douleur"},
+		{"Suivi depuis le printemps pour une hypertension artérielle bien contrôlée.", "hypertension artérielle"},
+		{"Toux sèche.", "toux"},
+		{"Son père est décédé d'un infarctus, le patient ne signale aucune douleur thoracique.", "infarctus", "douleur thoracique"}
+	};
+
+	public static void main(String[] args) throws Exception
+	{
+		int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		int size = args.length > 1 ? Integer.parseInt(args[1]) : 50000;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		List<Item> items = new ArrayList<Item>(size);
+		for (int i=0; i < size; i++)
+		{
+			String[] sentence = SENTENCES[i % SENTENCES.length];
+			//a different sentence each time (not cached anywhere)
+			items.add(new Item(sentence[0] + " Note " + i + ".", Arrays.copyOfRange(sentence, 1, sentence.length)));
+		}
+
+		ConTextFrench context = new ConTextFrench();
+		int[][] serial = new int[size][];
+		for (int i=0; i < size; i++)
+		{
+			Item item = items.get(i);
+			final int[] contexts = new int[item.getConcepts().size()];
+			Arrays.fill(contexts, -1);
+			context.applyContext(item.getConcepts(), item.getSentence(), new ContextResultSink()
+			{
+				@Override
+				public void accept(int concept, int start, int end, int packed)
+				{
+					contexts[concept] = packed;
+				}
+			});
+			serial[i] = contexts;
+		}
+
+		//warm-up
+		ContextBatch warmUp = new ContextBatch(context, maxThreads);
+		for (int r=0; r < rounds; r++)
+			warmUp.applyPacked(items);
+		warmUp.shutdown();
+
+		System.out.println("cores available: " + Runtime.getRuntime().availableProcessors());
+		double single = 0;
+		for (int threads=1; threads <= maxThreads; threads++)
+		{
+			ContextBatch batch = new ContextBatch(context, threads);
+			int[][] results = batch.applyPacked(items);
+			long start = System.nanoTime();
+			for (int r=0; r < rounds; r++)
+				results = batch.applyPacked(items);
+			long time = System.nanoTime() - start;
+			batch.shutdown();
+
+			int differences = 0;
+			for (int i=0; i < size; i++)
+				if (!Arrays.equals(serial[i], results[i]))
+					differences++;
+			double throughput = (double) size * rounds / time * 1e9;
+			if (threads == 1)
+				single = throughput;
+			System.out.println(String.format("%2d threads: %8.0f sentences/s, speed-up %.2fx, different results: %d",
+				threads, throughput, throughput / single, differences));
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package org.context.benchmark;
+
+import org.context.app.CorpusRunner;
+import org.context.implementation.ConTextFrench;
+import org.context.implementation.CorpusProcessor;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+
+/**
+ * Checkpoints of a corpus run (see {@link CorpusProcessor#process(String, String, String, long)}) on a
+ * generated French corpus: throughput with and without checkpoints (the overhead must stay within a few
+ * percent), then a crash test: a {@link CorpusRunner} process is killed after its first checkpoint, the
+ * run is resumed from it, and the output must be identical to that of an uninterrupted run.
+ *
+ * Usage: CheckpointBenchmark [MB] [rounds] [checkpoint interval in ms]
+ */
+public class CheckpointBenchmark {
+
+	private static final String[] RECORDS = {
+		"Pas de fièvre ni de frissons depuis 3 mois, toux persistante.\tfièvre\tfrissons\ttoux",
+		"Antécédent de diabète chez sa mère, pas chez le patient.\tdiabète",
+		"Le patient a été hospitalisé pour une pneumopathie il y a 2 ans.\tpneumopathie",
+		"Il ne présente pas de dyspnée ni de douleur abdominale à l'examen clinique de ce jour.\tdyspnée\tdouleur abdominale",
+		"Une embolie pulmonaire est possible, à éliminer par un angioscanner.\tembolie pulmonaire",
+		"Toux sèche.\ttoux",
+		"Créatinine à 85 µmol/L, kaliémie normale.\tcréatinine"
+	};
+
+	public static void main(String[] args) throws Exception
+	{
+		int mb = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		long interval = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+
+		File input = File.createTempFile("corpus", ".tsv");
+		File expected = File.createTempFile("results", ".tsv");
+		File output = File.createTempFile("results", ".tsv");
+		File checkpoint = new File(output.getPath() + ".checkpoint");
+		input.deleteOnExit();
+		expected.deleteOnExit();
+		output.deleteOnExit();
+		generate(input, mb * 1024L * 1024L);
+		double size = input.length() / 1048576.0;
+		ConTextFrench context = new ConTextFrench();
+
+		//warm-up
+		new CorpusProcessor(context).processMapped(input.getPath(), expected.getPath());
+		long plain = Long.MAX_VALUE, checkpointed = Long.MAX_VALUE;
+		long saved = 0;
+		for (int r=0; r < rounds; r++)
+		{
+			long start = System.nanoTime();
+			new CorpusProcessor(context).processMapped(input.getPath(), expected.getPath());
+			plain = Math.min(plain, System.nanoTime() - start);
+			CorpusProcessor processor = new CorpusProcessor(context);
+			start = System.nanoTime();
+			processor.process(input.getPath(), output.getPath(), checkpoint.getPath(), interval);
+			checkpointed = Math.min(checkpointed, System.nanoTime() - start);
+			saved = processor.getCheckpointCount();
+		}
+		byte[] reference = Files.readAllBytes(expected.toPath());
+		System.out.println(String.format("without checkpoints: %6.1f MB/s", size / (plain / 1e9)));
+		System.out.println(String.format("checkpoint every %d ms: %6.1f MB/s (%d checkpoints), overhead %.1f%%, identical output: %b",
+			interval, size / (checkpointed / 1e9), saved, 100.0 * (checkpointed - plain) / plain,
+			Arrays.equals(reference, Files.readAllBytes(output.toPath()))));
+
+		//crash after the first checkpoint, then resume
+		Process process = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(), "-cp",
+			System.getProperty("java.class.path"), CorpusRunner.class.getName(), "french", input.getPath(), output.getPath(),
+			"-checkpoint", "1").redirectErrorStream(true).start();
+		while (!checkpoint.exists())
+		{
+			Thread.sleep(10);
+			try
+			{
+				int status = process.exitValue();
+				throw new IllegalStateException("Run finished (" + status + ") before its first checkpoint: use a larger corpus");
+			}
+			catch (IllegalThreadStateException e)
+			{
+				//still running
+			}
+		}
+		Thread.sleep(500);
+		process.destroy();
+		process.waitFor();
+		long written = output.length();
+		CorpusProcessor processor = new CorpusProcessor(context);
+		long first = processor.process(input.getPath(), output.getPath(), checkpoint.getPath(), interval);
+		System.out.println(String.format("killed with %d bytes written, resumed at record %d: %d records, identical output: %b",
+			written, first, processor.getRecordCount(), Arrays.equals(reference, Files.readAllBytes(output.toPath()))));
+
+		input.delete();
+		expected.delete();
+		output.delete();
+	}
+
+	private static void generate(File file, long size) throws Exception
+	{
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)))
+		{
+			long written = 0;
+			for (int i=0; written < size; i++)
+			{
+				String record = RECORDS[i % RECORDS.length];
+				int tab = record.indexOf('\t');
+				//a different sentence each time
+				String line = record.substring(0, tab) + " Note " + i + "." + record.substring(tab) + "\n";
+				writer.write(line);
+				written += line.length();
+			}
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package org.context.benchmark;
+
+import org.context.implementation.ConTextFrench;
+import org.context.implementation.CorpusProcessor;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Streams generated French corpora of growing size through a {@link CorpusProcessor}: throughput and
+ * peak heap used during the run (sampled every millisecond), which must not grow with the corpus.
+ * Run with a small heap (e.g. -Xmx64m) to check that a corpus much larger than the heap goes through.
+ *
+ * Usage: CorpusStreamingBenchmark [MB...]
+ */
+public class CorpusStreamingBenchmark {
+
+	private static final String[] RECORDS = {
+		"Pas de fièvre ni de frissons depuis 3 mois, toux persistante.\tfièvre\tfrissons\ttoux",
+		"Antécédent de diabète chez sa mère, pas chez le patient.\tdiabète",
+		"Le patient a été hospitalisé pour une pneumopathie il y a 2 ans.\tpneumopathie",
+		"Il ne présente pas de dyspnée ni de douleur abdominale à l'examen clinique de ce jour.\tdyspnée\tdouleur abdominale",
+		"Une embolie pulmonaire est possible, à éliminer par un angioscanner.\tembolie pulmonaire",
+		"Toux sèche.\ttoux",
+		"Créatinine à 85 µmol/L, kaliémie normale.\tcréatinine"
+	};
+
+	public static void main(String[] args) throws Exception
+	{
+		int[] sizes = {10, 40};
+		if (args.length > 0)
+		{
+			sizes = new int[args.length];
+			for (int i=0; i < args.length; i++)
+				sizes[i] = Integer.parseInt(args[i]);
+		}
+		ConTextFrench context = new ConTextFrench();
+
+		for (int mb : sizes)
+		{
+			File input = File.createTempFile("corpus", ".tsv");
+			File output = File.createTempFile("results", ".tsv");
+			input.deleteOnExit();
+			output.deleteOnExit();
+			generate(input, mb * 1024L * 1024L);
+
+			final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+			System.gc();
+			final AtomicLong peak = new AtomicLong(memory.getHeapMemoryUsage().getUsed());
+			Thread sampler = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					while (!Thread.currentThread().isInterrupted())
+					{
+						long used = memory.getHeapMemoryUsage().getUsed();
+						if (used > peak.get())
+							peak.set(used);
+						try
+						{
+							Thread.sleep(1);
+						}
+						catch (InterruptedException e)
+						{
+							break;
+						}
+					}
+				}
+			});
+			sampler.setDaemon(true);
+			sampler.start();
+
+			CorpusProcessor processor = new CorpusProcessor(context);
+			long start = System.nanoTime();
+			processor.process(input.getPath(), output.getPath());
+			long time = System.nanoTime() - start;
+			sampler.interrupt();
+			sampler.join();
+
+			System.out.println(String.format("%5d MB: %8d records, %6.1f MB/s, %8.0f records/s, peak heap %d MB (max %d MB)",
+				mb, processor.getRecordCount(), input.length() / 1048576.0 / (time / 1e9),
+				processor.getRecordCount() / (time / 1e9), peak.get() / 1048576, Runtime.getRuntime().maxMemory() / 1048576));
+			input.delete();
+			output.delete();
+		}
+	}
+
+	private static void generate(File file, long size) throws Exception
+	{
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)))
+		{
+			long written = 0;
+			for (int i=0; written < size; i++)
+			{
+				String record = RECORDS[i % RECORDS.length];
+				int tab = record.indexOf('\t');
+				//a different sentence each time
+				String line = record.substring(0, tab) + " Note " + i + "." + record.substring(tab) + "\n";
+				writer.write(line);
+				written += line.length();
+			}
+		}
+	}
+}
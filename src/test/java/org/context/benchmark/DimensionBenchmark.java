@@ -0,0 +1,72 @@
+package org.context.benchmark;
+
+import org.context.implementation.ConText.ContextDimension;
+import org.context.implementation.ConTextFrench;
+import org.context.implementation.ContextResult;
+
+import java.util.EnumSet;
+
+
+/**
+ * Compares the full context analysis (negation, temporality and experiencer) with the negation-only
+ * analysis on French notes: throughput of getContext, and number of concepts whose negation differs
+ * (see {@link ConTextFrench#ConTextFrench(java.util.Set)}).
+ *
+ * Usage: DimensionBenchmark [iterations]
+ */
+public class DimensionBenchmark {
+
+	private static final String[][] SENTENCES = {
+		{"fièvre", "Pas de fièvre ni de frissons depuis 3 mois, toux persistante."},
+		{"diabète", "Antécédent de diabète chez sa mère, pas chez le patient."},
+		{"pneumopathie", "Le patient a été hospitalisé pour une pneumopathie il y a 2 ans."},
+		{"dyspnée", "Il ne présente pas de dyspnée ni de douleur abdominale à l'examen clinique de ce jour."},
+		{"embolie", "Une embolie pulmonaire est possible, à éliminer par un angioscanner si la douleur persiste."},
+		{"hypertension", "Suivi depuis le printemps pour une hypertension artérielle bien contrôlée."},
+		{"douleur", "Douleur thoracique apparue il y a 15 jours, sans irradiation, sans signe de gravité."},
+		{"toux", "Toux sèche."},
+		{"infarctus", "Son père est décédé d'un infarctus, le patient ne signale aucune douleur thoracique."},
+		{"cancer", "Absence de cancer connu dans la famille, pas d'antécédent chirurgical notable."}
+	};
+
+	public static void main(String[] args) throws Exception
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		ConTextFrench full = new ConTextFrench();
+		ConTextFrench negation = new ConTextFrench(EnumSet.of(ContextDimension.Negation));
+
+		int differences = 0;
+		for (String[] sentence : SENTENCES)
+			if (full.getContext(sentence[0], sentence[1]).getNegation() != negation.getContext(sentence[0], sentence[1]).getNegation())
+				differences++;
+
+		//warm-up
+		run(full, iterations / 10);
+		run(negation, iterations / 10);
+
+		long fullTime = run(full, iterations);
+		long negationTime = run(negation, iterations);
+		int sentences = iterations * SENTENCES.length;
+		System.out.println("all dimensions: " + (fullTime / sentences) + " ns/sentence");
+		System.out.println("negation only:  " + (negationTime / sentences) + " ns/sentence");
+		System.out.println("speed-up:       " + String.format("%.2f", (double) fullTime / negationTime) + "x");
+		System.out.println("different negations: " + differences + "/" + SENTENCES.length);
+	}
+
+	private static long run(ConTextFrench context, int iterations) throws Exception
+	{
+		int packed = 0;
+		long start = System.nanoTime();
+		for (int i=0; i < iterations; i++)
+			for (String[] sentence : SENTENCES)
+			{
+				ContextResult result = context.getContext(sentence[0], sentence[1]);
+				if (result != null)
+					packed += result.pack();
+			}
+		long time = System.nanoTime() - start;
+		if (packed == 42)
+			System.out.println();
+		return time;
+	}
+}
@@ -0,0 +1,144 @@
+package org.context.benchmark;
+
+import org.context.implementation.ConText.ContextDimension;
+import org.context.implementation.ConTextFrench;
+import org.context.implementation.ContextResult;
+import org.context.implementation.LexiconWatcher;
+import org.context.implementation.TriggerTagger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Reloads a French trigger lexicon file while worker threads analyze sentences: throughput and slowest
+ * call with and without reloads, number of reloads seen, and failed calls (there must be none).
+ * Every other version of the file adds "indemne de" as a negation trigger, which changes the negation
+ * of the concept of the probe sentence.
+ *
+ * Usage: HotReloadBenchmark [seconds] [threads]
+ */
+public class HotReloadBenchmark {
+
+	private static final String[][] SENTENCES = {
+		{"fièvre", "Pas de fièvre ni de frissons depuis 3 mois, toux persistante."},
+		{"diabète", "Antécédent de diabète chez sa mère, pas chez le patient."},
+		{"embolie", "Une embolie pulmonaire est possible, à éliminer par un angioscanner."},
+		{"douleur", "Douleur thoracique irradiant dans le bras gauche."}
+	};
+
+	private static final String[] PROBE = {"asthme", "Patient indemne de asthme."};
+
+	public static void main(String[] args) throws Exception
+	{
+		final int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+
+		File base = File.createTempFile("triggers", ".tsv");
+		File extended = File.createTempFile("triggers", ".tsv");
+		File lexicon = File.createTempFile("triggers", ".tsv");
+		base.deleteOnExit();
+		extended.deleteOnExit();
+		lexicon.deleteOnExit();
+		write(base, false);
+		write(extended, true);
+		Files.copy(base.toPath(), lexicon.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+		LexiconWatcher watcher = new LexiconWatcher(lexicon.getPath(), false, 50);
+		ConTextFrench context = new ConTextFrench(watcher.getTriggers(), EnumSet.allOf(ContextDimension.class));
+		String before = context.getContext(PROBE[0], PROBE[1]).getNegation().toString();
+
+		//warm-up, then without and with reloads
+		run(context, threads, seconds / 2 + 1, null);
+		long[] steady = run(context, threads, seconds, null);
+		watcher.start();
+		long[] reloading = run(context, threads, seconds, new File[]{base, extended, lexicon});
+		watcher.close();
+
+		Files.copy(extended.toPath(), lexicon.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		watcher.reload();
+		String after = context.getContext(PROBE[0], PROBE[1]).getNegation().toString();
+
+		System.out.println("without reloads: " + (steady[0] / seconds) + " sentences/s, slowest call " + (steady[1] / 1000) + " us");
+		System.out.println("with reloads:    " + (reloading[0] / seconds) + " sentences/s, slowest call " + (reloading[1] / 1000) + " us");
+		System.out.println("reloads:         " + watcher.getReloadCount() + " (last error: " + watcher.getLastError() + ")");
+		System.out.println("failed calls:    " + (steady[2] + reloading[2]));
+		System.out.println("probe negation:  " + before + " -> " + after);
+	}
+
+	//sentences analyzed, slowest call (ns) and failed calls; the versions of the lexicon are swapped every 100 ms
+	private static long[] run(final ConTextFrench context, int threads, int seconds, File[] versions) throws Exception
+	{
+		final long end = System.nanoTime() + seconds * 1000000000L;
+		final AtomicLong count = new AtomicLong(), slowest = new AtomicLong(), failed = new AtomicLong();
+		Thread[] workers = new Thread[threads];
+		for (int t=0; t < threads; t++)
+		{
+			workers[t] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					long done = 0, max = 0;
+					while (System.nanoTime() < end)
+					{
+						for (String[] sentence : SENTENCES)
+						{
+							long start = System.nanoTime();
+							try
+							{
+								ContextResult result = context.getContext(sentence[0], sentence[1]);
+								if (result == null)
+									failed.incrementAndGet();
+							}
+							catch (Exception e)
+							{
+								failed.incrementAndGet();
+							}
+							max = Math.max(max, System.nanoTime() - start);
+						}
+						done += SENTENCES.length;
+					}
+					count.addAndGet(done);
+					synchronized (slowest)
+					{
+						slowest.set(Math.max(slowest.get(), max));
+					}
+				}
+			});
+			workers[t].start();
+		}
+		int version = 0;
+		while (versions != null && System.nanoTime() < end)
+		{
+			Thread.sleep(100);
+			version = 1 - version;
+			//written in another file and renamed: the watcher never sees a partly written version
+			File next = new File(versions[2].getPath() + ".next");
+			Files.copy(versions[version].toPath(), next.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			Files.move(next.toPath(), versions[2].toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		for (Thread worker : workers)
+			worker.join();
+		return new long[]{count.get(), slowest.get(), failed.get()};
+	}
+
+	//built-in French lexicon, and one more negation trigger if extended
+	private static void write(File file, boolean extended) throws Exception
+	{
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))
+		{
+			TriggerTagger triggers = ConTextFrench.triggers(false);
+			triggers.writeLexicon(writer);
+			if (extended)
+				writer.write("indemne de\tpre\tneg\n");
+		}
+	}
+}
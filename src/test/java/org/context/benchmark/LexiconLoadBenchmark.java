@@ -0,0 +1,77 @@
+package org.context.benchmark;
+
+import org.context.implementation.ConTextFrench;
+import org.context.implementation.TriggerTagger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Compares the ways of getting the French trigger lexicon: compiling the lexicon file, loading the
+ * compiled snapshot, and checks that the three taggers (built-in, file, snapshot) have the same version
+ * and tag the sample sentences the same way.
+ *
+ * Usage: LexiconLoadBenchmark [iterations]
+ */
+public class LexiconLoadBenchmark {
+
+	private static final String[] SENTENCES = {
+		" pas de fièvre ni de frissons depuis 3 mois, toux persistante. ",
+		" antécédent de diabète chez sa mère, pas chez le patient. ",
+		" une embolie pulmonaire est possible, à éliminer par un angioscanner. ",
+		" il ne présente pas de dyspnée à l'examen clinique de ce jour. "
+	};
+
+	public static void main(String[] args) throws Exception
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		TriggerTagger builtIn = ConTextFrench.triggers(false);
+
+		File lexicon = File.createTempFile("triggers", ".tsv");
+		File snapshot = File.createTempFile("triggers", ".ctx");
+		lexicon.deleteOnExit();
+		snapshot.deleteOnExit();
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(lexicon), StandardCharsets.UTF_8))
+		{
+			builtIn.writeLexicon(writer);
+		}
+		builtIn.writeSnapshot(snapshot.getPath());
+
+		TriggerTagger fromFile = null, fromSnapshot = null;
+		//warm-up
+		for (int i=0; i < iterations; i++)
+		{
+			fromFile = TriggerTagger.load(lexicon.getPath(), false);
+			fromSnapshot = TriggerTagger.loadSnapshot(snapshot.getPath());
+		}
+
+		long start = System.nanoTime();
+		for (int i=0; i < iterations; i++)
+			fromFile = TriggerTagger.load(lexicon.getPath(), false);
+		long compile = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int i=0; i < iterations; i++)
+			fromSnapshot = TriggerTagger.loadSnapshot(snapshot.getPath());
+		long load = System.nanoTime() - start;
+
+		int differences = 0;
+		for (String sentence : SENTENCES)
+		{
+			String tagged = builtIn.tag(sentence);
+			if (!tagged.equals(fromFile.tag(sentence)) || !tagged.equals(fromSnapshot.tag(sentence)))
+				differences++;
+		}
+
+		System.out.println("phrases:            " + builtIn.size() + " (" + lexicon.length() + " bytes file, "
+			+ snapshot.length() + " bytes snapshot)");
+		System.out.println("compile file:       " + (compile / iterations / 1000) + " us");
+		System.out.println("load snapshot:      " + (load / iterations / 1000) + " us");
+		System.out.println("versions:           " + builtIn.getVersion() + " " + fromFile.getVersion() + " "
+			+ fromSnapshot.getVersion());
+		System.out.println("different taggings: " + differences + "/" + SENTENCES.length);
+	}
+}
@@ -0,0 +1,163 @@
+package org.context.benchmark;
+
+import org.context.implementation.ConTextFrench;
+import org.context.implementation.TriggerTagger;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * Tags French notes with synthetic trigger lexicons of growing size (the built-in French lexicon plus
+ * 1k, 10k and 100k generated phrases of 1 to 4 pseudo-words): compilation time, heap retained by the
+ * compiled lexicon, time per sentence and prefilter skip rate. The time per sentence of the automaton
+ * must stay flat; the alternation regexes that the automaton replaced ("[\s\.]+(phrase|...)[\s\.\:;\,]+",
+ * one per category) are measured on the same lexicons for comparison.
+ *
+ * Usage: LexiconScalingBenchmark [iterations] [regex iterations]
+ */
+public class LexiconScalingBenchmark {
+
+	private static final String[] SENTENCES = {
+		" pas de fièvre ni de frissons depuis 3 mois, toux persistante. ",
+		" antécédent de diabète chez sa mère, pas chez le patient. ",
+		" une embolie pulmonaire est possible, à éliminer par un angioscanner. ",
+		" il ne présente pas de dyspnée à l'examen clinique de ce jour. ",
+		" hypertension artérielle traitée par amlodipine 5 mg. ",
+		" douleur thoracique irradiant dans le bras gauche. ",
+		" créatinine à 85 µmol/l, kaliémie normale. ",
+		" toux sèche. "
+	};
+
+	private static final String[] SYLLABLES = {"ba", "cho", "dri", "fé", "gal", "lon", "mu", "nir", "pé", "que",
+		"ros", "sul", "tan", "vé", "xo", "zé", "bri", "clé", "dou", "ga", "ké", "lis", "mor", "né"};
+
+	private static final String[][] ENTRIES = {{"pre", "neg"}, {"post", "neg"}, {"pre", "poss"}, {"pre", "hypo"},
+		{"pre", "hist"}, {"pre", "exp"}, {"termin", "neg"}, {"termin", "hist"}, {"pseudo", "neg"}};
+
+	public static void main(String[] args) throws Exception
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int regexIterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+		StringWriter builtIn = new StringWriter();
+		ConTextFrench.triggers(false).writeLexicon(builtIn);
+
+		System.out.println("phrases   compile   heap       automaton      skip rate   regexes");
+		for (int generated : new int[]{0, 1000, 10000, 100000})
+		{
+			String lexicon = builtIn + synthesize(generated, new Random(generated));
+
+			long before = used();
+			long start = System.nanoTime();
+			TriggerTagger triggers = TriggerTagger.load(new StringReader(lexicon), false);
+			long compile = System.nanoTime() - start;
+			long heap = used() - before;
+
+			//warm-up
+			run(triggers, iterations / 10);
+			long skippedBefore = triggers.getSkippedSentenceCount(), countBefore = triggers.getSentenceCount();
+			long time = run(triggers, iterations);
+			double skipRate = (double) (triggers.getSkippedSentenceCount() - skippedBefore) / (triggers.getSentenceCount() - countBefore);
+
+			Pattern[] regexes = regexes(lexicon);
+			runRegexes(regexes, 1);
+			long regexTime = runRegexes(regexes, regexIterations);
+
+			System.out.println(String.format("%-9d %5d ms  %6d KB  %6d ns/sent  %5.1f%%  %10d ns/sent", triggers.size(),
+				compile / 1000000, heap / 1024, time / ((long) iterations * SENTENCES.length), 100 * skipRate,
+				regexTime / ((long) regexIterations * SENTENCES.length)));
+		}
+	}
+
+	//lexicon entries with random pseudo-words
+	private static String synthesize(int count, Random random)
+	{
+		StringBuilder lexicon = new StringBuilder();
+		Set<String> phrases = new HashSet<String>();
+		while (phrases.size() < count)
+		{
+			StringBuilder phrase = new StringBuilder();
+			int words = 1 + random.nextInt(4);
+			for (int w=0; w < words; w++)
+			{
+				if (w > 0)
+					phrase.append(' ');
+				int syllables = 2 + random.nextInt(2);
+				for (int s=0; s < syllables; s++)
+					phrase.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+			}
+			if (!phrases.add(phrase.toString()))
+				continue;
+			String[] entry = ENTRIES[random.nextInt(ENTRIES.length)];
+			lexicon.append(phrase).append('\t').append(entry[0]).append('\t').append(entry[1]).append('\n');
+		}
+		return lexicon.toString();
+	}
+
+	private static long run(TriggerTagger triggers, int iterations)
+	{
+		int length = 0;
+		long start = System.nanoTime();
+		for (int i=0; i < iterations; i++)
+			for (String sentence : SENTENCES)
+				length += triggers.tag(sentence).length();
+		long time = System.nanoTime() - start;
+		if (length == 42)
+			System.out.println();
+		return time;
+	}
+
+	//one alternation regex per position and type, as the engines compiled them before the automaton
+	private static Pattern[] regexes(String lexicon)
+	{
+		java.util.Map<String,StringBuilder> alternations = new java.util.LinkedHashMap<String,StringBuilder>();
+		for (String line : lexicon.split("\n"))
+		{
+			String[] columns = line.split("\t");
+			if (line.startsWith("#") || columns.length != 3)
+				continue;
+			String key = columns[1] + "," + columns[2];
+			if (!alternations.containsKey(key))
+				alternations.put(key, new StringBuilder());
+			StringBuilder alternation = alternations.get(key);
+			alternation.append(alternation.length() == 0 ? "" : "|").append(Pattern.quote(columns[0]));
+		}
+		Pattern[] regexes = new Pattern[alternations.size()];
+		int r = 0;
+		for (StringBuilder alternation : alternations.values())
+			regexes[r++] = Pattern.compile("[\\s\\.]+(" + alternation + ")[\\s\\.\\:;\\,]+");
+		return regexes;
+	}
+
+	private static long runRegexes(Pattern[] regexes, int iterations)
+	{
+		int found = 0;
+		long start = System.nanoTime();
+		for (int i=0; i < iterations; i++)
+			for (String sentence : SENTENCES)
+				for (Pattern regex : regexes)
+				{
+					Matcher matcher = regex.matcher(sentence);
+					while (matcher.find())
+						found++;
+				}
+		long time = System.nanoTime() - start;
+		if (found == 42)
+			System.out.println();
+		return time;
+	}
+
+	private static long used()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for (int i=0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,142 @@
+package org.context.benchmark;
+
+import org.context.implementation.ConTextFrench;
+import org.context.implementation.CorpusProcessor;
+import org.context.implementation.MappedCorpusReader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+
+/**
+ * Reads a generated French corpus through a BufferedReader (one String per record) and in place through a
+ * {@link MappedCorpusReader} (byte ranges decoded into a reused buffer): time to read the records only, then
+ * time to analyze the whole corpus with {@link CorpusProcessor#process(String, String)} and
+ * {@link CorpusProcessor#processMapped(String, String)}, whose outputs must be identical.
+ *
+ * Usage: MappedCorpusBenchmark [MB] [rounds] [threads]
+ */
+public class MappedCorpusBenchmark {
+
+	private static final String[] RECORDS = {
+		"Pas de fièvre ni de frissons depuis 3 mois, toux persistante.\tfièvre\tfrissons\ttoux",
+		"Antécédent de diabète chez sa mère, pas chez le patient.\tdiabète",
+		"Le patient a été hospitalisé pour une pneumopathie il y a 2 ans.\tpneumopathie",
+		"Il ne presente pas de dyspnee ni de douleur abdominale a l'examen clinique de ce jour.\tdyspnee\tdouleur abdominale",
+		"Une embolie pulmonaire est possible, a eliminer par un angioscanner.\tembolie pulmonaire",
+		"Toux sèche.\ttoux",
+		"Creatinine a 85 umol/L, kaliemie normale.\tcreatinine"
+	};
+
+	public static void main(String[] args) throws Exception
+	{
+		int mb = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+		File input = File.createTempFile("corpus", ".tsv");
+		File buffered = File.createTempFile("results", ".tsv");
+		File mapped = File.createTempFile("results", ".tsv");
+		input.deleteOnExit();
+		buffered.deleteOnExit();
+		mapped.deleteOnExit();
+		generate(input, mb * 1024L * 1024L);
+		double size = input.length() / 1048576.0;
+
+		//warm-up
+		readBuffered(input);
+		readMapped(input);
+		long bufferedTime = Long.MAX_VALUE, mappedTime = Long.MAX_VALUE;
+		for (int r=0; r < rounds; r++)
+		{
+			long start = System.nanoTime();
+			long count = readBuffered(input);
+			bufferedTime = Math.min(bufferedTime, System.nanoTime() - start);
+			start = System.nanoTime();
+			if (readMapped(input) != count)
+				throw new IllegalStateException("Different number of characters read");
+			mappedTime = Math.min(mappedTime, System.nanoTime() - start);
+		}
+		System.out.println(String.format("read only:  buffered reader %7.1f MB/s, mapped %7.1f MB/s (%.2fx)",
+			size / (bufferedTime / 1e9), size / (mappedTime / 1e9), (double) bufferedTime / mappedTime));
+
+		ConTextFrench context = new ConTextFrench();
+		CorpusProcessor processor = new CorpusProcessor(context, threads, 1024, 1 << 20);
+		processor.process(input.getPath(), buffered.getPath());
+		processor.processMapped(input.getPath(), mapped.getPath());
+		bufferedTime = Long.MAX_VALUE;
+		mappedTime = Long.MAX_VALUE;
+		for (int r=0; r < rounds; r++)
+		{
+			long start = System.nanoTime();
+			processor.process(input.getPath(), buffered.getPath());
+			bufferedTime = Math.min(bufferedTime, System.nanoTime() - start);
+			start = System.nanoTime();
+			processor.processMapped(input.getPath(), mapped.getPath());
+			mappedTime = Math.min(mappedTime, System.nanoTime() - start);
+		}
+		boolean identical = Arrays.equals(Files.readAllBytes(buffered.toPath()), Files.readAllBytes(mapped.toPath()));
+		System.out.println(String.format("analysis:   buffered reader %7.1f MB/s, mapped %7.1f MB/s (%.2fx), identical output: %b",
+			size / (bufferedTime / 1e9), size / (mappedTime / 1e9), (double) bufferedTime / mappedTime, identical));
+
+		input.delete();
+		buffered.delete();
+		mapped.delete();
+	}
+
+	//characters read, one String per record
+	private static long readBuffered(File input) throws Exception
+	{
+		long count = 0;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(input), StandardCharsets.UTF_8)))
+		{
+			String line;
+			while ((line = reader.readLine()) != null)
+				count += line.length();
+		}
+		return count;
+	}
+
+	//characters read, decoded in place
+	private static long readMapped(File input) throws Exception
+	{
+		long count = 0;
+		MappedCorpusReader.Decoder decoder = new MappedCorpusReader.Decoder();
+		try (MappedCorpusReader reader = new MappedCorpusReader(input.getPath()))
+		{
+			while (reader.next())
+			{
+				CharBuffer record = decoder.decode(reader.buffer(), reader.start(), reader.end());
+				count += record.length();
+			}
+		}
+		return count;
+	}
+
+	private static void generate(File file, long size) throws Exception
+	{
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)))
+		{
+			long written = 0;
+			for (int i=0; written < size; i++)
+			{
+				String record = RECORDS[i % RECORDS.length];
+				int tab = record.indexOf('\t');
+				//a different sentence each time
+				String line = record.substring(0, tab) + " Note " + i + "." + record.substring(tab) + "\n";
+				writer.write(line);
+				written += line.length();
+			}
+		}
+	}
+}
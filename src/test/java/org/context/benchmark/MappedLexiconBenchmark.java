@@ -0,0 +1,103 @@
+package org.context.benchmark;
+
+import org.context.implementation.ConTextFrench;
+import org.context.implementation.TriggerTagger;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Compares the French trigger lexicon copied on the heap (loadSnapshot) with the memory-mapped one
+ * (mapSnapshot): load time, heap retained per loaded lexicon (as by each worker process), tagging time
+ * and number of sentences tagged differently.
+ *
+ * Usage: MappedLexiconBenchmark [iterations]
+ */
+public class MappedLexiconBenchmark {
+
+	private static final String[] SENTENCES = {
+		" pas de fièvre ni de frissons depuis 3 mois, toux persistante. ",
+		" antécédent de diabète chez sa mère, pas chez le patient. ",
+		" une embolie pulmonaire est possible, à éliminer par un angioscanner. ",
+		" il ne présente pas de dyspnée à l'examen clinique de ce jour. ",
+		" hypertension artérielle traitée par amlodipine 5 mg. "
+	};
+
+	private static final int COPIES = 20;
+
+	public static void main(String[] args) throws Exception
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		File snapshot = File.createTempFile("triggers", ".ctx");
+		snapshot.deleteOnExit();
+		ConTextFrench.triggers(false).writeSnapshot(snapshot.getPath());
+
+		long heapRetained = retained(snapshot, false);
+		long mappedRetained = retained(snapshot, true);
+
+		TriggerTagger heap = TriggerTagger.loadSnapshot(snapshot.getPath());
+		TriggerTagger mapped = TriggerTagger.mapSnapshot(snapshot.getPath());
+		int differences = 0;
+		for (String sentence : SENTENCES)
+			if (!heap.tag(sentence).equals(mapped.tag(sentence)))
+				differences++;
+
+		long start = System.nanoTime();
+		for (int i=0; i < 100; i++)
+			heap = TriggerTagger.loadSnapshot(snapshot.getPath());
+		long heapLoad = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int i=0; i < 100; i++)
+			mapped = TriggerTagger.mapSnapshot(snapshot.getPath());
+		long mappedLoad = System.nanoTime() - start;
+
+		//warm-up
+		run(heap, iterations / 10);
+		run(mapped, iterations / 10);
+		long heapTime = run(heap, iterations);
+		long mappedTime = run(mapped, iterations);
+		int sentences = iterations * SENTENCES.length;
+
+		System.out.println("snapshot:            " + snapshot.length() + " bytes");
+		System.out.println("load (heap/mapped):  " + (heapLoad / 100 / 1000) + " / " + (mappedLoad / 100 / 1000) + " us");
+		System.out.println("heap per lexicon:    " + (heapRetained / COPIES) + " / " + (mappedRetained / COPIES) + " bytes");
+		System.out.println("tag (heap/mapped):   " + (heapTime / sentences) + " / " + (mappedTime / sentences) + " ns/sentence");
+		System.out.println("different taggings:  " + differences + "/" + SENTENCES.length);
+	}
+
+	//heap retained by COPIES lexicons
+	private static long retained(File snapshot, boolean mapped) throws Exception
+	{
+		long before = used();
+		List<TriggerTagger> lexicons = new ArrayList<TriggerTagger>();
+		for (int i=0; i < COPIES; i++)
+			lexicons.add(mapped ? TriggerTagger.mapSnapshot(snapshot.getPath()) : TriggerTagger.loadSnapshot(snapshot.getPath()));
+		long after = used();
+		if (lexicons.size() == 42)
+			System.out.println();
+		return after - before;
+	}
+
+	private static long used()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for (int i=0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static long run(TriggerTagger triggers, int iterations)
+	{
+		int length = 0;
+		long start = System.nanoTime();
+		for (int i=0; i < iterations; i++)
+			for (String sentence : SENTENCES)
+				length += triggers.tag(sentence).length();
+		long time = System.nanoTime() - start;
+		if (length == 42)
+			System.out.println();
+		return time;
+	}
+}
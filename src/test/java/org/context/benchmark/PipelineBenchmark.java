@@ -0,0 +1,104 @@
+package org.context.benchmark;
+
+import org.context.implementation.ConTextFrench;
+import org.context.implementation.ContextPipeline;
+import org.context.implementation.CorpusProcessor;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+
+/**
+ * Analyzes a generated French corpus with a {@link CorpusProcessor} (whole analysis per record), then with
+ * a {@link ContextPipeline} for each given number of threads per stage (segment,concepts,triggers,classify):
+ * throughput, whether the output is identical, and the metrics of each stage (the stage with the lowest
+ * throughput and a full input queue is the one that needs more threads).
+ *
+ * Usage: PipelineBenchmark [MB] [threads,threads,threads,threads...]
+ */
+public class PipelineBenchmark {
+
+	private static final String[] RECORDS = {
+		"Pas de fièvre ni de frissons depuis 3 mois, toux persistante.\tfièvre\tfrissons\ttoux",
+		"Antécédent de diabète chez sa mère, pas chez le patient.\tdiabète",
+		"Le patient a été hospitalisé pour une pneumopathie il y a 2 ans.\tpneumopathie",
+		"Il ne présente pas de dyspnée ni de douleur abdominale à l'examen clinique de ce jour.\tdyspnée\tdouleur abdominale",
+		"Une embolie pulmonaire est possible, à éliminer par un angioscanner.\tembolie pulmonaire",
+		"Toux sèche.\ttoux",
+		"Créatinine à 85 µmol/L, kaliémie normale.\tcréatinine"
+	};
+
+	public static void main(String[] args) throws Exception
+	{
+		int mb = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		String[] configurations = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : new String[]{"1,1,1,1", "1,1,2,2"};
+
+		File input = File.createTempFile("corpus", ".tsv");
+		File expected = File.createTempFile("results", ".tsv");
+		File output = File.createTempFile("results", ".tsv");
+		input.deleteOnExit();
+		expected.deleteOnExit();
+		output.deleteOnExit();
+		generate(input, mb * 1024L * 1024L);
+		double size = input.length() / 1048576.0;
+		ConTextFrench context = new ConTextFrench();
+
+		//warm-up
+		new CorpusProcessor(context).process(input.getPath(), expected.getPath());
+		CorpusProcessor processor = new CorpusProcessor(context);
+		long start = System.nanoTime();
+		processor.process(input.getPath(), expected.getPath());
+		long time = System.nanoTime() - start;
+		System.out.println(String.format("cores available: %d, %d records", Runtime.getRuntime().availableProcessors(),
+			processor.getRecordCount()));
+		System.out.println(String.format("processor: %6.1f MB/s", size / (time / 1e9)));
+		byte[] reference = Files.readAllBytes(expected.toPath());
+
+		for (String configuration : configurations)
+		{
+			String[] threads = configuration.split(",");
+			ContextPipeline warmUp = pipeline(context, threads);
+			warmUp.process(input.getPath(), output.getPath());
+			ContextPipeline pipeline = pipeline(context, threads);
+			start = System.nanoTime();
+			pipeline.process(input.getPath(), output.getPath());
+			time = System.nanoTime() - start;
+			System.out.println(String.format("pipeline %s: %6.1f MB/s, identical output: %b", configuration,
+				size / (time / 1e9), Arrays.equals(reference, Files.readAllBytes(output.toPath()))));
+			for (ContextPipeline.Stage stage : pipeline.getStages())
+				System.out.println("  " + stage);
+		}
+		input.delete();
+		expected.delete();
+		output.delete();
+	}
+
+	private static ContextPipeline pipeline(ConTextFrench context, String[] threads)
+	{
+		return new ContextPipeline(context, Integer.parseInt(threads[0]), Integer.parseInt(threads[1]),
+			Integer.parseInt(threads[2]), Integer.parseInt(threads[3]), 256);
+	}
+
+	private static void generate(File file, long size) throws Exception
+	{
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)))
+		{
+			long written = 0;
+			for (int i=0; written < size; i++)
+			{
+				String record = RECORDS[i % RECORDS.length];
+				int tab = record.indexOf('\t');
+				//a different sentence each time
+				String line = record.substring(0, tab) + " Note " + i + "." + record.substring(tab) + "\n";
+				writer.write(line);
+				written += line.length();
+			}
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package org.context.benchmark;
+
+import org.context.implementation.ConTextFrench;
+import org.context.implementation.ContextResult;
+import org.context.implementation.TriggerTagger;
+
+
+/**
+ * Measures the trigger prefilter on French notes: skip rate (sentences in which no trigger can match),
+ * time of the prefilter alone, and time of getContext on the sentences with and without triggers.
+ *
+ * Usage: PrefilterBenchmark [iterations]
+ */
+public class PrefilterBenchmark {
+
+	//no trigger in the sentence
+	private static final String[][] PLAIN = {
+		{"toux", "Toux sèche."},
+		{"hypertension", "Hypertension artérielle traitée par amlodipine 5 mg."},
+		{"fièvre", "Fièvre à 39 °C ce matin, frissons."},
+		{"créatinine", "Créatinine à 85 µmol/L, kaliémie normale."},
+		{"diabète", "Diabète de type 2 équilibré sous metformine."},
+		{"douleur", "Douleur thoracique irradiant dans le bras gauche."},
+		{"anémie", "Anémie ferriprive, supplémentation orale débutée."},
+		{"tachycardie", "Tachycardie sinusale à 110 battements par minute."}
+	};
+
+	//at least one trigger or time expression
+	private static final String[][] TRIGGERED = {
+		{"fièvre", "Pas de fièvre ni de frissons depuis 3 mois, toux persistante."},
+		{"diabète", "Antécédent de diabète chez sa mère, pas chez le patient."},
+		{"embolie", "Une embolie pulmonaire est possible, à éliminer par un angioscanner."},
+		{"dyspnée", "Il ne présente pas de dyspnée à l'examen clinique de ce jour."}
+	};
+
+	public static void main(String[] args) throws Exception
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		ConTextFrench context = new ConTextFrench();
+		TriggerTagger triggers = context.getTriggerTagger();
+
+		//warm-up
+		run(context, PLAIN, iterations / 10);
+		run(context, TRIGGERED, iterations / 10);
+		filter(triggers, PLAIN, iterations / 10);
+
+		long before = triggers.getSentenceCount(), skippedBefore = triggers.getSkippedSentenceCount();
+		long plain = run(context, PLAIN, iterations);
+		long triggered = run(context, TRIGGERED, iterations);
+		long filter = filter(triggers, PLAIN, iterations);
+		long count = triggers.getSentenceCount() - before;
+		long skipped = triggers.getSkippedSentenceCount() - skippedBefore;
+
+		System.out.println("prefilter alone:         " + (filter / ((long) iterations * PLAIN.length)) + " ns/sentence");
+		System.out.println("sentences w/o triggers:  " + (plain / ((long) iterations * PLAIN.length)) + " ns/sentence");
+		System.out.println("sentences with triggers: " + (triggered / ((long) iterations * TRIGGERED.length)) + " ns/sentence");
+		System.out.println("skip rate:               " + String.format("%.1f", 100.0 * skipped / count) + "% ("
+			+ skipped + "/" + count + ")");
+	}
+
+	private static long run(ConTextFrench context, String[][] sentences, int iterations) throws Exception
+	{
+		int packed = 0;
+		long start = System.nanoTime();
+		for (int i=0; i < iterations; i++)
+			for (String[] sentence : sentences)
+			{
+				ContextResult result = context.getContext(sentence[0], sentence[1]);
+				if (result != null)
+					packed += result.pack();
+			}
+		long time = System.nanoTime() - start;
+		if (packed == 42)
+			System.out.println();
+		return time;
+	}
+
+	private static long filter(TriggerTagger triggers, String[][] sentences, int iterations)
+	{
+		String[] normalized = new String[sentences.length];
+		for (int s=0; s < sentences.length; s++)
+			normalized[s] = " " + sentences[s][1].toLowerCase() + " ";
+		int matches = 0;
+		long start = System.nanoTime();
+		for (int i=0; i < iterations; i++)
+			for (String sentence : normalized)
+				if (triggers.mayMatch(sentence))
+					matches++;
+		long time = System.nanoTime() - start;
+		if (matches == 42)
+			System.out.println();
+		return time;
+	}
+}
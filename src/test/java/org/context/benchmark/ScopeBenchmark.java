@@ -0,0 +1,301 @@
+package org.context.benchmark;
+
+import org.context.implementation.ConText.ExperiencerContext;
+import org.context.implementation.ConText.NegationContext;
+import org.context.implementation.ConText.TemporalityContext;
+import org.context.implementation.ConTextFrench;
+import org.context.implementation.ContextResult;
+import org.context.implementation.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Compares the scope analysis on token codes (applyNegEx, applyTemporality and applyExperiencer of the
+ * engine, coding included, and the single pass applyContextPacked) with the original analysis on the token
+ * strings (String.matches on every token, windows copied in lists), on tagged French sentences.
+ *
+ * Usage: ScopeBenchmark [iterations]
+ */
+public class ScopeBenchmark {
+
+	private static final int STRINGS = 0;
+	private static final int CODES = 1;
+	private static final int FUSED = 2;
+
+	private static final int MAX_WINDOW = 15;
+
+	private static final String regExUmlsTag = "\\[\\d+\\]";
+
+	private static final String[][] SENTENCES = {
+		{"fièvre", "Pas de fièvre ni de frissons depuis 3 mois, toux persistante."},
+		{"diabète", "Antécédent de diabète chez sa mère, pas chez le patient."},
+		{"pneumopathie", "Le patient a été hospitalisé pour une pneumopathie il y a 2 ans."},
+		{"dyspnée", "Il ne présente pas de dyspnée ni de douleur abdominale à l'examen clinique de ce jour."},
+		{"embolie", "Une embolie pulmonaire est possible, à éliminer par un angioscanner si la douleur persiste."},
+		{"hypertension", "Suivi depuis le printemps pour une hypertension artérielle bien contrôlée."},
+		{"douleur", "Douleur thoracique apparue il y a 15 jours, sans irradiation, sans signe de gravité."},
+		{"toux", "Toux sèche."}
+	};
+
+	public static void main(String[] args) throws Exception
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		ConTextFrench context = new ConTextFrench();
+
+		String[][] words = new String[SENTENCES.length][];
+		for (int s=0; s < SENTENCES.length; s++)
+		{
+			words[s] = Tokenizer.FRENCH.split(context.preProcessSentence(SENTENCES[s][1], SENTENCES[s][0]));
+			if (!applyNegEx(words[s]).equals(context.applyNegEx(words[s]))
+				|| !applyTemporality(words[s]).equals(context.applyTemporality(words[s]))
+				|| !applyExperiencer(words[s]).equals(context.applyExperiencer(words[s]))
+				|| context.applyContextPacked(words[s]) != ContextResult.pack(NegationContext.valueOf(applyNegEx(words[s])),
+					TemporalityContext.valueOf(applyTemporality(words[s])), ExperiencerContext.valueOf(applyExperiencer(words[s]))))
+				throw new IllegalStateException("Different context: " + SENTENCES[s][1]);
+		}
+
+		//warm-up
+		for (int mode=STRINGS; mode <= FUSED; mode++)
+			run(context, words, iterations / 10, mode);
+
+		long strings = run(context, words, iterations, STRINGS);
+		long codes = run(context, words, iterations, CODES);
+		long fused = run(context, words, iterations, FUSED);
+		int sentences = iterations * SENTENCES.length;
+		System.out.println("token strings:              " + (strings / sentences) + " ns/sentence");
+		System.out.println("token codes (three passes): " + (codes / sentences) + " ns/sentence");
+		System.out.println("token codes (single pass):  " + (fused / sentences) + " ns/sentence");
+		System.out.println("speed-up:                   " + String.format("%.1f", (double) strings / codes) + "x, "
+			+ String.format("%.1f", (double) strings / fused) + "x");
+	}
+
+	private static long run(ConTextFrench context, String[][] words, int iterations, int mode) throws Exception
+	{
+		int length = 0;
+		long start = System.nanoTime();
+		for (int i=0; i < iterations; i++)
+			for (String[] sentence : words)
+			{
+				if (mode == FUSED)
+					length += context.applyContextPacked(sentence);
+				else if (mode == CODES)
+					length += context.applyNegEx(sentence).length() + context.applyTemporality(sentence).length()
+						+ context.applyExperiencer(sentence).length();
+				else
+					length += applyNegEx(sentence).length() + applyTemporality(sentence).length()
+						+ applyExperiencer(sentence).length();
+			}
+		long time = System.nanoTime() - start;
+		if (length == 42)
+			System.out.println();
+		return time;
+	}
+
+	//scope analysis as done before the token codes
+
+	/**
+	 * Apply NegEx algorithm to find negation context of the concepts found in the sentence
+	 * @return
+	 */
+	private static String applyNegEx(String[] words)
+	{
+		//Going from one negation to another, and creating the appropriate window
+		int m = 0;
+		List<String> window = new ArrayList<String>();
+		
+		//for each word in the sentence
+		while (m < words.length)
+		{
+			//IF word is a pseudo-negation, skips to the next word
+			if(words[m].equals("<NEG_PSEUDO>"))
+			{
+				m++;
+			}
+			//IF word is a pre- concept negation or possible...
+			else if(words[m].matches("<NEG_PRE>|<PREP>"))
+			{
+				//find window (default is six words after the negation phrase)
+				int maxWindow = MAX_WINDOW;
+				if (words.length < m + maxWindow) maxWindow = words.length - m;
+				for(int o=1; o < maxWindow; o++)
+				{
+					if(words[m+o].matches("<NEG_PRE>|<PREP>|<NEG_POST>|<POSS_POST>|<NEG_END>"))
+						break;
+					else window.add(words[m+o]);
+				}
+				
+				//get type of Negation
+				String currentNegationContext = "Affirmed";
+				if (words[m].equals("<NEG_PRE>")) {
+					currentNegationContext = "Negated";
+				}
+				else if(words[m].equals("<POSS_PRE>")) 
+					currentNegationContext = "Possible";
+				
+				//check if there are concepts in the window
+				for(int w=0; w<window.size(); w++) {
+					if(window.get(w).matches(regExUmlsTag)){
+						return currentNegationContext;
+					}
+				}
+				window.clear();
+				m++;
+			}
+			//IF word a post- concept negation or possible
+			else if(words[m].matches("<NEG_POST>|<POSS_POST>"))
+			{
+				//find window (default is six words before the negation phrase)
+				int maxWindow = MAX_WINDOW;
+				if (m < maxWindow) maxWindow = m;
+				for(int o=1; o < maxWindow; o++) {
+					if(words[m-o].matches("<NEG_PRE>|<POSS_PRE>|<NEG_POST>|<POSS_POST>|<NEG_END>"))
+						break;
+					else
+						window.add(words[m-o]);
+				}
+				
+				//get type of Negation
+				String currentNegationContext = "Affirmed";
+				if (words[m].equals("<NEG_POST>")){
+					currentNegationContext = "Negated";
+				}
+				else if(words[m].equals("<POSS_POST>")) 
+					currentNegationContext = "Possible";
+					
+				//check if there are concepts in the window
+				for(int w=0; w<window.size(); w++) {
+					if(window.get(w).matches(regExUmlsTag)){
+						return currentNegationContext;
+					}
+				}
+				window.clear();
+				m++;
+			}
+			//IF word not a negation or conjunction skip
+			else{
+				m++;
+			}
+		}
+		return "Affirmed";
+	}
+	
+	/**
+	 * Temporality analysis
+	 * @return
+	 */
+	private static String applyTemporality(String[] words)
+	{
+
+		List<String> window = new ArrayList<String>();
+		
+		
+	
+		//Going from one temporality term to another, and creating the appropriate window
+		int mm = 0;
+		while(mm<words.length)
+		{
+			//IF word is a pseudo-negation, skips to the next word
+			if(words[mm].equals("<NEG_PSEUDO>")) mm++;
+	
+			//IF word is a pre- hypothetical trigger term
+			else if(words[mm].equals("<HYPO_PRE>")){
+
+				//expands window until end of sentence, termination term, or other negation/possible trigger term
+				for(int o=1; (mm+o)<words.length; o++) {
+					if(words[mm+o].equals("<HYPO_END>|<HYPO_EXP_END>|<HYPO_PRE>")) {
+						break;//window decreased to right before other negation or conjunction
+					}
+					else 
+						window.add(words[mm+o]);
+				}
+				//check if there are concepts in the window
+				for(int w=0; w<window.size(); w++) {
+					if(window.get(w).matches(regExUmlsTag)){
+						return "Hypothetical";
+					}
+				}
+				window.clear();
+				mm++;
+			}
+			//IF word a pre- historical trigger term
+			else if(words[mm].matches("<HIST_PRE>|<TIME_PRE>")){
+
+				//expands window until end of sentence, termination term, or other negation/possible trigger term
+				for(int o=1; (mm+o)<words.length; o++) {
+					if(words[mm+o].matches("<HIST_END>|<HIST_EXP_END>|<HIST_PRE>|<HIST_1W>")) {
+						break;//window decreased to right after other negation or conjunction
+					}
+					else window.add(words[mm+o]);
+				}
+				//check if there are concepts in the window
+				for(int w=0; w<window.size(); w++) {
+					if(window.get(w).matches(regExUmlsTag)){
+						return "Historical";
+					}
+				}
+				window.clear();
+				mm++;
+			}
+			//IF word a post- historical trigger term
+			else if(words[mm].equals("<TIME_POST>")){
+
+				//expands window until end of sentence, termination term, or other negation/possible trigger term
+				for(int o=1; (mm-o)>=0; o++) {
+					if(words[mm-o].matches("<HIST_END>|<HIST_EXP_END>|<HIST_PRE>|<HIST_1W>")) {
+						break;//window decreased to right after other negation or conjunction
+					}
+					else window.add(words[mm-o]);
+				}
+				//check if there are concepts in the window
+				for(int w=0; w<window.size(); w++) {
+					if(window.get(w).matches(regExUmlsTag)){
+						return "Historical";
+					}
+				}
+				window.clear();
+				mm++;
+			}
+			else mm++;
+		}
+		return "Recent";
+	}
+	
+	/**
+	 * Experiencer analysis
+	 * @return
+	 */
+	private static String applyExperiencer(String[] words)
+	{
+		List<String> window = new ArrayList<String>();
+		
+		//Going from one experiencer term to another, and creating the appropriate window
+		int mm = 0;
+		while(mm<words.length){
+			//IF word is a pseudo-negation, skips to the next word
+			if(words[mm].equals("<NEG_PSEUDO>")) mm++;
+	
+			//IF word is a pre- experiencer trigger term
+			else if(words[mm].equals("<EXP_PRE>"))
+			{
+				//expands window until end of sentence, termination term, or other negation/possible trigger term
+				for(int o=1; (mm+o)<words.length; o++) {
+					if(words[mm+o].equals("<EXP_END>|<HIST_EXP_END>|<HYPO_EXP_END>|<EXP_PRE>")) {
+						break;//window decreased to right before other negation or conjunction
+					}
+					else window.add(words[mm+o]);
+				}
+				for(int w=0; w<window.size(); w++) {
+					if(window.get(w).matches(regExUmlsTag)){
+						return "Other";
+					}
+				}
+				window.clear();
+				mm++;
+			}
+			else mm++;
+		}
+		return "Patient";
+	}
+}
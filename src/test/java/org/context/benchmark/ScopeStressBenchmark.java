@@ -0,0 +1,70 @@
+package org.context.benchmark;
+
+import org.context.implementation.ConTextFrench;
+
+import java.util.Random;
+
+
+/**
+ * Stress test of the scope analysis on very long tagged sentences (up to 2,000 tokens) full of
+ * hypothetical, historical and experiencer triggers, whose windows run to the end of the sentence.
+ * The time per token must stay the same when the sentences get longer: the analysis fails if the
+ * 2,000-token sentences cost more than 4 times as much per token as the 250-token ones.
+ *
+ * Usage: ScopeStressBenchmark [iterations]
+ */
+public class ScopeStressBenchmark {
+
+	private static final String[] TOKENS = {
+		"<HYPO_PRE>", "<HIST_PRE>", "<TIME_PRE>", "<TIME_POST>", "<HIST_END>", "<EXP_PRE>",
+		"<NEG_PRE>", "<NEG_POST>", "<POSS_POST>", "<NEG_END>", "<NEG_PSEUDO>"
+	};
+
+	private static final int[] LENGTHS = {250, 500, 1000, 2000};
+
+	public static void main(String[] args) throws Exception
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		ConTextFrench context = new ConTextFrench();
+		Random random = new Random(42);
+
+		double[] perToken = new double[LENGTHS.length];
+		for (int l=0; l < LENGTHS.length; l++)
+		{
+			//half of the tokens are triggers, the concept is at the beginning of the sentence (outside of
+			//the windows of the following triggers)
+			String[][] sentences = new String[16][];
+			for (int s=0; s < sentences.length; s++)
+			{
+				String[] words = new String[LENGTHS[l]];
+				for (int w=0; w < words.length; w++)
+					words[w] = random.nextBoolean() ? TOKENS[random.nextInt(TOKENS.length)] : "mot";
+				words[random.nextInt(3)] = "[0]";
+				sentences[s] = words;
+			}
+
+			run(context, sentences, iterations / 10);
+			long time = run(context, sentences, iterations);
+			perToken[l] = (double) time / ((long) iterations * sentences.length * LENGTHS[l]);
+			System.out.println(LENGTHS[l] + " tokens: " + (time / ((long) iterations * sentences.length)) + " ns/sentence, "
+				+ String.format("%.2f", perToken[l]) + " ns/token");
+		}
+
+		if (perToken[LENGTHS.length - 1] > 4 * perToken[0])
+			throw new IllegalStateException("The scope analysis is not linear in the sentence length");
+	}
+
+	private static long run(ConTextFrench context, String[][] sentences, int iterations) throws Exception
+	{
+		int length = 0;
+		long start = System.nanoTime();
+		for (int i=0; i < iterations; i++)
+			for (String[] words : sentences)
+				length += context.applyNegEx(words).length() + context.applyTemporality(words).length()
+					+ context.applyExperiencer(words).length();
+		long time = System.nanoTime() - start;
+		if (length == 42)
+			System.out.println();
+		return time;
+	}
+}
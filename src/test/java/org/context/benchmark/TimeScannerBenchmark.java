@@ -0,0 +1,78 @@
+package org.context.benchmark;
+
+import org.context.implementation.FrenchTimeScanner;
+import org.context.implementation.TimeScanner;
+
+import java.util.regex.Pattern;
+
+
+/**
+ * Compares the time expression scanner with the regexes it replaces (compiled for every sentence
+ * and applied with three replaceAll), on French sentences.
+ *
+ * Usage: TimeScannerBenchmark [iterations]
+ */
+public class TimeScannerBenchmark {
+
+	private static final String[] SENTENCES = {
+		" patient hospitalisé depuis 3 mois pour une pneumopathie.",
+		" pas de fièvre pendant les derniers 2 mois de traitement, toux persistante.",
+		" douleur thoracique apparue il y a 15 jours, sans irradiation.",
+		" antécédent de diabète diagnostiqué en décembre, traité par metformine.",
+		" examen clinique normal ce jour.",
+		" le patient ne présente pas de dyspnée ni de douleur abdominale.",
+		" suivi depuis le printemps pour une hypertension artérielle.",
+		" aucune récidive depuis 2 ans."
+	};
+
+	public static void main(String[] args)
+	{
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		TimeScanner scanner = new FrenchTimeScanner();
+
+		for (String sentence : SENTENCES)
+			if (!regexTag(sentence).equals(scanner.tag(sentence)))
+				throw new IllegalStateException("Different tagging: " + sentence);
+
+		//warm-up
+		run(scanner, iterations / 10, false);
+		run(scanner, iterations / 10, true);
+
+		long regex = run(scanner, iterations, false);
+		long scan = run(scanner, iterations, true);
+		int sentences = iterations * SENTENCES.length;
+		System.out.println("regexes (compiled per sentence): " + (regex / sentences) + " ns/sentence");
+		System.out.println("time scanner:                    " + (scan / sentences) + " ns/sentence");
+		System.out.println("speed-up:                        " + String.format("%.1f", (double) regex / scan) + "x");
+	}
+
+	private static long run(TimeScanner scanner, int iterations, boolean useScanner)
+	{
+		int length = 0;
+		long start = System.nanoTime();
+		for (int i=0; i < iterations; i++)
+			for (String sentence : SENTENCES)
+				length += useScanner ? scanner.tag(sentence).length() : regexTag(sentence).length();
+		long time = System.nanoTime() - start;
+		if (length == 42)
+			System.out.println();
+		return time;
+	}
+
+	//time tagging as done before the scanner
+	private static String regexTag(String sentenceTagged)
+	{
+		Pattern regexTime = Pattern.compile("((1[4-9]|[1-9]?[2-9][0-9])( |-)(jour|jours))|" +
+				"(([2-9]|[1-9][0-9])( |-)(semaine|semaines))|" +
+				"(([1-9]?[0-9])( |-)(mois|an|ans|année|années))");
+		Pattern regexTimeFor = Pattern.compile("(pour|pendant) (le|la|les) (dernier|dernière|dernières|derniers) (((1[4-9]|[1-9]?[2-9][0-9])( |-)[jour|jours] de)|" +
+				"(([2-9]|[1-9][0-9])( |-)(semaine|semaines) de)|" +
+				"(([1-9]?[0-9])( |-)(mois|an|ans|année|années) de))");
+		Pattern regexTimeSince = Pattern.compile("(depuis|y a|ya)( le dernier| la dernière| les derniers| les dernières)? ((([2-9]|[1-9][0-9]) semaines)|" +
+				"(([1-9]?[0-9])? (mois|an|ans|année|années)))|" +
+				"((janvier|février|mars|avril|mai|juin|juillet|aout|août|septembre|octobre|novembre|décembre|decembre|printemps|été|hiver|automne))");
+		sentenceTagged = regexTimeFor.matcher(sentenceTagged).replaceAll(" <TIME_PRE> ");
+		sentenceTagged = regexTime.matcher(sentenceTagged).replaceAll(" <TIME_PRE> ");
+		return regexTimeSince.matcher(sentenceTagged).replaceAll(" <TIME_POST> ");
+	}
+}
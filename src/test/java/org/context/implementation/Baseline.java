@@ -0,0 +1,77 @@
+package org.context.implementation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Cases of a differential test, checked in with the outputs of the original engine (baseline commit,
+ * before the changes they check), generated from random inputs with a fixed seed.
+ *
+ * One case per line, fields separated by tabs, with the tabs, line breaks and backslashes of the fields
+ * escaped (\t, \n, \r, \\) and \N for null; the lines starting with # describe the fields.
+ */
+final class Baseline {
+
+	private Baseline()
+	{
+	}
+
+	/**
+	 * @param name Resource next to the tests ("triggers-fr.tsv")
+	 * @return Fields of each case
+	 */
+	static List<String[]> read(String name) throws IOException
+	{
+		InputStream in = Baseline.class.getResourceAsStream(name);
+		if (in == null)
+			throw new IOException("Missing baseline: " + name);
+		List<String[]> cases = new ArrayList<String[]>();
+		try (BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)))
+		{
+			String line;
+			while ((line = lines.readLine()) != null)
+			{
+				if (line.startsWith("#"))
+					continue;
+				String[] fields = line.split("\t", -1);
+				for (int f=0; f < fields.length; f++)
+					fields[f] = unescape(fields[f]);
+				cases.add(fields);
+			}
+		}
+		if (cases.isEmpty())
+			throw new IOException("Empty baseline: " + name);
+		return cases;
+	}
+
+	private static String unescape(String field)
+	{
+		if (field.equals("\\N"))
+			return null;
+		if (field.indexOf('\\') < 0)
+			return field;
+		StringBuilder text = new StringBuilder(field.length());
+		for (int i=0; i < field.length(); i++)
+		{
+			char c = field.charAt(i);
+			if (c == '\\' && i + 1 < field.length())
+			{
+				c = field.charAt(++i);
+				if (c == 't')
+					c = '\t';
+				else if (c == 'n')
+					c = '\n';
+				else if (c == 'r')
+					c = '\r';
+			}
+			text.append(c);
+		}
+		return text.toString();
+	}
+}
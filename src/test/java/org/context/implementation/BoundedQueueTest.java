@@ -0,0 +1,101 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+
+/**
+ * The bounded queue refuses items when it is full and gives none when it is empty, keeps the order of a
+ * producer, and hands each item to exactly one consumer when several threads share it.
+ */
+public class BoundedQueueTest extends TestCase {
+
+	private static final int ITEMS = 100000;
+
+	public void testFullAndEmpty() throws Exception
+	{
+		BoundedQueue<Integer> queue = new BoundedQueue<Integer>(3);
+		assertEquals(4, queue.capacity());
+		assertNull(queue.poll());
+		for (int i=0; i < 4; i++)
+			assertTrue(queue.offer(i));
+		assertFalse(queue.offer(4));
+		assertEquals(4, queue.size());
+
+		//one slot freed, one item accepted, around the ring
+		assertEquals(Integer.valueOf(0), queue.poll());
+		assertTrue(queue.offer(4));
+		assertFalse(queue.offer(5));
+		for (int i=1; i <= 4; i++)
+			assertEquals(Integer.valueOf(i), queue.poll());
+		assertNull(queue.poll());
+		assertEquals(0, queue.size());
+	}
+
+	public void testHandoffInOrder() throws Exception
+	{
+		final BoundedQueue<Integer> queue = new BoundedQueue<Integer>(2);
+		Thread producer = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				for (int i=0; i < ITEMS; i++)
+					while (!queue.offer(i))
+						Thread.yield();
+			}
+		});
+		producer.start();
+		for (int i=0; i < ITEMS; i++)
+		{
+			Integer item;
+			while ((item = queue.poll()) == null)
+				Thread.yield();
+			assertEquals(i, item.intValue());
+		}
+		producer.join();
+		assertNull(queue.poll());
+	}
+
+	public void testEachItemConsumedOnce() throws Exception
+	{
+		final BoundedQueue<Integer> queue = new BoundedQueue<Integer>(8);
+		final AtomicIntegerArray seen = new AtomicIntegerArray(ITEMS);
+		Thread[] threads = new Thread[4];
+		for (int t=0; t < threads.length; t++)
+		{
+			final int thread = t;
+			threads[t] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					//two producers (even and odd items) and two consumers (half of the items each)
+					if (thread < 2)
+					{
+						for (int i=thread; i < ITEMS; i += 2)
+							while (!queue.offer(i))
+								Thread.yield();
+					}
+					else
+					{
+						for (int n=0; n < ITEMS / 2; n++)
+						{
+							Integer item;
+							while ((item = queue.poll()) == null)
+								Thread.yield();
+							seen.incrementAndGet(item);
+						}
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		for (int i=0; i < ITEMS; i++)
+			assertEquals("item " + i, 1, seen.get(i));
+		assertNull(queue.poll());
+	}
+}
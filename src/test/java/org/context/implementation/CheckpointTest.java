@@ -0,0 +1,124 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
+
+
+/**
+ * A run resumed from a checkpoint writes the same output as an uninterrupted run, and a checkpoint saved
+ * for another input or with another lexicon is rejected.
+ */
+public class CheckpointTest extends TestCase {
+
+	private static final int RECORDS = 2000;
+	private static final int RESUMED = 1234;
+
+	private ConTextFrench context;
+	private File input;
+	private File output;
+	private File checkpoint;
+	private byte[] expected;
+	//offset of the record RESUMED in the input, size of the output of the previous ones
+	private long offset;
+	private long position;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		context = new ConTextFrench();
+		String[] lines = Corpora.corpus(new Random(9), RECORDS).split("\n");
+		StringBuilder corpus = new StringBuilder();
+		for (int r=0; r < RECORDS; r++)
+		{
+			if (r == RESUMED)
+				offset = corpus.toString().getBytes(StandardCharsets.UTF_8).length;
+			corpus.append(lines[r]).append('\n');
+		}
+		input = temporary(".tsv");
+		output = temporary(".out");
+		checkpoint = temporary(".checkpoint");
+		checkpoint.delete();
+		Files.write(input.toPath(), corpus.toString().getBytes(StandardCharsets.UTF_8));
+
+		new CorpusProcessor(context, 2, 64, 1 << 20).processMapped(input.getPath(), output.getPath());
+		expected = Files.readAllBytes(output.toPath());
+		String results = new String(expected, StandardCharsets.UTF_8);
+		int before = results.indexOf("\n" + RESUMED + "\t");
+		assertTrue(before > 0);
+		position = results.substring(0, before + 1).getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	public void testResumedRunGivesTheSameOutput() throws Exception
+	{
+		//output of a run stopped after its checkpoint, with results written after it
+		Files.write(output.toPath(), Arrays.copyOf(expected, (int) position + 50));
+		save(input.getAbsolutePath(), input.length(), context.getTriggerTagger().getVersion());
+
+		long first = new CorpusProcessor(context, 2, 64, 1 << 20).process(input.getPath(), output.getPath(), checkpoint.getPath(), 0);
+		assertEquals(RESUMED, first);
+		assertTrue(Arrays.equals(expected, Files.readAllBytes(output.toPath())));
+		assertFalse(checkpoint.exists());
+	}
+
+	public void testCheckpointOfAnotherInputIsRejected() throws Exception
+	{
+		save(input.getAbsolutePath(), input.length() + 1, context.getTriggerTagger().getVersion());
+		assertRejected();
+		save(output.getAbsolutePath(), input.length(), context.getTriggerTagger().getVersion());
+		assertRejected();
+	}
+
+	public void testCheckpointOfAnotherLexiconIsRejected() throws Exception
+	{
+		save(input.getAbsolutePath(), input.length(), new TriggerTagger(new String[]{"pas de,pre,neg"}).getVersion());
+		assertRejected();
+	}
+
+	private void assertRejected() throws Exception
+	{
+		Files.write(output.toPath(), Arrays.copyOf(expected, (int) position));
+		try
+		{
+			new CorpusProcessor(context, 2, 64, 1 << 20).process(input.getPath(), output.getPath(), checkpoint.getPath(), 0);
+			fail("checkpoint accepted");
+		}
+		catch (IOException e)
+		{
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Checkpoint"));
+		}
+		//nothing was written
+		assertEquals(position, output.length());
+		assertTrue(checkpoint.exists());
+	}
+
+	private void save(String path, long size, String version) throws Exception
+	{
+		Properties state = new Properties();
+		state.setProperty("input.path", new File(path).toPath().normalize().toString());
+		state.setProperty("input.size", Long.toString(size));
+		state.setProperty("input.modified", Long.toString(Files.getLastModifiedTime(input.toPath()).toMillis()));
+		state.setProperty("input.offset", Long.toString(offset));
+		state.setProperty("record", Integer.toString(RESUMED));
+		state.setProperty("output.position", Long.toString(position));
+		state.setProperty("lexicon.version", version);
+		try (OutputStream out = Files.newOutputStream(checkpoint.toPath()))
+		{
+			state.store(out, null);
+		}
+	}
+
+	private static File temporary(String suffix) throws IOException
+	{
+		File file = File.createTempFile("corpus", suffix);
+		file.deleteOnExit();
+		return file;
+	}
+}
@@ -0,0 +1,141 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Mentions found by the concept dictionary: overlapping terms are resolved leftmost first then longest
+ * first, a mention never starts or ends inside a word, and the offsets refer to the sentence as written
+ * (whatever its case and whitespace). Random sentences are checked against a naive scan of every offset.
+ */
+public class ConceptDictionaryTest extends TestCase {
+
+	private static final String[] TERMS = {"toux", "toux sèche", "sèche", "fièvre", "fièvre élevée", "élevée", "douleur thoracique", "thoracique", "a", "ab", "b"};
+	private static final String[] WORDS = {"Toux", "toux", "TOUX", "sèche", "Sèche", "fièvre", "élevée", "douleur", "thoracique", "toussant", "a", "ab", "b", "ba", ",", ".", "-"};
+	private static final String[] SPACES = {" ", "  ", "\t", " \n ", "", ""};
+
+	public void testOverlappingMentions() throws Exception
+	{
+		ConceptDictionary dictionary = new ConceptDictionary(Arrays.asList(TERMS), null);
+		//longest first at the same start, then leftmost first: "sèche" is inside "toux sèche", "élevée" is not taken
+		assertEquals(Arrays.asList("toux sèche [0,10]", "fièvre élevée [12,25]"), mentions(dictionary, "toux sèche, fièvre élevée"));
+		//a longer term starting later does not replace the leftmost one
+		ConceptDictionary overlapping = new ConceptDictionary(Arrays.asList("toux sèche", "sèche nocturne"), null);
+		assertEquals(Arrays.asList("toux sèche [0,10]"), mentions(overlapping, "toux sèche nocturne"));
+		assertEquals(Arrays.asList("douleur thoracique [4,22]"), mentions(dictionary, "une douleur thoracique"));
+	}
+
+	public void testWordBoundaries() throws Exception
+	{
+		ConceptDictionary dictionary = new ConceptDictionary(Arrays.asList(TERMS), null);
+		assertEquals(Arrays.asList(), mentions(dictionary, "toussant, atoux, touxa"));
+		assertEquals(Arrays.asList("toux [1,5]", "ab [6,8]", "b [9,10]"), mentions(dictionary, "(toux-ab b)"));
+		assertEquals(Arrays.asList("toux [0,4]"), mentions(dictionary, "toux"));
+		assertEquals(Arrays.asList("toux [3,7]"), mentions(dictionary, "ba toux bab"));
+	}
+
+	public void testOffsetsInTheSentenceAsWritten() throws Exception
+	{
+		ConceptDictionary dictionary = ConceptDictionary.load(new StringReader("# comment\nToux  Sèche\tC001\textra\nfièvre\nfièvre\tC003\n"));
+		assertEquals(2, dictionary.size());
+		String sentence = "  Pas de\tFIÈVRE,\nni de TOUX \t\n sèche.";
+		List<ConceptMention> mentions = dictionary.find(sentence);
+		assertEquals(2, mentions.size());
+		assertEquals("FIÈVRE", sentence.substring(mentions.get(0).getStart(), mentions.get(0).getEnd()));
+		assertEquals("fièvre", mentions.get(0).getConcept());
+		assertEquals("fièvre", mentions.get(0).getConceptId());
+		assertEquals("TOUX \t\n sèche", sentence.substring(mentions.get(1).getStart(), mentions.get(1).getEnd()));
+		assertEquals("Toux  Sèche", mentions.get(1).getConcept());
+		assertEquals("C001", mentions.get(1).getConceptId());
+	}
+
+	public void testAgreesWithNaiveScan() throws Exception
+	{
+		ConceptDictionary dictionary = new ConceptDictionary(Arrays.asList(TERMS), null);
+		List<String> normalized = new ArrayList<String>();
+		for (String term : TERMS)
+			normalized.add(ConceptDictionary.normalize(term));
+		Random random = new Random(3);
+		for (int s=0; s < 5000; s++)
+		{
+			StringBuilder sentence = new StringBuilder();
+			int words = 1 + random.nextInt(10);
+			for (int w=0; w < words; w++)
+			{
+				sentence.append(SPACES[random.nextInt(SPACES.length)]);
+				sentence.append(WORDS[random.nextInt(WORDS.length)]);
+			}
+			String sent = sentence.toString();
+			assertEquals(sent, naive(sent, normalized), mentions(dictionary, sent));
+		}
+	}
+
+	private static List<String> mentions(ConceptDictionary dictionary, String sentence)
+	{
+		List<String> mentions = new ArrayList<String>();
+		for (ConceptMention mention : dictionary.find(sentence))
+			mentions.add(mention.getConcept() + " [" + mention.getStart() + "," + mention.getEnd() + "]");
+		return mentions;
+	}
+
+	//every term tried at every offset, the longest one kept, from left to right
+	private static List<String> naive(String sentence, List<String> terms)
+	{
+		List<String> mentions = new ArrayList<String>();
+		int last = 0;
+		for (int start=0; start < sentence.length(); start++)
+		{
+			if (start < last || !boundary(sentence, start))
+				continue;
+			int longest = -1, end = -1;
+			for (int t=0; t < terms.size(); t++)
+			{
+				int e = match(sentence, start, terms.get(t));
+				if (e > end && boundary(sentence, e))
+				{
+					longest = t;
+					end = e;
+				}
+			}
+			if (longest >= 0)
+			{
+				mentions.add(TERMS[longest] + " [" + start + "," + end + "]");
+				last = end;
+			}
+		}
+		return mentions;
+	}
+
+	//end of the term matched at start (a space matches a run of whitespace), -1 if it does not match
+	private static int match(String sentence, int start, String term)
+	{
+		int i = start;
+		for (int k=0; k < term.length(); k++)
+		{
+			if (i == sentence.length())
+				return -1;
+			if (term.charAt(k) == ' ')
+			{
+				if (!TriggerTagger.isSpace(sentence.charAt(i)))
+					return -1;
+				while (i < sentence.length() && TriggerTagger.isSpace(sentence.charAt(i)))
+					i++;
+			}
+			else if (Character.toLowerCase(sentence.charAt(i++)) != term.charAt(k))
+				return -1;
+		}
+		return i;
+	}
+
+	private static boolean boundary(String sentence, int i)
+	{
+		return i == 0 || i == sentence.length()
+			|| !Character.isLetterOrDigit(sentence.charAt(i-1)) || !Character.isLetterOrDigit(sentence.charAt(i));
+	}
+}
@@ -0,0 +1,74 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * The mentions found by findAll refer to the sentence as written (whatever its case and whitespace), and
+ * are the occurrences that tag finds, including at the start of the sentence: tagging them gives the
+ * same tokens (the runs of spaces around the tags can differ).
+ */
+public class ConceptTaggerTest extends TestCase {
+
+	private static final String[] WORDS = {"Pas", "de", "FIÈVRE", "fièvre", "ni", "Toux", "toux", "sèche", "douleur", ",", "."};
+	private static final String[] SPACES = {" ", "  ", "\t", " \n ", " "};
+	private static final String[] CONCEPTS = {"fièvre", "toux", " toux", "fièvre ", "toux sèche", "de  fièvre", "DOULEUR"};
+
+	public void testMentionOffsetsAfterNormalization() throws Exception
+	{
+		String sentence = "  Pas de\tFIÈVRE,  ni\n\nde TOUX sèche.";
+		int[] mentions = ConceptTagger.findAll(sentence, Arrays.asList("fièvre", "toux  sèche"), false);
+		assertEquals(6, mentions.length);
+		assertEquals("FIÈVRE", sentence.substring(mentions[0], mentions[1]));
+		assertEquals(0, mentions[2]);
+		assertEquals("TOUX sèche", sentence.substring(mentions[3], mentions[4]));
+		assertEquals(1, mentions[5]);
+	}
+
+	public void testConceptAtTheStartOfTheSentence() throws Exception
+	{
+		String sentence = "Toux sèche";
+		int[] mentions = ConceptTagger.findAll(sentence, Collections.singletonList(" toux"), false);
+		assertEquals(Arrays.toString(mentions), 3, mentions.length);
+		assertEquals(0, mentions[0]);
+		assertEquals("Toux", sentence.substring(mentions[0], mentions[1]));
+		assertEquals(tokens(ConceptTagger.tag(sentence, " toux", false)), tokens(ConceptTagger.tagMentions(sentence, mentions, false)));
+	}
+
+	public void testFindAllAgreesWithTag() throws Exception
+	{
+		Random random = new Random(5);
+		for (int s=0; s < 2000; s++)
+		{
+			StringBuilder sentence = new StringBuilder();
+			int words = 1 + random.nextInt(8);
+			for (int w=0; w < words; w++)
+			{
+				if (w > 0 || random.nextBoolean())
+					sentence.append(SPACES[random.nextInt(SPACES.length)]);
+				sentence.append(WORDS[random.nextInt(WORDS.length)]);
+			}
+			String sent = sentence.toString();
+			for (String concept : CONCEPTS)
+			{
+				boolean fold = random.nextBoolean();
+				String message = "'" + concept + "' in '" + sent + "'";
+				String tagged = ConceptTagger.tag(sent, concept, fold);
+				int[] mentions = ConceptTagger.findAll(sent, Collections.singletonList(concept), fold);
+				assertEquals(message, tagged == null, mentions.length == 0);
+				if (tagged != null)
+					assertEquals(message, tokens(tagged), tokens(ConceptTagger.tagMentions(sent, Arrays.copyOf(mentions, 3), fold)));
+			}
+		}
+	}
+
+	private static List<String> tokens(String tagged)
+	{
+		return Arrays.asList(Tokenizer.FRENCH.split(tagged));
+	}
+}
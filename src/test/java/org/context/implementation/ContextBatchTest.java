@@ -0,0 +1,122 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * The batch gives the results of the serial analysis in input order, and an exception thrown by the engine
+ * on any sentence is thrown by the batch, which can still be used afterwards.
+ */
+public class ContextBatchTest extends TestCase {
+
+	public void testResultsInInputOrder() throws Exception
+	{
+		ConTextFrench context = new ConTextFrench();
+		List<ContextBatch.Item> items = items(new Random(13), 2000);
+		ContextBatch batch = new ContextBatch(context, 4);
+		try
+		{
+			List<List<ContextResult>> results = batch.apply(items);
+			int[][] packed = batch.applyPacked(items);
+			assertEquals(items.size(), results.size());
+			assertEquals(items.size(), packed.length);
+			for (int i=0; i < items.size(); i++)
+			{
+				ContextBatch.Item item = items.get(i);
+				List<ArrayList<String>> expected = context.applyContext(item.getConcepts(), item.getSentence());
+				assertEquals(expected.size(), results.get(i).size());
+				for (int c=0; c < expected.size(); c++)
+				{
+					ContextResult result = results.get(i).get(c);
+					assertEquals(item.getSentence(), expected.get(c), result == null ? null : result.toList());
+					assertEquals(item.getSentence(), result == null ? -1 : result.pack(), packed[i][c]);
+				}
+			}
+		}
+		finally
+		{
+			batch.shutdown();
+		}
+	}
+
+	public void testCheckedExceptionIsThrown() throws Exception
+	{
+		checkFailure(new IOException("boom"));
+	}
+
+	public void testRuntimeExceptionIsThrown() throws Exception
+	{
+		checkFailure(new IllegalStateException("boom"));
+	}
+
+	public void testErrorIsThrown() throws Exception
+	{
+		checkFailure(new AssertionError("boom"));
+	}
+
+	private static void checkFailure(final Throwable failure) throws Exception
+	{
+		ConTextFrench context = new ConTextFrench()
+		{
+			@Override
+			public void applyContext(List<String> concepts, CharSequence sentence, ContextResultSink sink) throws Exception
+			{
+				if (sentence.toString().equals("boom"))
+				{
+					if (failure instanceof Exception)
+						throw (Exception) failure;
+					throw (Error) failure;
+				}
+				super.applyContext(concepts, sentence, sink);
+			}
+		};
+		List<ContextBatch.Item> items = items(new Random(13), 1000);
+		List<ContextBatch.Item> failing = new ArrayList<ContextBatch.Item>(items);
+		failing.set(777, new ContextBatch.Item("boom", "toux"));
+		ContextBatch batch = new ContextBatch(context, 4);
+		try
+		{
+			try
+			{
+				batch.applyPacked(failing);
+				fail("no exception thrown");
+			}
+			catch (Throwable e)
+			{
+				//an exception thrown by another thread can be rethrown as a copy (of a copy), caused by the original
+				assertSame(failure.getClass(), e.getClass());
+				Throwable cause = e;
+				while (cause != failure && cause.getCause() != null && cause.getClass() == failure.getClass())
+					cause = cause.getCause();
+				assertSame(failure, cause);
+			}
+
+			//the batch still analyzes the next items
+			int[][] packed = batch.applyPacked(items);
+			for (int i=0; i < items.size(); i++)
+				assertEquals(items.get(i).getConcepts().size(), packed[i].length);
+		}
+		finally
+		{
+			batch.shutdown();
+		}
+	}
+
+	//records of a random corpus, concepts absent from the sentence included
+	private static List<ContextBatch.Item> items(Random random, int records)
+	{
+		List<ContextBatch.Item> items = new ArrayList<ContextBatch.Item>();
+		for (String line : Corpora.corpus(random, records).split("\n"))
+		{
+			String[] fields = line.split("\t", -1);
+			items.add(new ContextBatch.Item(fields[0], Arrays.asList(fields).subList(1, fields.length)));
+		}
+		return items;
+	}
+}
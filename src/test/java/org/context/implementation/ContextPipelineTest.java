@@ -0,0 +1,135 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+
+
+/**
+ * The pipeline writes the same output as the corpus processor (several threads per stage, small queues so
+ * that the stages wait for each other), rethrows the failure of a worker, and leaves the channels of the
+ * caller open.
+ */
+public class ContextPipelineTest extends TestCase {
+
+	public void testSameOutputAsCorpusProcessor() throws Exception
+	{
+		ConTextFrench context = new ConTextFrench();
+		byte[] corpus = Corpora.corpus(new Random(3), 3000).getBytes(StandardCharsets.UTF_8);
+
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		new CorpusProcessor(context, 1, 16, 1 << 20).process(Channels.newChannel(new ByteArrayInputStream(corpus)),
+			Channels.newChannel(expected));
+
+		ContextPipeline pipeline = new ContextPipeline(context, 2, 2, 3, 2, 4);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		pipeline.process(Channels.newChannel(new ByteArrayInputStream(corpus)), Channels.newChannel(output));
+		assertTrue(expected.size() > 0);
+		assertTrue(Arrays.equals(expected.toByteArray(), output.toByteArray()));
+		assertEquals(3000, pipeline.getRecordCount());
+		assertEquals(3000, pipeline.getStages().get(0).getRecordCount());
+		assertEquals(3000, pipeline.getStages().get(4).getRecordCount());
+		assertEquals(new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n").length, pipeline.getResultCount());
+	}
+
+	public void testWorkerFailureIsRethrown() throws Exception
+	{
+		byte[] corpus = (Corpora.corpus(new Random(4), 500) + "boom\tfièvre\n" + Corpora.corpus(new Random(5), 500))
+			.getBytes(StandardCharsets.UTF_8);
+		try
+		{
+			new ContextPipeline(failing(new IllegalStateException("boom")), 1, 1, 2, 1, 4)
+				.process(Channels.newChannel(new ByteArrayInputStream(corpus)), Channels.newChannel(new ByteArrayOutputStream()));
+			fail("the failure of the worker was not rethrown");
+		}
+		catch (IllegalStateException e)
+		{
+			assertEquals("boom", e.getMessage());
+		}
+
+		//errors are wrapped
+		try
+		{
+			new ContextPipeline(failing(new AssertionError("boom")), 1, 1, 2, 1, 4)
+				.process(Channels.newChannel(new ByteArrayInputStream(corpus)), Channels.newChannel(new ByteArrayOutputStream()));
+			fail("the failure of the worker was not rethrown");
+		}
+		catch (ExecutionException e)
+		{
+			assertTrue(e.getCause() instanceof AssertionError);
+		}
+	}
+
+	public void testChannelsOfTheCallerStayOpen() throws Exception
+	{
+		File input = File.createTempFile("corpus", ".tsv");
+		input.deleteOnExit();
+		Files.write(input.toPath(), (Corpora.corpus(new Random(6), 2000) + "boom\tfièvre\n" + Corpora.corpus(new Random(7), 2000))
+			.getBytes(StandardCharsets.UTF_8));
+		try (FileChannel in = FileChannel.open(input.toPath(), StandardOpenOption.READ))
+		{
+			try
+			{
+				new ContextPipeline(failing(new IllegalStateException("boom")), 1, 1, 1, 1, 2)
+					.process(in, Channels.newChannel(new ByteArrayOutputStream()));
+				fail("the failure of the worker was not rethrown");
+			}
+			catch (IllegalStateException e)
+			{
+				//expected
+			}
+			assertTrue(in.isOpen());
+			in.position(0);
+		}
+	}
+
+	//engine whose triggers stage fails on the sentence "boom"
+	private static AbstractConText failing(final Throwable failure)
+	{
+		return new ConTextFrench()
+		{
+			@Override
+			ContextStages stages()
+			{
+				final ContextStages stages = super.stages();
+				return new ContextStages()
+				{
+					@Override
+					public String tagConcepts(CharSequence sentence, List<String> concepts)
+					{
+						return sentence.toString().equals("boom") ? " boom [0] " : stages.tagConcepts(sentence, concepts);
+					}
+
+					@Override
+					public String tagTriggers(String sentence)
+					{
+						if (sentence.contains("boom"))
+						{
+							if (failure instanceof RuntimeException)
+								throw (RuntimeException) failure;
+							throw (Error) failure;
+						}
+						return stages.tagTriggers(sentence);
+					}
+
+					@Override
+					public int[] classify(String tagged, int concepts)
+					{
+						return stages.classify(tagged, concepts);
+					}
+				};
+			}
+		};
+	}
+}
@@ -0,0 +1,101 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+
+import org.context.implementation.ConText.ExperiencerContext;
+import org.context.implementation.ConText.NegationContext;
+import org.context.implementation.ConText.TemporalityContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+
+/**
+ * Packed contexts: every combination of the three values round-trips through 5 bits, and the sink
+ * receives the same results as the list and mention forms of applyContext (index, offsets and context).
+ */
+public class ContextResultTest extends TestCase {
+
+	public void testPackRoundTrip() throws Exception
+	{
+		Set<Integer> packed = new HashSet<Integer>();
+		for (NegationContext negation : NegationContext.values())
+			for (TemporalityContext temporality : TemporalityContext.values())
+				for (ExperiencerContext experiencer : ExperiencerContext.values())
+				{
+					ContextResult result = new ContextResult("toux", "phrase", negation, temporality, experiencer);
+					int context = result.pack();
+					assertEquals(context, ContextResult.pack(negation, temporality, experiencer));
+					assertTrue(context >= 0 && context < 32);
+					assertTrue(packed.add(context));
+					assertSame(negation, ContextResult.negation(context));
+					assertSame(temporality, ContextResult.temporality(context));
+					assertSame(experiencer, ContextResult.experiencer(context));
+					ContextResult unpacked = new ContextResult("toux", "phrase", context);
+					assertEquals(Arrays.asList("toux", "phrase", negation.name(), temporality.name(), experiencer.name()), unpacked.toList());
+					assertEquals(result.toList(), unpacked.toList());
+				}
+		assertEquals(3 * 3 * 2, packed.size());
+	}
+
+	public void testSinkAgreesWithTheListResults() throws Exception
+	{
+		ConTextFrench context = new ConTextFrench();
+		for (String line : Corpora.corpus(new Random(7), 300).split("\n"))
+		{
+			String[] fields = line.split("\t", -1);
+			String sentence = fields[0];
+			List<String> concepts = Arrays.asList(fields).subList(1, fields.length);
+			List<ArrayList<String>> expected = context.applyContext(concepts, sentence);
+			final List<ArrayList<String>> received = new ArrayList<ArrayList<String>>();
+			for (int c=0; c < concepts.size(); c++)
+				received.add(null);
+			final List<String> list = concepts;
+			final String sent = sentence;
+			context.applyContext(concepts, sentence, new ContextResultSink()
+			{
+				@Override
+				public void accept(int concept, int start, int end, int packed)
+				{
+					assertEquals(-1, start);
+					assertEquals(-1, end);
+					assertNull(received.get(concept));
+					received.set(concept, new ContextResult(list.get(concept), sent, packed).toList());
+				}
+			});
+			assertEquals(line, expected, received);
+		}
+	}
+
+	public void testDictionarySinkAgreesWithTheMentions() throws Exception
+	{
+		ConTextFrench context = new ConTextFrench();
+		ConceptDictionary dictionary = new ConceptDictionary(Arrays.asList("fièvre", "toux", "diabète", "douleur", "douleur thoracique", "dyspnée", "infarctus"), null);
+		for (String line : Corpora.corpus(new Random(7), 300).split("\n"))
+		{
+			String sentence = line.split("\t")[0];
+			final List<String> received = new ArrayList<String>();
+			context.applyContext(dictionary, sentence, new ContextResultSink()
+			{
+				@Override
+				public void accept(int concept, int start, int end, int packed)
+				{
+					received.add(concept + " " + start + " " + end + " " + packed);
+				}
+			});
+			List<String> expected = new ArrayList<String>();
+			for (ConceptMention mention : context.applyContext(dictionary, sentence))
+			{
+				int term = 0;
+				while (!dictionary.getConcept(term).equals(mention.getConcept()))
+					term++;
+				expected.add(term + " " + mention.getStart() + " " + mention.getEnd() + " " + mention.getResult().pack());
+			}
+			assertEquals(sentence, expected, received);
+		}
+	}
+}
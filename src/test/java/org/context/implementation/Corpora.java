@@ -0,0 +1,47 @@
+package org.context.implementation;
+
+import java.util.Random;
+
+
+/**
+ * Random French corpora in the format of {@link CorpusProcessor} ("sentence TAB concept [TAB concept...]"
+ * per line), with records without concept, empty concepts and concepts absent from their sentence.
+ */
+final class Corpora {
+
+	private static final String[] SENTENCES = {
+		"Pas de fièvre ni de frissons depuis 3 mois, toux persistante.",
+		"Antécédent de diabète chez sa mère, pas chez le patient.",
+		"Le patient a été hospitalisé pour une pneumopathie il y a 2 ans.",
+		"Il ne présente pas de dyspnée ni de douleur abdominale à l'examen clinique de ce jour.",
+		"Une embolie pulmonaire est possible, à éliminer par un angioscanner si la douleur persiste.",
+		"Douleur thoracique apparue il y a 15 jours, sans irradiation, sans signe de gravité.",
+		"Toux sèche.",
+		"Son père est décédé d'un infarctus, le patient ne signale aucune douleur thoracique."
+	};
+
+	private static final String[] CONCEPTS = {
+		"fièvre", "toux", "diabète", "pneumopathie", "dyspnée", "douleur", "embolie", "infarctus", "douleur thoracique", "cancer"
+	};
+
+	private Corpora()
+	{
+	}
+
+	/**
+	 * @return Corpus of the given number of records (each line ends with a newline)
+	 */
+	static String corpus(Random random, int records)
+	{
+		StringBuilder corpus = new StringBuilder();
+		for (int r=0; r < records; r++)
+		{
+			corpus.append(SENTENCES[random.nextInt(SENTENCES.length)]);
+			int concepts = random.nextInt(4);
+			for (int c=0; c < concepts; c++)
+				corpus.append('\t').append(random.nextInt(8) == 0 ? "" : CONCEPTS[random.nextInt(CONCEPTS.length)]);
+			corpus.append('\n');
+		}
+		return corpus.toString();
+	}
+}
@@ -0,0 +1,89 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * The corpus processor writes, in input order, the results that applyContext(concepts, sentence) gives
+ * record by record (several workers, few records in flight), and leaves the channels of the caller open
+ * when a record fails.
+ */
+public class CorpusProcessorTest extends TestCase {
+
+	public void testSameOutputAsApplyContext() throws Exception
+	{
+		ConTextFrench context = new ConTextFrench();
+		String corpus = Corpora.corpus(new Random(1), 3000) + "line without concept\n\tfièvre\nPas de toux.\ttoux";
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		CorpusProcessor processor = new CorpusProcessor(context, 3, 8, 1 << 20);
+		processor.process(Channels.newChannel(new ByteArrayInputStream(corpus.getBytes(StandardCharsets.UTF_8))),
+			Channels.newChannel(output));
+
+		String expected = serial(context, corpus);
+		assertEquals(expected, new String(output.toByteArray(), StandardCharsets.UTF_8));
+		assertTrue(Arrays.equals(expected.getBytes(StandardCharsets.UTF_8), output.toByteArray()));
+		assertEquals(3003, processor.getRecordCount());
+		assertEquals(expected.split("\n").length, processor.getResultCount());
+	}
+
+	public void testRecordTooLongKeepsTheChannelsOpen() throws Exception
+	{
+		File input = File.createTempFile("corpus", ".tsv");
+		input.deleteOnExit();
+		char[] sentence = new char[5000];
+		Arrays.fill(sentence, 'a');
+		Files.write(input.toPath(), (Corpora.corpus(new Random(2), 2000) + new String(sentence) + "\tfièvre\n"
+			+ Corpora.corpus(new Random(3), 2000)).getBytes(StandardCharsets.UTF_8));
+		try (FileChannel in = FileChannel.open(input.toPath(), StandardOpenOption.READ))
+		{
+			try
+			{
+				new CorpusProcessor(new ConTextFrench(), 2, 4, 1000).process(in, Channels.newChannel(new ByteArrayOutputStream()));
+				fail("record longer than the maximum accepted");
+			}
+			catch (Exception e)
+			{
+				//expected
+			}
+			assertTrue(in.isOpen());
+		}
+	}
+
+	//output of applyContext(concepts, sentence) on each record, in order
+	private static String serial(AbstractConText context, String corpus) throws Exception
+	{
+		StringBuilder output = new StringBuilder();
+		String[] lines = corpus.split("\n", -1);
+		for (int number=0; number < lines.length; number++)
+		{
+			String line = lines[number];
+			int tab = line.indexOf('\t');
+			if (tab < 0)
+				continue;
+			List<String> concepts = new ArrayList<String>();
+			for (String concept : line.substring(tab + 1).split("\t"))
+				if (concept.length() > 0)
+					concepts.add(concept);
+			List<ArrayList<String>> results = context.applyContext(concepts, line.substring(0, tab));
+			for (ArrayList<String> result : results)
+				if (result != null)
+					output.append(number).append('\t').append(result.get(0)).append('\t').append(result.get(2))
+						.append('\t').append(result.get(3)).append('\t').append(result.get(4)).append('\n');
+		}
+		return output.toString();
+	}
+}
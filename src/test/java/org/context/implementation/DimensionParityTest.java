@@ -0,0 +1,112 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+
+import org.context.implementation.ConText.ContextDimension;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+
+/**
+ * An engine built for some dimensions only gives the same results as the full analysis for them, and the
+ * default values (Affirmed, Recent, Patient) for the others, on random sentences made of lexicon phrases,
+ * time expressions, words and two concepts, long enough to reach the limits of the token windows.
+ */
+public class DimensionParityTest extends TestCase {
+
+	private static final int SENTENCES = 1500;
+	private static final List<String> DEFAULTS = Arrays.asList("Affirmed", "Recent", "Patient");
+
+	public void testFrench() throws Exception
+	{
+		check(new ConTextFrench(), new String[]{"fièvre", "toux"},
+			new String[]{"le", "patient", "présente", "une", "douleur", "à", "l'examen", "de", "ce", "jour", "et", ",", "."},
+			new String[]{"il y a 2 ans", "depuis 3 mois", "hier", "en 2010", "le 12 mars"});
+	}
+
+	public void testEnglish() throws Exception
+	{
+		check(new ConTextEnglish(), new String[]{"fever", "cough"},
+			new String[]{"the", "patient", "has", "a", "pain", "on", "examination", "of", "this", "day", "and", ",", "."},
+			new String[]{"2 years ago", "for 3 months", "yesterday", "in 2010", "on march 12"});
+	}
+
+	private static void check(AbstractConText full, String[] concepts, String[] words, String[] times) throws Exception
+	{
+		StringWriter lexicon = new StringWriter();
+		full.getTriggerTagger().writeLexicon(lexicon);
+		List<String> phrases = new ArrayList<String>();
+		for (String line : lexicon.toString().split("\n"))
+			if (!line.startsWith("#"))
+				phrases.add(line.split("\t")[0].trim());
+
+		List<Set<ContextDimension>> subsets = new ArrayList<Set<ContextDimension>>();
+		List<AbstractConText> engines = new ArrayList<AbstractConText>();
+		for (int mask=1; mask < 8; mask++)
+		{
+			EnumSet<ContextDimension> dimensions = EnumSet.noneOf(ContextDimension.class);
+			for (ContextDimension dimension : ContextDimension.values())
+				if ((mask & (1 << dimension.ordinal())) != 0)
+					dimensions.add(dimension);
+			subsets.add(dimensions);
+			engines.add(full instanceof ConTextFrench ? new ConTextFrench(dimensions) : new ConTextEnglish(dimensions));
+		}
+
+		Random random = new Random(11);
+		List<String> conceptList = Arrays.asList(concepts);
+		for (int s=0; s < SENTENCES; s++)
+		{
+			String sentence = sentence(random, concepts, words, times, phrases);
+			List<ArrayList<String>> expected = full.applyContext(conceptList, sentence);
+			for (int e=0; e < engines.size(); e++)
+			{
+				List<ArrayList<String>> results = engines.get(e).applyContext(conceptList, sentence);
+				for (int c=0; c < concepts.length; c++)
+				{
+					String message = subsets.get(e) + ", " + concepts[c] + ": " + sentence;
+					if (expected.get(c) == null)
+					{
+						assertNull(message, results.get(c));
+						continue;
+					}
+					for (ContextDimension dimension : ContextDimension.values())
+					{
+						int field = 2 + dimension.ordinal();
+						String value = subsets.get(e).contains(dimension) ? expected.get(c).get(field) : DEFAULTS.get(dimension.ordinal());
+						assertEquals(message, value, results.get(c).get(field));
+					}
+				}
+			}
+		}
+	}
+
+	//5 to 40 tokens: words, trigger phrases, time expressions and the concepts
+	private static String sentence(Random random, String[] concepts, String[] words, String[] times, List<String> phrases)
+	{
+		StringBuilder sentence = new StringBuilder();
+		int tokens = 5 + random.nextInt(36);
+		for (int t=0; t < tokens; t++)
+		{
+			int kind = random.nextInt(10);
+			String token;
+			if (kind < 4)
+				token = words[random.nextInt(words.length)];
+			else if (kind < 7)
+				token = phrases.get(random.nextInt(phrases.size()));
+			else if (kind < 8)
+				token = times[random.nextInt(times.length)];
+			else
+				token = concepts[random.nextInt(concepts.length)];
+			if (sentence.length() > 0)
+				sentence.append(' ');
+			sentence.append(token);
+		}
+		return sentence.toString();
+	}
+}
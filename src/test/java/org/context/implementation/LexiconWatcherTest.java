@@ -0,0 +1,42 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+
+/**
+ * A lexicon file that cannot be loaded leaves the previous lexicon in place and is reported, and the next
+ * valid version replaces it.
+ */
+public class LexiconWatcherTest extends TestCase {
+
+	public void testInvalidVersionKeepsThePreviousLexicon() throws Exception
+	{
+		File file = File.createTempFile("triggers", ".tsv");
+		file.deleteOnExit();
+		write(file, "pas de\tpre\tneg\n");
+		LexiconWatcher watcher = new LexiconWatcher(file.getPath(), false, 1000);
+		TriggerTagger first = watcher.getTriggers().get();
+		assertEquals(1, first.size());
+
+		write(file, "pas de\tpre\tneg\nsans\tnowhere\tneg\n");
+		assertFalse(watcher.check());
+		assertNotNull(watcher.getLastError());
+		assertSame(first, watcher.getTriggers().get());
+
+		write(file, "pas de\tpre\tneg\nsans\tpre\tneg\n# comment\n");
+		assertTrue(watcher.check());
+		assertNull(watcher.getLastError());
+		assertEquals(2, watcher.getTriggers().get().size());
+		assertEquals(1, watcher.getReloadCount());
+		watcher.close();
+	}
+
+	private static void write(File file, String lexicon) throws Exception
+	{
+		Files.write(file.toPath(), lexicon.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,126 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * The mapped reader splits the records at the ends of line whatever the size of its windows (records
+ * across two windows, multi-byte characters, CRLF, empty lines, no end of line at the end of the file),
+ * resumes at the offset of a record, and gives the same corpus output as the streaming reader.
+ */
+public class MappedCorpusReaderTest extends TestCase {
+
+	private static final String[] WORDS = {"fièvre", "toux", "œdème", "a", "", "\r", "douleur thoracique", "😷", "\t"};
+
+	public void testRecordsAcrossWindows() throws Exception
+	{
+		Random random = new Random(8);
+		for (int trial=0; trial < 50; trial++)
+		{
+			StringBuilder text = new StringBuilder();
+			int lines = random.nextInt(40);
+			for (int l=0; l < lines; l++)
+			{
+				int words = random.nextInt(5);
+				for (int w=0; w < words; w++)
+					text.append(WORDS[random.nextInt(WORDS.length)]);
+				if (l < lines - 1 || random.nextBoolean())
+					text.append(random.nextInt(4) == 0 ? "\r\n" : "\n");
+			}
+			File file = write(text.toString());
+			List<String> expected = lines(text.toString());
+			for (int window : new int[]{64, 97, 1 << 16})
+				assertEquals("window " + window + ": " + text, expected, read(file, 0, window));
+		}
+	}
+
+	public void testResumeAtRecordOffset() throws Exception
+	{
+		String text = "Pas de fièvre.\tfièvre\nToux sèche.\ttoux\r\nœdème\n\nfin";
+		File file = write(text);
+		List<String> expected = lines(text);
+		MappedCorpusReader reader = new MappedCorpusReader(file.getPath(), 0, 32);
+		long[] offsets = new long[expected.size()];
+		for (int r=0; reader.next(); r++)
+			offsets[r] = reader.nextOffset();
+		reader.close();
+		for (int r=0; r < expected.size() - 1; r++)
+			assertEquals(expected.subList(r + 1, expected.size()), read(file, offsets[r], 32));
+		assertEquals(file.length(), offsets[expected.size() - 1]);
+	}
+
+	public void testRecordLongerThanTheWindow() throws Exception
+	{
+		char[] record = new char[100];
+		Arrays.fill(record, 'a');
+		File file = write("court\n" + new String(record) + "\nfin\n");
+		try
+		{
+			read(file, 0, 64);
+			fail("record longer than the window accepted");
+		}
+		catch (IOException e)
+		{
+			//expected
+		}
+	}
+
+	public void testSameOutputAsStreaming() throws Exception
+	{
+		ConTextFrench context = new ConTextFrench();
+		File input = write(Corpora.corpus(new Random(12), 2000));
+		File streamed = File.createTempFile("corpus", ".out");
+		File mapped = File.createTempFile("corpus", ".out");
+		streamed.deleteOnExit();
+		mapped.deleteOnExit();
+		new CorpusProcessor(context, 2, 16, 1 << 20).process(input.getPath(), streamed.getPath());
+		new CorpusProcessor(context, 2, 16, 1 << 20).processMapped(input.getPath(), mapped.getPath());
+		assertTrue(streamed.length() > 0);
+		assertTrue(Arrays.equals(Files.readAllBytes(streamed.toPath()), Files.readAllBytes(mapped.toPath())));
+	}
+
+	//records of a text: lines without their end of line ("\n" or "\r\n", a final "\r" is dropped too)
+	private static List<String> lines(String text)
+	{
+		List<String> lines = new ArrayList<String>();
+		int start = 0;
+		for (int end; start < text.length(); start = end + 1)
+		{
+			end = text.indexOf('\n', start);
+			if (end < 0)
+				end = text.length();
+			String line = text.substring(start, end);
+			lines.add(line.endsWith("\r") ? line.substring(0, line.length() - 1) : line);
+		}
+		return lines;
+	}
+
+	private static List<String> read(File file, long offset, int window) throws IOException
+	{
+		List<String> records = new ArrayList<String>();
+		MappedCorpusReader.Decoder decoder = new MappedCorpusReader.Decoder();
+		try (MappedCorpusReader reader = new MappedCorpusReader(file.getPath(), offset, window))
+		{
+			while (reader.next())
+				records.add(decoder.decode(reader.buffer(), reader.start(), reader.end()).toString());
+		}
+		return records;
+	}
+
+	private static File write(String text) throws IOException
+	{
+		File file = File.createTempFile("corpus", ".tsv");
+		file.deleteOnExit();
+		Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+}
@@ -0,0 +1,95 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * The analysis of several concepts of a sentence in one pass gives each concept the result of its own
+ * analysis (applyContext(concept, sentence)), on random sentences made of lexicon phrases, time
+ * expressions, words and one-word concepts (a concept tag replaces a single token, as its word does).
+ * Each concept follows a word that ends no trigger phrase: a trigger phrase ending with a space is only
+ * tagged right before a concept tag, so before another concept it is tagged in the multi analysis only.
+ */
+public class MultiConceptParityTest extends TestCase {
+
+	private static final int SENTENCES = 1000;
+
+	public void testFrench() throws Exception
+	{
+		check(new ConTextFrench(), new String[]{"fièvre", "toux", "dyspnée", "diabète"}, "mot",
+			new String[]{"le", "patient", "présente", "une", "douleur", "à", "l'examen", "de", "ce", "jour", "et", ",", ".",
+				"il y a 2 ans", "depuis 3 mois", "hier"});
+	}
+
+	public void testEnglish() throws Exception
+	{
+		check(new ConTextEnglish(), new String[]{"fever", "cough", "dyspnea", "diabetes"}, "word",
+			new String[]{"the", "patient", "has", "a", "pain", "on", "examination", "of", "this", "day", "and", ",", ".",
+				"2 years ago", "for 3 months", "yesterday"});
+	}
+
+	public void testTaggedSentence() throws Exception
+	{
+		ConTextFrench context = new ConTextFrench();
+		String sentence = "Pas de fièvre, toux depuis hier.";
+		assertEquals(" <NEG_PRE> [0] , [1] <HYPO_END> hier.",
+			context.preProcessSentence(sentence, Arrays.asList("fièvre", "toux")).replaceAll(" +", " "));
+		List<ArrayList<String>> results = context.applyContext(Arrays.asList("fièvre", "toux", "cancer"), sentence);
+		assertEquals(Arrays.asList("fièvre", sentence, "Negated", "Recent", "Patient"), results.get(0));
+		assertEquals(Arrays.asList("toux", sentence, "Negated", "Recent", "Patient"), results.get(1));
+		assertNull(results.get(2));
+	}
+
+	public void testTriggerBeforeAnotherConcept() throws Exception
+	{
+		ConTextEnglish context = new ConTextEnglish();
+		//"no evidence " is tagged before the tag of cough only
+		String sentence = "no evidence cough fever";
+		assertEquals("Negated", context.applyContext("cough", sentence).get(2));
+		assertEquals("Affirmed", context.applyContext("fever", sentence).get(2));
+		List<ArrayList<String>> results = context.applyContext(Arrays.asList("cough", "fever"), sentence);
+		assertEquals("Negated", results.get(0).get(2));
+		assertEquals("Negated", results.get(1).get(2));
+	}
+
+	private static void check(AbstractConText context, String[] concepts, String guard, String[] words) throws Exception
+	{
+		StringWriter lexicon = new StringWriter();
+		context.getTriggerTagger().writeLexicon(lexicon);
+		List<String> phrases = new ArrayList<String>();
+		for (String line : lexicon.toString().split("\n"))
+			if (!line.startsWith("#"))
+				phrases.add(line.split("\t")[0].trim());
+
+		Random random = new Random(4);
+		List<String> conceptList = Arrays.asList(concepts);
+		for (int s=0; s < SENTENCES; s++)
+		{
+			//each concept at most once: the single analysis tags its first occurrence
+			List<String> tokens = new ArrayList<String>();
+			int length = 5 + random.nextInt(30);
+			for (int t=0; t < length; t++)
+				tokens.add(random.nextInt(3) == 0 ? phrases.get(random.nextInt(phrases.size())) : words[random.nextInt(words.length)]);
+			for (String concept : concepts)
+				if (random.nextInt(4) != 0)
+				{
+					int at = random.nextInt(tokens.size() + 1);
+					tokens.add(at, concept);
+					tokens.add(at, guard);
+				}
+			StringBuilder sentence = new StringBuilder();
+			for (String token : tokens)
+				sentence.append(sentence.length() == 0 ? "" : " ").append(token);
+
+			List<ArrayList<String>> results = context.applyContext(conceptList, sentence.toString());
+			for (int c=0; c < concepts.length; c++)
+				assertEquals(concepts[c] + ": " + sentence, context.applyContext(concepts[c], sentence.toString()), results.get(c));
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+import org.context.implementation.ConText.ExperiencerContext;
+import org.context.implementation.ConText.NegationContext;
+import org.context.implementation.ConText.TemporalityContext;
+
+import java.util.Arrays;
+
+
+/**
+ * The scope algorithms on token codes give the same negation, temporality and experiencer as the regex
+ * comparisons of the original engines, on random tagged sentences (triggers, words and concepts), one
+ * dimension at a time and in the single pass of the three.
+ */
+public class ScopeParityTest extends TestCase {
+
+	public void testFrench() throws Exception
+	{
+		check(new ConTextFrench(), "scopes-fr.tsv");
+	}
+
+	public void testEnglish() throws Exception
+	{
+		check(new ConTextEnglish(), "scopes-en.tsv");
+	}
+
+	private static void check(AbstractConText context, String baseline) throws Exception
+	{
+		int number = 0;
+		for (String[] fields : Baseline.read(baseline))
+		{
+			number++;
+			String[] words = fields[0].split(" ");
+			String message = baseline + ", case " + number + ": " + fields[0];
+			assertEquals(message, fields[1], context.applyNegEx(words));
+			assertEquals(message, fields[2], context.applyTemporality(words));
+			assertEquals(message, fields[3], context.applyExperiencer(words));
+			int packed = !Arrays.asList(words).contains("[0]") ? -1 : ContextResult.pack(NegationContext.valueOf(fields[1]),
+				TemporalityContext.valueOf(fields[2]), ExperiencerContext.valueOf(fields[3]));
+			assertEquals(message, packed, context.applyContextPacked(words));
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+
+
+/**
+ * The normalizer gives the same text as replaceAll("\\s+", " ").toLowerCase() in the original engines, on
+ * random texts of upper and lower case letters (accented, ligatures, supplementary characters), tags and
+ * whitespace, and maps each normalized character back to the text.
+ */
+public class TextNormalizerParityTest extends TestCase {
+
+	public void testNormalizedText() throws Exception
+	{
+		//one normalizer for all the texts: its buffer is reused
+		TextNormalizer normalizer = new TextNormalizer();
+		int number = 0;
+		for (String[] fields : Baseline.read("normalizer.tsv"))
+		{
+			number++;
+			String text = fields[0];
+			String message = "normalizer.tsv, case " + number + ": " + text;
+			assertEquals(message, fields[1], normalizer.normalize(text).toString());
+
+			int previous = 0;
+			for (int i=0; i < normalizer.length(); i++)
+			{
+				int offset = normalizer.offset(i);
+				assertTrue(message, offset >= previous && offset < text.length());
+				assertEquals(message, normalizer.chars()[i] == ' ', TriggerTagger.isSpace(text.charAt(offset)));
+				previous = offset;
+			}
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+
+
+/**
+ * The time scanners tag the same time expressions as the three regexes (for, duration, since) of the
+ * original engines, on random sequences of numbers, units, month and season names and other words.
+ */
+public class TimeScannerParityTest extends TestCase {
+
+	public void testFrench() throws Exception
+	{
+		check(new FrenchTimeScanner(), "time-fr.tsv");
+	}
+
+	public void testEnglish() throws Exception
+	{
+		check(new EnglishTimeScanner(), "time-en.tsv");
+	}
+
+	private static void check(TimeScanner scanner, String baseline) throws Exception
+	{
+		int number = 0;
+		for (String[] fields : Baseline.read(baseline))
+		{
+			number++;
+			assertEquals(baseline + ", case " + number + ": " + fields[0], fields[1], scanner.tag(fields[0]));
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+
+
+/**
+ * The tokenizers give the same tokens as the String.split of the original engines ("[(),;\s]+" in French,
+ * "[,;\s]+" in English), on random tagged sentences with runs of delimiters, and their offsets are those
+ * of the tokens in the sentence.
+ */
+public class TokenizerParityTest extends TestCase {
+
+	public void testFrench() throws Exception
+	{
+		check(Tokenizer.FRENCH, "tokens-fr.tsv");
+	}
+
+	public void testEnglish() throws Exception
+	{
+		check(Tokenizer.ENGLISH, "tokens-en.tsv");
+	}
+
+	private static void check(Tokenizer tokenizer, String baseline) throws Exception
+	{
+		int number = 0;
+		for (String[] fields : Baseline.read(baseline))
+		{
+			number++;
+			String sentence = fields[0];
+			String message = baseline + ", case " + number + ": " + sentence;
+			String[] expected = Arrays.copyOfRange(fields, 1, fields.length);
+			assertEquals(message, Arrays.asList(expected), Arrays.asList(tokenizer.split(sentence)));
+
+			int[] tokens = tokenizer.tokenize(sentence);
+			assertEquals(message, 2 * expected.length, tokens.length);
+			for (int t=0; t < expected.length; t++)
+				assertEquals(message, expected[t], sentence.substring(tokens[2*t], tokens[2*t+1]));
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * The trigger tagging gives the same tagged sentences and contexts as the sequential replaceAll passes of
+ * the original engines, on random sentences made of lexicon phrases (whole, cut or in upper case), words
+ * and separators.
+ */
+public class TriggerParityTest extends TestCase {
+
+	public void testFrench() throws Exception
+	{
+		check(new ConTextFrench(), "triggers-fr.tsv");
+	}
+
+	public void testEnglish() throws Exception
+	{
+		check(new ConTextEnglish(), "triggers-en.tsv");
+	}
+
+	private static void check(ConText context, String baseline) throws Exception
+	{
+		int number = 0;
+		for (String[] fields : Baseline.read(baseline))
+		{
+			number++;
+			String sentence = fields[0], concept = fields[1];
+			String message = baseline + ", case " + number + ": " + sentence;
+			assertEquals(message, fields[2], context.preProcessSentence(sentence, concept));
+			List<String> expected = fields[3] == null ? null
+				: new ArrayList<String>(Arrays.asList(concept, sentence, fields[3], fields[4], fields[5]));
+			assertEquals(message, expected, context.applyContext(concept, sentence));
+		}
+	}
+}
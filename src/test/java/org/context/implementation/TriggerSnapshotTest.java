@@ -0,0 +1,189 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+
+/**
+ * Compiled snapshots of the trigger lexicon: the built-in lexicons are packaged with the classes and
+ * match their entries, a snapshot (or a written lexicon) loads back as the same tagger, a corrupted snapshot (random bit flips) is rejected with an IOException when it is loaded, and
+ * one whose checksum still matches never fails later while tagging.
+ */
+public class TriggerSnapshotTest extends TestCase {
+
+	private static final String SENTENCE = "le patient ne présente pas de fièvre depuis hier , sans doute une grippe";
+	private static final int TRIALS = 500;
+
+	public void testBuiltInSnapshots() throws Exception
+	{
+		for (boolean fold : new boolean[]{false, true})
+		{
+			TriggerTagger french = TriggerTagger.loadResource(ConTextFrench.snapshot(fold));
+			assertEquals(new TriggerTagger(ConTextFrench.regexes, fold).getVersion(), french.getVersion());
+			assertEquals(fold, french.isFoldingAccents());
+			assertEquals(french.getVersion(), ConTextFrench.triggers(fold).getVersion());
+
+			TriggerTagger english = TriggerTagger.loadResource(ConTextEnglish.snapshot(fold));
+			assertEquals(new TriggerTagger(ConTextEnglish.regexes, fold).getVersion(), english.getVersion());
+			assertEquals(english.getVersion(), ConTextEnglish.triggers(fold).getVersion());
+		}
+	}
+
+	public void testBuiltInFallsBackToTheEntries() throws Exception
+	{
+		String version = new TriggerTagger(ConTextFrench.regexes).getVersion();
+		assertEquals(version, TriggerTagger.builtIn("org/context/implementation/missing.ctx", ConTextFrench.regexes, false).getVersion());
+		//a snapshot compiled from other entries is not used
+		assertEquals(version, TriggerTagger.builtIn(ConTextFrench.snapshot(true), ConTextFrench.regexes, false).getVersion());
+		String[] regexes = Arrays.copyOf(ConTextFrench.regexes, ConTextFrench.regexes.length + 1);
+		regexes[regexes.length - 1] = "nouveau déclencheur,pre,neg";
+		TriggerTagger triggers = TriggerTagger.builtIn(ConTextFrench.snapshot(false), regexes, false);
+		assertEquals(new TriggerTagger(regexes).getVersion(), triggers.getVersion());
+		assertEquals(" <NEG_PRE> toux ", triggers.tag(" nouveau déclencheur toux "));
+	}
+
+	public void testRoundTrip() throws Exception
+	{
+		File file = File.createTempFile("triggers", ".ctx");
+		file.deleteOnExit();
+		for (boolean fold : new boolean[]{false, true})
+		{
+			TriggerTagger triggers = ConTextFrench.triggers(fold);
+			byte[] snapshot = snapshot(triggers);
+			Files.write(file.toPath(), snapshot);
+			StringWriter lexicon = new StringWriter();
+			triggers.writeLexicon(lexicon);
+			List<String> sentences = sentences(lexicon.toString(), new Random(23));
+
+			assertSameTagger(triggers, TriggerTagger.loadSnapshot(new ByteArrayInputStream(snapshot)), sentences);
+			assertSameTagger(triggers, TriggerTagger.mapSnapshot(file.getPath()), sentences);
+			assertSameTagger(triggers, TriggerTagger.load(new StringReader(lexicon.toString()), fold), sentences);
+		}
+	}
+
+	public void testFlippedBitsAreRejected() throws Exception
+	{
+		byte[] snapshot = snapshot(new ConTextFrench().getTriggerTagger());
+		File file = File.createTempFile("triggers", ".ctx");
+		file.deleteOnExit();
+		Random random = new Random(17);
+		for (int trial=0; trial < TRIALS; trial++)
+		{
+			byte[] corrupted = flip(snapshot, random);
+			try
+			{
+				TriggerTagger.loadSnapshot(new ByteArrayInputStream(corrupted));
+				fail("trial " + trial + ": corrupted snapshot loaded");
+			}
+			catch (IOException e)
+			{
+				//expected
+			}
+			Files.write(file.toPath(), corrupted);
+			try
+			{
+				TriggerTagger.mapSnapshot(file.getPath());
+				fail("trial " + trial + ": corrupted snapshot mapped");
+			}
+			catch (IOException e)
+			{
+				//expected
+			}
+		}
+	}
+
+	public void testFlippedBitsWithMatchingChecksum() throws Exception
+	{
+		TriggerTagger triggers = new ConTextFrench().getTriggerTagger();
+		byte[] snapshot = snapshot(triggers);
+		Random random = new Random(17);
+		int rejected = 0;
+		for (int trial=0; trial < TRIALS; trial++)
+		{
+			//the checksum is computed again: the bounds and the automaton are checked on load
+			byte[] corrupted = flip(snapshot, random);
+			CRC32 crc = new CRC32();
+			crc.update(corrupted, 0, corrupted.length - 4);
+			ByteBuffer.wrap(corrupted).putInt(corrupted.length - 4, (int) crc.getValue());
+			try
+			{
+				TriggerTagger loaded = TriggerTagger.loadSnapshot(new ByteArrayInputStream(corrupted));
+				loaded.tag(SENTENCE);
+			}
+			catch (IOException e)
+			{
+				rejected++;
+			}
+		}
+		assertTrue(rejected > 0);
+	}
+
+	private static byte[] snapshot(TriggerTagger triggers) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		triggers.writeSnapshot(out);
+		byte[] snapshot = out.toByteArray();
+		assertEquals(triggers.tag(SENTENCE), TriggerTagger.loadSnapshot(new ByteArrayInputStream(snapshot)).tag(SENTENCE));
+		return snapshot;
+	}
+
+	//1 to 4 bits flipped, anywhere before the checksum (again if they cancel out)
+	private static byte[] flip(byte[] snapshot, Random random)
+	{
+		byte[] corrupted = snapshot.clone();
+		while (Arrays.equals(corrupted, snapshot))
+		{
+			int bits = 1 + random.nextInt(4);
+			for (int b=0; b < bits; b++)
+				corrupted[random.nextInt(corrupted.length - 4)] ^= 1 << random.nextInt(8);
+		}
+		return corrupted;
+	}
+
+	private static void assertSameTagger(TriggerTagger expected, TriggerTagger loaded, List<String> sentences) throws IOException
+	{
+		assertEquals(expected.getVersion(), loaded.getVersion());
+		assertEquals(expected.size(), loaded.size());
+		assertEquals(expected.isFoldingAccents(), loaded.isFoldingAccents());
+		StringWriter lexicon = new StringWriter();
+		expected.writeLexicon(lexicon);
+		StringWriter loadedLexicon = new StringWriter();
+		loaded.writeLexicon(loadedLexicon);
+		assertEquals(lexicon.toString(), loadedLexicon.toString());
+		for (String sentence : sentences)
+			assertEquals(sentence, expected.tag(sentence), loaded.tag(sentence));
+	}
+
+	//normalized sentences made of lexicon phrases and other words
+	private static List<String> sentences(String lexicon, Random random)
+	{
+		List<String> phrases = new ArrayList<String>();
+		for (String line : lexicon.split("\n"))
+			if (!line.startsWith("#"))
+				phrases.add(line.split("\t")[0].trim());
+		String[] words = {"le", "patient", "fièvre", "toux", "de", ",", "."};
+		List<String> sentences = new ArrayList<String>();
+		for (int s=0; s < 2000; s++)
+		{
+			StringBuilder sentence = new StringBuilder(" ");
+			int tokens = 1 + random.nextInt(12);
+			for (int t=0; t < tokens; t++)
+				sentence.append(random.nextBoolean() ? phrases.get(random.nextInt(phrases.size())) : words[random.nextInt(words.length)]).append(' ');
+			sentences.add(sentence.toString());
+		}
+		return sentences;
+	}
+}
@@ -0,0 +1,81 @@
+package org.context.implementation;
+
+import junit.framework.TestCase;
+
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Set;
+
+
+/**
+ * The sentence counts of the trigger tagger, summed over the threads that tag (those still running and
+ * those that ended), and the lexicons compiled with and without accent folding.
+ */
+public class TriggerTaggerTest extends TestCase {
+
+	public void testCountsOfEndedThreadsAreKept() throws Exception
+	{
+		final TriggerTagger triggers = new TriggerTagger(new String[]{"pas de,pre,neg"});
+		for (int t=0; t < 20; t++)
+		{
+			Thread thread = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					triggers.tag(" pas de fièvre ");
+					triggers.tag(" fièvre ");
+				}
+			});
+			thread.start();
+			thread.join();
+		}
+		triggers.tag(" toux ");
+		assertEquals(41, triggers.getSentenceCount());
+		assertEquals(21, triggers.getSkippedSentenceCount());
+		assertEquals(21.0 / 41, triggers.getSkipRate(), 1e-9);
+	}
+
+	public void testFoldedLexiconKeepsOneVariantPerCategory() throws Exception
+	{
+		TriggerTagger triggers = new TriggerTagger(new String[]{"écarté,post,neg", "ecarte,post,neg", "écarté,pre,neg", "éliminé,post,neg", "pas de,pre,neg"});
+		TriggerTagger folded = new TriggerTagger(new String[]{"écarté,post,neg", "ecarte,post,neg", "écarté,pre,neg", "éliminé,post,neg", "pas de,pre,neg"}, true);
+		assertEquals(5, triggers.size());
+		assertEquals(4, folded.size());
+		assertFalse(triggers.isFoldingAccents());
+		assertTrue(folded.isFoldingAccents());
+		assertFalse(triggers.getVersion().equals(folded.getVersion()));
+
+		//the folded lexicon tags the unaccented text as the other one tags the accented text
+		assertEquals(triggers.tag(" toux éliminé "), folded.tag(" toux elimine "));
+		assertEquals(triggers.tag(" pas de toux écarté "), folded.tag(" pas de toux ecarte "));
+		assertFalse(" fievre elimine ".equals(folded.tag(" fievre elimine ")));
+		assertEquals(" fievre elimine ", triggers.tag(" fievre elimine "));
+	}
+
+	public void testFoldedBuiltInLexicon() throws Exception
+	{
+		TriggerTagger triggers = ConTextFrench.triggers(false);
+		TriggerTagger folded = ConTextFrench.triggers(true);
+		//the compiled phrases, folded: one per category and folded phrase
+		StringWriter lexicon = new StringWriter();
+		triggers.writeLexicon(lexicon);
+		Set<String> variants = new HashSet<String>();
+		for (String line : lexicon.toString().split("\n"))
+		{
+			if (line.startsWith("#"))
+				continue;
+			String[] entry = line.split("\t");
+			StringBuilder phrase = new StringBuilder();
+			for (char c : entry[0].toCharArray())
+				phrase.append(TextNormalizer.fold(c));
+			variants.add(entry[1] + "," + entry[2] + "," + phrase);
+		}
+		assertTrue(folded.size() < triggers.size());
+		assertEquals(variants.size(), folded.size());
+
+		ConTextFrench context = new ConTextFrench(folded);
+		assertEquals("Negated", context.applyContext("fievre", "pas de fievre, diagnostic ecarte").get(2));
+		assertEquals("Negated", context.applyContext("fièvre", "pas de fièvre").get(2));
+	}
+}